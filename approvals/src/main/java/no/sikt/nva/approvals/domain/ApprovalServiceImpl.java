@@ -1,22 +1,29 @@
 package no.sikt.nva.approvals.domain;
 
 import static java.util.UUID.randomUUID;
+import static no.sikt.nva.approvals.persistence.AsyncApprovalRepository.join;
+import static no.sikt.nva.approvals.persistence.DynamoDbApprovalRepository.isConditionalCheckFailure;
 import static no.sikt.nva.handle.utils.DatabaseConnectionSupplier.getConnectionSupplier;
 
 import java.net.URI;
 import java.sql.Connection;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import no.sikt.nva.approvals.persistence.ApprovalRepository;
+import no.sikt.nva.approvals.persistence.ApprovalVersionConflictException;
+import no.sikt.nva.approvals.persistence.AsyncApprovalRepository;
+import no.sikt.nva.approvals.persistence.CachingApprovalRepository;
 import no.sikt.nva.approvals.persistence.DynamoDbApprovalRepository;
 import no.sikt.nva.approvals.persistence.NamedIdentifierQueryObject;
 import no.sikt.nva.handle.HandleDatabase;
 import nva.commons.core.Environment;
 import nva.commons.core.JacocoGenerated;
 import nva.commons.core.paths.UriWrapper;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
 
 public class ApprovalServiceImpl implements ApprovalService {
 
@@ -25,25 +32,32 @@ public class ApprovalServiceImpl implements ApprovalService {
   private static final String APPROVAL_PATH = "approval";
   private final HandleDatabase handleDatabase;
   private final ApprovalRepository approvalRepository;
+  private final AsyncApprovalRepository asyncApprovalRepository;
   private final Supplier<Connection> connectionSupplier;
   private final Environment environment;
 
   public ApprovalServiceImpl(
       HandleDatabase handleDatabase,
       ApprovalRepository approvalRepository,
+      AsyncApprovalRepository asyncApprovalRepository,
       Supplier<Connection> connectionSupplier,
       Environment environment) {
     this.handleDatabase = handleDatabase;
     this.approvalRepository = approvalRepository;
+    this.asyncApprovalRepository = asyncApprovalRepository;
     this.connectionSupplier = connectionSupplier;
     this.environment = environment;
   }
 
   @JacocoGenerated
   public static ApprovalService defaultInstance(Environment environment) {
+    var approvalRepository =
+        CachingApprovalRepository.fromEnvironment(
+            DynamoDbApprovalRepository.defaultInstance(environment), environment);
     return new ApprovalServiceImpl(
         new HandleDatabase(environment),
-        DynamoDbApprovalRepository.defaultInstance(environment),
+        approvalRepository,
+        new AsyncApprovalRepository(approvalRepository),
         getConnectionSupplier(),
         environment);
   }
@@ -79,18 +93,30 @@ public class ApprovalServiceImpl implements ApprovalService {
   public Approval updateApprovalIdentifiers(
       UUID approvalId, Collection<NamedIdentifier> namedIdentifiers)
       throws ApprovalServiceException, ApprovalConflictException {
-    var identifiers = approvalRepository.findIdentifiers(namedIdentifiers);
-    var approval =
-        getApprovalByIdentifier(approvalId)
+    var identifiers = asyncApprovalRepository.findIdentifiers(namedIdentifiers);
+    var currentApproval =
+        join(asyncApprovalRepository.findVersionedByApprovalIdentifier(approvalId))
             .orElseThrow(
                 () ->
                     new ApprovalServiceException(
                         "Approval not found for identifier %s".formatted(approvalId)));
+    var approval = currentApproval.approval();
 
-    ensureIdentifiersAreNotUsedByOtherApproval(identifiers, approval);
+    ensureIdentifiersAreNotUsedByOtherApproval(join(identifiers), approval);
     var updatedApproval =
         new Approval(approval.identifier(), namedIdentifiers, approval.source(), approval.handle());
-    approvalRepository.updateApprovalIdentifiers(updatedApproval);
+    try {
+      approvalRepository.updateApprovalIdentifiers(currentApproval, updatedApproval);
+    } catch (ApprovalVersionConflictException exception) {
+      throw new ApprovalConflictException(exception.getMessage(), Map.of());
+    } catch (TransactionCanceledException exception) {
+      if (isConditionalCheckFailure(exception)) {
+        throw new ApprovalConflictException(
+            "Identifiers of approval %s were modified by another request".formatted(approvalId),
+            Map.of());
+      }
+      throw exception;
+    }
 
     return updatedApproval;
   }
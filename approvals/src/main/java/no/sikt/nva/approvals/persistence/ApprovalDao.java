@@ -19,10 +19,16 @@ import software.amazon.awssdk.enhanced.dynamodb.document.EnhancedDocument;
 
 @JsonTypeInfo(use = Id.NAME, property = "type")
 @JsonTypeName("Approval")
-public record ApprovalDao(UUID identifier, URI source) implements DatabaseEntry {
+public record ApprovalDao(UUID identifier, URI source, Long version) implements DatabaseEntry {
+
+  public static final long INITIAL_VERSION = 0;
 
   public static ApprovalDao fromApproval(Approval approval) {
-    return new ApprovalDao(approval.identifier(), approval.source());
+    return fromApproval(approval, INITIAL_VERSION);
+  }
+
+  public static ApprovalDao fromApproval(Approval approval, long version) {
+    return new ApprovalDao(approval.identifier(), approval.source(), version);
   }
 
   @Override
@@ -14,8 +14,12 @@ public interface ApprovalRepository {
 
   void updateApprovalIdentifiers(Approval approval);
 
+  void updateApprovalIdentifiers(VersionedApproval currentApproval, Approval approval);
+
   Optional<Approval> findByApprovalIdentifier(UUID approvalIdentifier);
 
+  Optional<VersionedApproval> findVersionedByApprovalIdentifier(UUID approvalIdentifier);
+
   Optional<Approval> findByHandle(Handle handle);
 
   Optional<Approval> findByIdentifier(NamedIdentifier namedIdentifier);
@@ -0,0 +1,10 @@
+package no.sikt.nva.approvals.persistence;
+
+import java.util.UUID;
+
+public class ApprovalVersionConflictException extends RuntimeException {
+
+  public ApprovalVersionConflictException(UUID approvalIdentifier) {
+    super("Approval %s was modified by another request".formatted(approvalIdentifier));
+  }
+}
@@ -0,0 +1,74 @@
+package no.sikt.nva.approvals.persistence;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import no.sikt.nva.approvals.domain.Approval;
+import no.sikt.nva.approvals.domain.Handle;
+import no.sikt.nva.approvals.domain.NamedIdentifier;
+
+// Runs repository calls on virtual threads, so a blocked DynamoDB request does not hold a platform
+// thread and independent calls can be overlapped by the caller.
+public class AsyncApprovalRepository {
+
+  // Shared by every repository call that runs in the background, including parallel batch gets
+  static final Executor VIRTUAL_THREADS = Executors.newVirtualThreadPerTaskExecutor();
+  private final ApprovalRepository delegate;
+  private final Executor executor;
+
+  public AsyncApprovalRepository(ApprovalRepository delegate) {
+    this(delegate, VIRTUAL_THREADS);
+  }
+
+  public AsyncApprovalRepository(ApprovalRepository delegate, Executor executor) {
+    this.delegate = delegate;
+    this.executor = executor;
+  }
+
+  public static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      throw e.getCause() instanceof RuntimeException cause ? cause : e;
+    }
+  }
+
+  public CompletableFuture<Void> save(Approval approval) {
+    return CompletableFuture.runAsync(() -> delegate.save(approval), executor);
+  }
+
+  public CompletableFuture<Void> updateApprovalIdentifiers(Approval approval) {
+    return CompletableFuture.runAsync(() -> delegate.updateApprovalIdentifiers(approval), executor);
+  }
+
+  public CompletableFuture<Optional<Approval>> findByApprovalIdentifier(UUID approvalIdentifier) {
+    return CompletableFuture.supplyAsync(
+        () -> delegate.findByApprovalIdentifier(approvalIdentifier), executor);
+  }
+
+  public CompletableFuture<Optional<VersionedApproval>> findVersionedByApprovalIdentifier(
+      UUID approvalIdentifier) {
+    return CompletableFuture.supplyAsync(
+        () -> delegate.findVersionedByApprovalIdentifier(approvalIdentifier), executor);
+  }
+
+  public CompletableFuture<Optional<Approval>> findByHandle(Handle handle) {
+    return CompletableFuture.supplyAsync(() -> delegate.findByHandle(handle), executor);
+  }
+
+  public CompletableFuture<Optional<Approval>> findByIdentifier(NamedIdentifier namedIdentifier) {
+    return CompletableFuture.supplyAsync(
+        () -> delegate.findByIdentifier(namedIdentifier), executor);
+  }
+
+  public CompletableFuture<List<NamedIdentifierQueryObject>> findIdentifiers(
+      Collection<NamedIdentifier> namedIdentifiers) {
+    return CompletableFuture.supplyAsync(
+        () -> delegate.findIdentifiers(namedIdentifiers), executor);
+  }
+}
@@ -0,0 +1,136 @@
+package no.sikt.nva.approvals.persistence;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+import no.sikt.nva.approvals.domain.Approval;
+import no.sikt.nva.approvals.domain.Handle;
+import no.sikt.nva.approvals.domain.NamedIdentifier;
+import no.sikt.nva.handle.model.CacheStatistics;
+import no.sikt.nva.handle.utils.ExpiringLruCache;
+import no.sikt.nva.handle.utils.StatementMetrics;
+import nva.commons.core.Environment;
+
+public class CachingApprovalRepository implements ApprovalRepository {
+
+  public static final String ENV_APPROVAL_CACHE_ENABLED = "APPROVAL_CACHE_ENABLED";
+  public static final String ENV_APPROVAL_CACHE_SIZE = "APPROVAL_CACHE_SIZE";
+  public static final String ENV_APPROVAL_CACHE_TTL_SECONDS = "APPROVAL_CACHE_TTL_SECONDS";
+  public static final int DEFAULT_APPROVAL_CACHE_SIZE = 1000;
+  // Bounds how long another container can serve an approval after it was updated
+  public static final Duration DEFAULT_APPROVAL_CACHE_TTL = Duration.ofSeconds(5);
+  public static final String APPROVAL_CACHE_OPERATION = "ApprovalCache";
+  private final ApprovalRepository delegate;
+  // Keyed by the lookup value: approval UUID or Handle, which never move to another approval
+  private final ExpiringLruCache<Object, Approval> cache;
+  private final StatementMetrics metrics;
+
+  public CachingApprovalRepository(
+      ApprovalRepository delegate, int maximumSize, Duration timeToLive, Clock clock) {
+    this(delegate, maximumSize, timeToLive, clock, StatementMetrics.toStandardOutput());
+  }
+
+  public CachingApprovalRepository(
+      ApprovalRepository delegate,
+      int maximumSize,
+      Duration timeToLive,
+      Clock clock,
+      StatementMetrics metrics) {
+    this.delegate = delegate;
+    this.cache = new ExpiringLruCache<>(maximumSize, timeToLive, clock);
+    this.metrics = metrics;
+  }
+
+  public static ApprovalRepository fromEnvironment(
+      ApprovalRepository delegate, Environment environment) {
+    var enabled =
+        environment.readEnvOpt(ENV_APPROVAL_CACHE_ENABLED).map(Boolean::parseBoolean).orElse(false);
+    if (!enabled) {
+      return delegate;
+    }
+    return new CachingApprovalRepository(
+        delegate,
+        environment
+            .readEnvOpt(ENV_APPROVAL_CACHE_SIZE)
+            .map(Integer::parseInt)
+            .orElse(DEFAULT_APPROVAL_CACHE_SIZE),
+        environment
+            .readEnvOpt(ENV_APPROVAL_CACHE_TTL_SECONDS)
+            .map(Long::parseLong)
+            .map(Duration::ofSeconds)
+            .orElse(DEFAULT_APPROVAL_CACHE_TTL),
+        Clock.systemUTC());
+  }
+
+  @Override
+  public void save(Approval approval) {
+    delegate.save(approval);
+    invalidate(approval);
+  }
+
+  @Override
+  public void updateApprovalIdentifiers(Approval approval) {
+    delegate.updateApprovalIdentifiers(approval);
+    invalidate(approval);
+  }
+
+  @Override
+  public void updateApprovalIdentifiers(VersionedApproval currentApproval, Approval approval) {
+    delegate.updateApprovalIdentifiers(currentApproval, approval);
+    invalidate(approval);
+  }
+
+  @Override
+  public Optional<Approval> findByApprovalIdentifier(UUID approvalIdentifier) {
+    return readThrough(
+        approvalIdentifier, () -> delegate.findByApprovalIdentifier(approvalIdentifier));
+  }
+
+  // Versioned reads are the base of an update and must not be older than the table
+  @Override
+  public Optional<VersionedApproval> findVersionedByApprovalIdentifier(UUID approvalIdentifier) {
+    return delegate.findVersionedByApprovalIdentifier(approvalIdentifier);
+  }
+
+  @Override
+  public Optional<Approval> findByHandle(Handle handle) {
+    return readThrough(handle, () -> delegate.findByHandle(handle));
+  }
+
+  // An identifier can be moved to another approval, and other containers would not see that
+  @Override
+  public Optional<Approval> findByIdentifier(NamedIdentifier namedIdentifier) {
+    return delegate.findByIdentifier(namedIdentifier);
+  }
+
+  // Conflict checks before writes must see the current table, so identifiers are never cached
+  @Override
+  public List<NamedIdentifierQueryObject> findIdentifiers(
+      Collection<NamedIdentifier> namedIdentifiers) {
+    return delegate.findIdentifiers(namedIdentifiers);
+  }
+
+  public CacheStatistics statistics() {
+    return cache.statistics();
+  }
+
+  // Misses are not cached, since a created approval would otherwise stay hidden until expiry
+  private Optional<Approval> readThrough(Object key, Supplier<Optional<Approval>> loader) {
+    var approval = cache.get(key);
+    var hit = approval.isPresent();
+    metrics.recordCacheLookups(APPROVAL_CACHE_OPERATION, null, hit ? 1 : 0, hit ? 0 : 1);
+    if (!hit) {
+      approval = loader.get();
+      approval.ifPresent(value -> cache.put(key, value));
+    }
+    return approval;
+  }
+
+  private void invalidate(Approval approval) {
+    cache.invalidateIf((key, cached) -> cached.identifier().equals(approval.identifier()));
+  }
+}
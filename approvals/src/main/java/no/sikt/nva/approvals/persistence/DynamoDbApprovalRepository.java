@@ -1,5 +1,7 @@
 package no.sikt.nva.approvals.persistence;
 
+import static java.util.Objects.isNull;
+import static no.sikt.nva.approvals.persistence.ApprovalDao.INITIAL_VERSION;
 import static no.sikt.nva.approvals.persistence.ApprovalDao.toDatabaseIdentifier;
 import static no.sikt.nva.approvals.persistence.DynamoDbApprovalRepository.Operation.DatabaseOperation.CREATE;
 import static no.sikt.nva.approvals.persistence.DynamoDbApprovalRepository.Operation.DatabaseOperation.DELETE;
@@ -12,12 +14,14 @@ import static no.sikt.nva.approvals.persistence.DynamoDbConstants.SK0;
 import static no.sikt.nva.approvals.persistence.DynamoDbConstants.SK1;
 import static no.sikt.nva.approvals.persistence.DynamoDbConstants.SK2;
 import static no.sikt.nva.approvals.persistence.DynamoDbConstants.TABLE;
+import static no.sikt.nva.approvals.persistence.DynamoDbConstants.VERSION;
 import static no.sikt.nva.approvals.persistence.DynamoDbConstants.defaultDynamoClient;
 import static nva.commons.core.attempt.Try.attempt;
 import static software.amazon.awssdk.enhanced.dynamodb.AttributeValueType.S;
 import static software.amazon.awssdk.enhanced.dynamodb.TableMetadata.primaryIndexName;
 import static software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional.keyEqualTo;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
@@ -25,6 +29,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.IntStream;
 import no.sikt.nva.approvals.domain.Approval;
 import no.sikt.nva.approvals.domain.Handle;
@@ -44,9 +51,12 @@ import software.amazon.awssdk.enhanced.dynamodb.document.EnhancedDocument;
 import software.amazon.awssdk.enhanced.dynamodb.model.BatchGetItemEnhancedRequest;
 import software.amazon.awssdk.enhanced.dynamodb.model.Page;
 import software.amazon.awssdk.enhanced.dynamodb.model.ReadBatch;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactDeleteItemEnhancedRequest;
 import software.amazon.awssdk.enhanced.dynamodb.model.TransactPutItemEnhancedRequest;
 import software.amazon.awssdk.enhanced.dynamodb.model.TransactWriteItemsEnhancedRequest;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
 
 // FIXME: Suppressing warning in order to upgrade PMD version
 @SuppressWarnings("PMD.CouplingBetweenObjects")
@@ -54,12 +64,27 @@ public class DynamoDbApprovalRepository implements ApprovalRepository {
 
   private static final int BATCH_GET_ITEM_LIMIT = 80;
   private static final int TRANSACT_WRITE_ITEM_LIMIT = 80;
+  public static final String ENV_APPROVAL_BATCH_GET_TIMEOUT_SECONDS =
+      "APPROVAL_BATCH_GET_TIMEOUT_SECONDS";
+  public static final Duration DEFAULT_BATCH_GET_TIMEOUT = Duration.ofSeconds(10);
+  private static final int MAX_CONCURRENT_BATCH_GETS = 4;
+  private static final Duration UNPROCESSED_KEYS_BASE_DELAY = Duration.ofMillis(50);
+  private static final Duration UNPROCESSED_KEYS_MAX_DELAY = Duration.ofSeconds(1);
+  private static final int MAX_BACKOFF_SHIFT = 10;
+  private static final String CONDITIONAL_CHECK_FAILED = "ConditionalCheckFailed";
   private final DynamoDbTable<EnhancedDocument> table;
   private final DynamoDbEnhancedClient client;
+  private final Duration batchGetTimeout;
 
   public DynamoDbApprovalRepository(DynamoDbClient client, Environment environment) {
     this.client = DynamoDbEnhancedClient.builder().dynamoDbClient(client).build();
     this.table = this.client.table(environment.readEnv(TABLE), documentTableSchema());
+    this.batchGetTimeout =
+        environment
+            .readEnvOpt(ENV_APPROVAL_BATCH_GET_TIMEOUT_SECONDS)
+            .map(Long::parseLong)
+            .map(Duration::ofSeconds)
+            .orElse(DEFAULT_BATCH_GET_TIMEOUT);
   }
 
   @JacocoGenerated
@@ -79,22 +104,36 @@ public class DynamoDbApprovalRepository implements ApprovalRepository {
 
   @Override
   public void updateApprovalIdentifiers(Approval approval) {
-    var databaseVersion =
-        findByApprovalIdentifier(approval.identifier())
+    var currentApproval =
+        findVersionedByApprovalIdentifier(approval.identifier())
             .orElseThrow(
                 () ->
                     new IllegalStateException(
                         "Approval not found: %s".formatted(approval.identifier())));
+    updateApprovalIdentifiers(currentApproval, approval);
+  }
+
+  @Override
+  public void updateApprovalIdentifiers(VersionedApproval currentApproval, Approval approval) {
+    var databaseVersion = currentApproval.approval();
     var operations = new ArrayList<Operation>();
     operations.addAll(getOperations(databaseVersion, approval, DELETE));
     operations.addAll(getOperations(approval, databaseVersion, CREATE));
-    updateIdentifiersForApproval(approval, operations);
+    updateIdentifiersForApproval(approval, currentApproval.version(), operations);
   }
 
   @Override
   public Optional<Approval> findByApprovalIdentifier(UUID approvalIdentifier) {
+    return findVersionedByApprovalIdentifier(approvalIdentifier).map(VersionedApproval::approval);
+  }
+
+  @Override
+  public Optional<VersionedApproval> findVersionedByApprovalIdentifier(UUID approvalIdentifier) {
     var entities = fetchEntitiesByApprovalIdentifier(toDatabaseIdentifier(approvalIdentifier));
-    return entities.isEmpty() ? Optional.empty() : Optional.of(constructApproval(entities));
+    return entities.isEmpty()
+        ? Optional.empty()
+        : Optional.of(
+            new VersionedApproval(constructApproval(entities), getApproval(entities).version()));
   }
 
   @Override
@@ -117,8 +156,12 @@ public class DynamoDbApprovalRepository implements ApprovalRepository {
   public Optional<Approval> findByIdentifier(NamedIdentifier namedIdentifier) {
     var primaryKey = IdentifierDao.fromIdentifier(namedIdentifier).getPrimaryKey();
     var item = table.getItem(primaryKey);
-    var approvalDatabaseIdentifier = item.getString(PK1);
-    var entities = fetchEntitiesByApprovalIdentifier(approvalDatabaseIdentifier);
+    if (isNull(item)) {
+      return Optional.empty();
+    }
+    // Identifier items only hold keys, so this takes two reads: the identifier item, then the
+    // approval's item collection on GSI1. A missing identifier item ends the lookup after the first.
+    var entities = fetchEntitiesByApprovalIdentifier(item.getString(PK1));
     return entities.isEmpty() ? Optional.empty() : Optional.of(constructApproval(entities));
   }
 
@@ -134,10 +177,8 @@ public class DynamoDbApprovalRepository implements ApprovalRepository {
             .map(IdentifierDao::getPrimaryKey)
             .toList();
 
-    return splitToChunks(keys).stream()
-        .flatMap(keyBatch -> fetchIdentifiersBatch(keyBatch).stream())
-        .distinct()
-        .toList();
+    var deadline = System.nanoTime() + batchGetTimeout.toNanos();
+    return fetchIdentifierChunks(splitToChunks(keys), deadline).stream().distinct().toList();
   }
 
   private static <T> List<List<T>> splitToChunks(List<T> list) {
@@ -201,6 +242,42 @@ public class DynamoDbApprovalRepository implements ApprovalRepository {
         .build();
   }
 
+  private static Expression ownedByApprovalCondition(ApprovalDao approvalDao) {
+    return Expression.builder()
+        .expression("#pk1 = :approval")
+        .expressionNames(Map.of("#pk1", PK1))
+        .expressionValues(
+            Map.of(":approval", AttributeValue.fromS(approvalDao.getDatabaseIdentifier())))
+        .build();
+  }
+
+  private static Expression versionCondition(Long version) {
+    if (isNull(version)) {
+      return Expression.builder()
+          .expression("attribute_exists(#pk) AND attribute_not_exists(#version)")
+          .expressionNames(Map.of("#pk", PK0, "#version", VERSION))
+          .build();
+    }
+    return Expression.builder()
+        .expression("#version = :version")
+        .expressionNames(Map.of("#version", VERSION))
+        .expressionValues(Map.of(":version", AttributeValue.fromN(version.toString())))
+        .build();
+  }
+
+  // A failed condition on any item means the approval or one of its identifiers has changed
+  public static boolean isConditionalCheckFailure(TransactionCanceledException exception) {
+    return exception.hasCancellationReasons()
+        && exception.cancellationReasons().stream()
+            .anyMatch(reason -> CONDITIONAL_CHECK_FAILED.equals(reason.code()));
+  }
+
+  // The approval item is always first in the transaction and carries the version condition
+  private static boolean isApprovalVersionConflict(TransactionCanceledException exception) {
+    return exception.hasCancellationReasons()
+        && CONDITIONAL_CHECK_FAILED.equals(exception.cancellationReasons().getFirst().code());
+  }
+
   private static List<Operation> getOperations(
       Approval approval, Approval existingApproval, DatabaseOperation operation) {
     return approval.namedIdentifiers().stream()
@@ -209,20 +286,91 @@ public class DynamoDbApprovalRepository implements ApprovalRepository {
         .toList();
   }
 
-  private List<NamedIdentifierQueryObject> fetchIdentifiersBatch(List<Key> keys) {
-    var readBatchBuilder = ReadBatch.builder(EnhancedDocument.class).mappedTableResource(table);
+  private static List<Operation> nextBatch(Iterator<Operation> iterator) {
+    var batch = new ArrayList<Operation>();
+    while (batch.size() < TRANSACT_WRITE_ITEM_LIMIT && iterator.hasNext()) {
+      batch.add(iterator.next());
+    }
+    return batch;
+  }
 
-    keys.forEach(readBatchBuilder::addGetItem);
+  private static void waitBeforeRetry(int attempt, long deadline, int unprocessedKeys) {
+    var exponentialDelay =
+        UNPROCESSED_KEYS_BASE_DELAY.toMillis() << Math.min(attempt - 1, MAX_BACKOFF_SHIFT);
+    var maxDelay = Math.min(UNPROCESSED_KEYS_MAX_DELAY.toMillis(), exponentialDelay);
+    var delay = Duration.ofMillis(ThreadLocalRandom.current().nextLong(maxDelay + 1));
+    if (System.nanoTime() + delay.toNanos() > deadline) {
+      throw new IllegalStateException(
+          "Could not fetch %s unprocessed identifiers before timeout".formatted(unprocessedKeys));
+    }
+    try {
+      Thread.sleep(delay);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while fetching identifiers", e);
+    }
+  }
 
-    var batchRequest =
-        BatchGetItemEnhancedRequest.builder().addReadBatch(readBatchBuilder.build()).build();
+  private List<NamedIdentifierQueryObject> fetchIdentifierChunks(
+      List<List<Key>> chunks, long deadline) {
+    if (chunks.size() == 1) {
+      return fetchIdentifiersBatch(chunks.getFirst(), deadline);
+    }
+    var permits = new Semaphore(MAX_CONCURRENT_BATCH_GETS);
+    var futures =
+        chunks.stream()
+            .map(
+                chunk ->
+                    CompletableFuture.supplyAsync(
+                        () -> fetchIdentifiersBatch(permits, chunk, deadline),
+                        AsyncApprovalRepository.VIRTUAL_THREADS))
+            .toList();
+    return futures.stream().map(AsyncApprovalRepository::join).flatMap(List::stream).toList();
+  }
 
-    var batchResults = client.batchGetItem(batchRequest);
+  // Virtual threads are not pooled, so the permits limit how many batch gets run at once
+  private List<NamedIdentifierQueryObject> fetchIdentifiersBatch(
+      Semaphore permits, List<Key> keys, long deadline) {
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while fetching identifiers", e);
+    }
+    try {
+      return fetchIdentifiersBatch(keys, deadline);
+    } finally {
+      permits.release();
+    }
+  }
 
-    return batchResults.resultsForTable(table).stream()
-        .map(EnhancedDocument::toJson)
-        .map(NamedIdentifierQueryObject::fromJson)
-        .toList();
+  // DynamoDB may return part of the keys as unprocessed when throttled. Those are fetched again
+  // with backoff, since a missing identifier would hide a conflict with another approval.
+  private List<NamedIdentifierQueryObject> fetchIdentifiersBatch(List<Key> keys, long deadline) {
+    var identifiers = new ArrayList<NamedIdentifierQueryObject>();
+    var pendingKeys = keys;
+    var attempt = 0;
+    while (!pendingKeys.isEmpty()) {
+      if (attempt > 0) {
+        waitBeforeRetry(attempt, deadline, pendingKeys.size());
+      }
+      var page = client.batchGetItem(toBatchGetRequest(pendingKeys)).iterator().next();
+      page.resultsForTable(table).stream()
+          .map(EnhancedDocument::toJson)
+          .map(NamedIdentifierQueryObject::fromJson)
+          .forEach(identifiers::add);
+      pendingKeys = page.unprocessedKeysForTable(table);
+      attempt++;
+    }
+    return identifiers;
+  }
+
+  private BatchGetItemEnhancedRequest toBatchGetRequest(List<Key> keys) {
+    var readBatchBuilder = ReadBatch.builder(EnhancedDocument.class).mappedTableResource(table);
+
+    keys.forEach(readBatchBuilder::addGetItem);
+
+    return BatchGetItemEnhancedRequest.builder().addReadBatch(readBatchBuilder.build()).build();
   }
 
   private void saveDocumentsInTransaction(List<EnhancedDocument> documents) {
@@ -241,22 +389,65 @@ public class DynamoDbApprovalRepository implements ApprovalRepository {
     client.transactWriteItems(requestBuilder.build());
   }
 
-  private void updateIdentifiersForApproval(Approval approval, List<Operation> operations) {
+  // Each transaction rewrites the approval item first, conditioned on its version, so a concurrent
+  // update of the same approval cancels the transaction instead of being overwritten.
+  private void updateIdentifiersForApproval(
+      Approval approval, Long expectedVersion, List<Operation> operations) {
+    var nextVersion = (isNull(expectedVersion) ? INITIAL_VERSION : expectedVersion) + 1;
+    var versionCondition = versionCondition(expectedVersion);
+    var appliedOperations = new ArrayList<Operation>();
     var iterator = operations.iterator();
     while (iterator.hasNext()) {
-      sendTransaction(approval, iterator);
+      var batch = nextBatch(iterator);
+      try {
+        sendTransaction(approval, nextVersion, versionCondition, batch);
+      } catch (RuntimeException exception) {
+        compensate(approval, nextVersion, appliedOperations, exception);
+        throw exception;
+      }
+      appliedOperations.addAll(batch);
+      versionCondition = versionCondition(nextVersion);
     }
   }
 
-  private void sendTransaction(Approval approval, Iterator<Operation> iterator) {
-    var count = 0;
+  // An update that needs several transactions is not atomic. When a later transaction fails, the
+  // operations committed by earlier ones are reversed, so the approval keeps its old identifiers.
+  private void compensate(
+      Approval approval,
+      long appliedVersion,
+      List<Operation> appliedOperations,
+      RuntimeException failure) {
+    var version = appliedVersion;
+    var iterator = appliedOperations.stream().map(Operation::reverse).iterator();
+    try {
+      while (iterator.hasNext()) {
+        sendTransaction(approval, version + 1, versionCondition(version), nextBatch(iterator));
+        version++;
+      }
+    } catch (RuntimeException compensationFailure) {
+      failure.addSuppressed(compensationFailure);
+    }
+  }
+
+  private void sendTransaction(
+      Approval approval, long version, Expression versionCondition, List<Operation> batch) {
     var requestBuilder = TransactWriteItemsEnhancedRequest.builder();
-    while (count < TRANSACT_WRITE_ITEM_LIMIT && iterator.hasNext()) {
-      var approvalDao = ApprovalDao.fromApproval(approval);
-      var handleDao = HandleDao.fromHandle(approval.handle());
-      var operation = iterator.next();
+    var approvalDao = ApprovalDao.fromApproval(approval);
+    var handleDao = HandleDao.fromHandle(approval.handle());
+    var approvalPutRequest =
+        TransactPutItemEnhancedRequest.builder(EnhancedDocument.class)
+            .item(ApprovalDao.fromApproval(approval, version).toEnhancedDocument(handleDao))
+            .conditionExpression(versionCondition)
+            .build();
+    requestBuilder.addPutItem(table, approvalPutRequest);
+    for (var operation : batch) {
       if (DELETE == operation.operation) {
-        requestBuilder.addDeleteItem(table, operation.entry().getPrimaryKey());
+        var deleteRequest =
+            TransactDeleteItemEnhancedRequest.builder()
+                .key(operation.entry().getPrimaryKey())
+                .conditionExpression(ownedByApprovalCondition(approvalDao))
+                .build();
+        requestBuilder.addDeleteItem(table, deleteRequest);
       } else {
         var document = operation.entry().toEnhancedDocument(approvalDao, handleDao);
         var putRequest =
@@ -266,9 +457,15 @@ public class DynamoDbApprovalRepository implements ApprovalRepository {
                 .build();
         requestBuilder.addPutItem(table, putRequest);
       }
-      count++;
     }
-    client.transactWriteItems(requestBuilder.build());
+    try {
+      client.transactWriteItems(requestBuilder.build());
+    } catch (TransactionCanceledException exception) {
+      if (isApprovalVersionConflict(exception)) {
+        throw new ApprovalVersionConflictException(approval.identifier());
+      }
+      throw exception;
+    }
   }
 
   private List<DatabaseEntry> fetchEntitiesByApprovalIdentifier(String databaseIdentifier) {
@@ -321,6 +518,10 @@ public class DynamoDbApprovalRepository implements ApprovalRepository {
 
   public record Operation(DatabaseOperation operation, IdentifierDao entry) {
 
+    public Operation reverse() {
+      return new Operation(CREATE == operation ? DELETE : CREATE, entry);
+    }
+
     public enum DatabaseOperation {
       CREATE,
       DELETE
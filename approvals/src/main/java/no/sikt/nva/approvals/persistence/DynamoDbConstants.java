@@ -20,6 +20,7 @@ public final class DynamoDbConstants {
   public static final String SK0 = "SK0";
   public static final String SK1 = "SK1";
   public static final String SK2 = "SK2";
+  public static final String VERSION = "version";
   public static final String AWS_REGION = "AWS_REGION";
 
   private DynamoDbConstants() {}
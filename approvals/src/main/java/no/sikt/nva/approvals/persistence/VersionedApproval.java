@@ -0,0 +1,6 @@
+package no.sikt.nva.approvals.persistence;
+
+import no.sikt.nva.approvals.domain.Approval;
+
+// Version is null for approvals written before versioning was introduced
+public record VersionedApproval(Approval approval, Long version) {}
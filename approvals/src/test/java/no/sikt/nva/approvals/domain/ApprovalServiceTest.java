@@ -27,13 +27,18 @@ import java.util.Optional;
 import java.util.function.Supplier;
 import no.sikt.nva.approvals.persistence.ApprovalDao;
 import no.sikt.nva.approvals.persistence.ApprovalRepository;
+import no.sikt.nva.approvals.persistence.ApprovalVersionConflictException;
+import no.sikt.nva.approvals.persistence.AsyncApprovalRepository;
 import no.sikt.nva.approvals.persistence.HandleDao;
 import no.sikt.nva.approvals.persistence.NamedIdentifierQueryObject;
+import no.sikt.nva.approvals.persistence.VersionedApproval;
 import no.sikt.nva.handle.HandleDatabase;
 import nva.commons.core.Environment;
 import nva.commons.core.paths.UriWrapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
 
 class ApprovalServiceTest {
 
@@ -53,7 +58,11 @@ class ApprovalServiceTest {
     this.connection = mock(Connection.class);
     this.approvalService =
         new ApprovalServiceImpl(
-            handleDatabase, approvalRepository, () -> connection, new Environment());
+            handleDatabase,
+            approvalRepository,
+            new AsyncApprovalRepository(approvalRepository),
+            () -> connection,
+            new Environment());
   }
 
   @Test
@@ -73,7 +82,11 @@ class ApprovalServiceTest {
         .thenThrow(new RuntimeException(new SQLException(randomString())));
     var serviceWithFailingConnection =
         new ApprovalServiceImpl(
-            handleDatabase, approvalRepository, connectionSupplier, new Environment());
+            handleDatabase,
+            approvalRepository,
+            new AsyncApprovalRepository(approvalRepository),
+            connectionSupplier,
+            new Environment());
 
     assertThrows(
         ApprovalServiceException.class,
@@ -240,10 +253,10 @@ class ApprovalServiceTest {
       throws ApprovalServiceException, ApprovalConflictException {
     var approval = new Approval(randomUUID(), randomIdentifiers(), randomUri(), randomHandle());
     var newIdentifiers = randomIdentifiers(2);
-    when(approvalRepository.findByApprovalIdentifier(approval.identifier()))
-        .thenReturn(Optional.of(approval));
+    when(approvalRepository.findVersionedByApprovalIdentifier(approval.identifier()))
+        .thenReturn(Optional.of(new VersionedApproval(approval, 0L)));
     when(approvalRepository.findIdentifiers(newIdentifiers)).thenReturn(List.of());
-    doNothing().when(approvalRepository).updateApprovalIdentifiers(any());
+    doNothing().when(approvalRepository).updateApprovalIdentifiers(any(), any());
 
     var updatedApproval =
         approvalService.updateApprovalIdentifiers(approval.identifier(), newIdentifiers);
@@ -272,8 +285,8 @@ class ApprovalServiceTest {
             ApprovalDao.toDatabaseIdentifier(randomUUID()),
             HandleDao.fromHandle(randomHandle()).getDatabaseIdentifier());
 
-    when(approvalRepository.findByApprovalIdentifier(approval.identifier()))
-        .thenReturn(Optional.of(approval));
+    when(approvalRepository.findVersionedByApprovalIdentifier(approval.identifier()))
+        .thenReturn(Optional.of(new VersionedApproval(approval, 0L)));
     when(approvalRepository.findIdentifiers(List.of(newIdentifier)))
         .thenReturn(List.of(conflictingIdentifier));
 
@@ -283,4 +296,44 @@ class ApprovalServiceTest {
             approvalService.updateApprovalIdentifiers(
                 approval.identifier(), List.of(newIdentifier)));
   }
+
+  @Test
+  void shouldThrowApprovalConflictExceptionWhenApprovalWasUpdatedConcurrently() {
+    var approval = new Approval(randomUUID(), randomIdentifiers(), randomUri(), randomHandle());
+    var currentApproval = new VersionedApproval(approval, 0L);
+    when(approvalRepository.findVersionedByApprovalIdentifier(approval.identifier()))
+        .thenReturn(Optional.of(currentApproval));
+    when(approvalRepository.findIdentifiers(any())).thenReturn(List.of());
+    doThrow(new ApprovalVersionConflictException(approval.identifier()))
+        .when(approvalRepository)
+        .updateApprovalIdentifiers(eq(currentApproval), any());
+
+    assertThrows(
+        ApprovalConflictException.class,
+        () ->
+            approvalService.updateApprovalIdentifiers(approval.identifier(), randomIdentifiers()));
+  }
+
+  @Test
+  void shouldThrowApprovalConflictExceptionWhenIdentifierConditionFailsInTransaction() {
+    var approval = new Approval(randomUUID(), randomIdentifiers(), randomUri(), randomHandle());
+    var currentApproval = new VersionedApproval(approval, 0L);
+    when(approvalRepository.findVersionedByApprovalIdentifier(approval.identifier()))
+        .thenReturn(Optional.of(currentApproval));
+    when(approvalRepository.findIdentifiers(any())).thenReturn(List.of());
+    var cancellation =
+        TransactionCanceledException.builder()
+            .cancellationReasons(
+                CancellationReason.builder().code("None").build(),
+                CancellationReason.builder().code("ConditionalCheckFailed").build())
+            .build();
+    doThrow(cancellation)
+        .when(approvalRepository)
+        .updateApprovalIdentifiers(eq(currentApproval), any());
+
+    assertThrows(
+        ApprovalConflictException.class,
+        () ->
+            approvalService.updateApprovalIdentifiers(approval.identifier(), randomIdentifiers()));
+  }
 }
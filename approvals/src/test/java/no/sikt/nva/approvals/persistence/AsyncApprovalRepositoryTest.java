@@ -0,0 +1,87 @@
+package no.sikt.nva.approvals.persistence;
+
+import static java.util.UUID.randomUUID;
+import static no.sikt.nva.approvals.persistence.AsyncApprovalRepository.join;
+import static no.sikt.nva.approvals.persistence.DynamoDbLocal.dynamoDBLocal;
+import static no.sikt.nva.approvals.utils.TestUtils.randomApproval;
+import static no.sikt.nva.approvals.utils.TestUtils.randomIdentifier;
+import static no.sikt.nva.approvals.utils.TestUtils.randomIdentifiers;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Set;
+import no.sikt.nva.approvals.domain.Approval;
+import nva.commons.core.Environment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AsyncApprovalRepositoryTest {
+
+  private static final Environment ENVIRONMENT = new Environment();
+  private static final String TABLE = ENVIRONMENT.readEnv(DynamoDbConstants.TABLE);
+  // Separate instance from the one wrapped by the async repository, used as reference
+  private ApprovalRepository approvalRepository;
+  private AsyncApprovalRepository asyncApprovalRepository;
+  private DynamoDbLocal dynamoDbLocal;
+
+  @BeforeEach
+  void setUp() {
+    dynamoDbLocal = dynamoDBLocal(TABLE);
+    approvalRepository = new DynamoDbApprovalRepository(dynamoDbLocal.client(), ENVIRONMENT);
+    asyncApprovalRepository =
+        new AsyncApprovalRepository(
+            new DynamoDbApprovalRepository(dynamoDbLocal.client(), ENVIRONMENT));
+  }
+
+  @AfterEach
+  void tearDown() {
+    dynamoDbLocal.cleanTable(TABLE);
+  }
+
+  @Test
+  void shouldFindSameApprovalAsSynchronousRepository() {
+    var identifiers = randomIdentifiers(3);
+    var approval = randomApproval(identifiers, randomUUID());
+    join(asyncApprovalRepository.save(approval));
+
+    assertEquals(
+        approvalRepository.findByApprovalIdentifier(approval.identifier()),
+        join(asyncApprovalRepository.findByApprovalIdentifier(approval.identifier())));
+    assertEquals(
+        approvalRepository.findByHandle(approval.handle()),
+        join(asyncApprovalRepository.findByHandle(approval.handle())));
+    assertEquals(
+        approvalRepository.findByIdentifier(identifiers.getFirst()),
+        join(asyncApprovalRepository.findByIdentifier(identifiers.getFirst())));
+    assertEquals(
+        approvalRepository.findIdentifiers(identifiers),
+        join(asyncApprovalRepository.findIdentifiers(identifiers)));
+  }
+
+  @Test
+  void shouldUpdateApprovalIdentifiersLikeSynchronousRepository() {
+    var approval = randomApproval(randomIdentifiers(2), randomUUID());
+    approvalRepository.save(approval);
+    var identifiers = new ArrayList<>(approval.namedIdentifiers());
+    identifiers.add(randomIdentifier());
+    var updatedApproval =
+        new Approval(approval.identifier(), identifiers, approval.source(), approval.handle());
+
+    join(asyncApprovalRepository.updateApprovalIdentifiers(updatedApproval));
+
+    var persistedApproval = approvalRepository.findByApprovalIdentifier(approval.identifier());
+    assertEquals(
+        Set.copyOf(identifiers), Set.copyOf(persistedApproval.orElseThrow().namedIdentifiers()));
+  }
+
+  @Test
+  void shouldRethrowRepositoryExceptionWhenJoined() {
+    var approval = randomApproval(randomIdentifier());
+
+    assertThrows(
+        IllegalStateException.class,
+        () -> join(asyncApprovalRepository.updateApprovalIdentifiers(approval)));
+  }
+}
@@ -0,0 +1,181 @@
+package no.sikt.nva.approvals.persistence;
+
+import static no.sikt.nva.approvals.persistence.CachingApprovalRepository.APPROVAL_CACHE_OPERATION;
+import static no.sikt.nva.approvals.utils.TestUtils.randomApproval;
+import static no.sikt.nva.approvals.utils.TestUtils.randomHandle;
+import static no.sikt.nva.approvals.utils.TestUtils.randomIdentifier;
+import static no.sikt.nva.handle.utils.StatementMetrics.CACHE_HITS_METRIC;
+import static no.sikt.nva.handle.utils.StatementMetrics.CACHE_MISSES_METRIC;
+import static no.sikt.nva.handle.utils.StatementMetrics.OPERATION_DIMENSION;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import no.sikt.nva.approvals.domain.Approval;
+import no.sikt.nva.handle.model.CacheStatistics;
+import no.sikt.nva.handle.utils.StatementMetrics;
+import no.unit.nva.commons.json.JsonUtils;
+import nva.commons.core.Environment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CachingApprovalRepositoryTest {
+
+  private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+  private static final Duration TIME_TO_LIVE =
+      CachingApprovalRepository.DEFAULT_APPROVAL_CACHE_TTL;
+  private ApprovalRepository delegate;
+  private Clock clock;
+  private CachingApprovalRepository repository;
+
+  @BeforeEach
+  void setUp() {
+    delegate = mock(ApprovalRepository.class);
+    clock = mock(Clock.class);
+    when(clock.instant()).thenReturn(NOW);
+    repository = new CachingApprovalRepository(delegate, 10, TIME_TO_LIVE, clock);
+  }
+
+  @Test
+  void shouldServeRepeatedLookupsFromCache() {
+    var approval = randomApproval(randomHandle());
+    when(delegate.findByHandle(approval.handle())).thenReturn(Optional.of(approval));
+
+    repository.findByHandle(approval.handle());
+    var cachedApproval = repository.findByHandle(approval.handle());
+
+    assertEquals(approval, cachedApproval.orElseThrow());
+    verify(delegate, times(1)).findByHandle(approval.handle());
+    assertEquals(new CacheStatistics(1, 1, 1), repository.statistics());
+    assertEquals(0.5, repository.statistics().hitRatio());
+  }
+
+  @Test
+  void shouldEmitHitsAndMissesAsMetrics() throws JsonProcessingException {
+    var lines = new ArrayList<String>();
+    var instrumentedRepository =
+        new CachingApprovalRepository(
+            delegate, 10, TIME_TO_LIVE, clock, new StatementMetrics(lines::add, clock));
+    var approval = randomApproval(randomHandle());
+    when(delegate.findByHandle(approval.handle())).thenReturn(Optional.of(approval));
+
+    instrumentedRepository.findByHandle(approval.handle());
+    instrumentedRepository.findByHandle(approval.handle());
+
+    var miss = JsonUtils.dtoObjectMapper.readTree(lines.getFirst());
+    var hit = JsonUtils.dtoObjectMapper.readTree(lines.getLast());
+    assertEquals(2, lines.size());
+    assertEquals(APPROVAL_CACHE_OPERATION, miss.get(OPERATION_DIMENSION).asText());
+    assertEquals(1, miss.get(CACHE_MISSES_METRIC).asInt());
+    assertEquals(1, hit.get(CACHE_HITS_METRIC).asInt());
+  }
+
+  @Test
+  void shouldAlwaysLookUpNamedIdentifiersInDelegate() {
+    var identifier = randomIdentifier();
+    var approval = randomApproval(identifier);
+    var otherApproval = randomApproval(identifier);
+    when(delegate.findByIdentifier(identifier))
+        .thenReturn(Optional.of(approval), Optional.of(otherApproval));
+
+    repository.findByIdentifier(identifier);
+    var movedApproval = repository.findByIdentifier(identifier);
+
+    assertEquals(otherApproval, movedApproval.orElseThrow());
+    verify(delegate, times(2)).findByIdentifier(identifier);
+  }
+
+  @Test
+  void shouldServeApprovalUpdatedInOtherContainerUntilTimeToLiveExpires() {
+    var approval = randomApproval(randomHandle());
+    var updatedApproval =
+        new Approval(
+            approval.identifier(),
+            List.of(randomIdentifier()),
+            approval.source(),
+            approval.handle());
+    when(delegate.findByHandle(approval.handle()))
+        .thenReturn(Optional.of(approval), Optional.of(updatedApproval));
+    var otherContainer = new CachingApprovalRepository(delegate, 10, TIME_TO_LIVE, clock);
+    repository.findByHandle(approval.handle());
+
+    otherContainer.updateApprovalIdentifiers(updatedApproval);
+    when(clock.instant()).thenReturn(NOW.plus(TIME_TO_LIVE).minusMillis(1));
+    var staleApproval = repository.findByHandle(approval.handle());
+    when(clock.instant()).thenReturn(NOW.plus(TIME_TO_LIVE));
+    var currentApproval = repository.findByHandle(approval.handle());
+
+    assertEquals(approval, staleApproval.orElseThrow());
+    assertEquals(updatedApproval, currentApproval.orElseThrow());
+  }
+
+  @Test
+  void shouldReloadApprovalWhenCachedEntryHasExpired() {
+    var approval = randomApproval(randomHandle());
+    when(delegate.findByHandle(approval.handle())).thenReturn(Optional.of(approval));
+
+    repository.findByHandle(approval.handle());
+    when(clock.instant()).thenReturn(NOW.plus(TIME_TO_LIVE));
+    repository.findByHandle(approval.handle());
+
+    verify(delegate, times(2)).findByHandle(approval.handle());
+  }
+
+  @Test
+  void shouldNotCacheMissingApprovals() {
+    var approval = randomApproval(randomHandle());
+    when(delegate.findByApprovalIdentifier(approval.identifier()))
+        .thenReturn(Optional.empty(), Optional.of(approval));
+
+    assertTrue(repository.findByApprovalIdentifier(approval.identifier()).isEmpty());
+    var persistedApproval = repository.findByApprovalIdentifier(approval.identifier());
+
+    assertEquals(approval, persistedApproval.orElseThrow());
+  }
+
+  @Test
+  void shouldInvalidateEveryKeyOfApprovalWhenIdentifiersAreUpdated() {
+    var identifier = randomIdentifier();
+    var approval = randomApproval(identifier);
+    var updatedApproval =
+        new Approval(
+            approval.identifier(),
+            List.of(identifier, randomIdentifier()),
+            approval.source(),
+            approval.handle());
+    when(delegate.findByApprovalIdentifier(approval.identifier()))
+        .thenReturn(Optional.of(approval), Optional.of(updatedApproval));
+    when(delegate.findByHandle(approval.handle()))
+        .thenReturn(Optional.of(approval), Optional.of(updatedApproval));
+    repository.findByApprovalIdentifier(approval.identifier());
+    repository.findByHandle(approval.handle());
+
+    repository.updateApprovalIdentifiers(updatedApproval);
+
+    assertEquals(
+        updatedApproval,
+        repository.findByApprovalIdentifier(approval.identifier()).orElseThrow());
+    assertEquals(updatedApproval, repository.findByHandle(approval.handle()).orElseThrow());
+    verify(delegate).updateApprovalIdentifiers(updatedApproval);
+  }
+
+  @Test
+  void shouldReturnDelegateWhenCacheIsNotEnabled() {
+    var environment = mock(Environment.class);
+    when(environment.readEnvOpt(CachingApprovalRepository.ENV_APPROVAL_CACHE_ENABLED))
+        .thenReturn(Optional.empty());
+
+    assertSame(delegate, CachingApprovalRepository.fromEnvironment(delegate, environment));
+  }
+}
@@ -7,6 +7,7 @@ import static no.sikt.nva.approvals.persistence.DynamoDbConstants.PK2;
 import static no.sikt.nva.approvals.persistence.DynamoDbConstants.SK0;
 import static no.sikt.nva.approvals.persistence.DynamoDbConstants.SK1;
 import static no.sikt.nva.approvals.persistence.DynamoDbConstants.SK2;
+import static no.sikt.nva.approvals.persistence.DynamoDbConstants.VERSION;
 import static no.sikt.nva.approvals.persistence.DynamoDbLocal.dynamoDBLocal;
 import static no.sikt.nva.approvals.utils.TestUtils.randomApproval;
 import static no.sikt.nva.approvals.utils.TestUtils.randomHandle;
@@ -15,22 +16,38 @@ import static no.sikt.nva.approvals.utils.TestUtils.randomIdentifiers;
 import static no.unit.nva.testutils.RandomDataGenerator.randomString;
 import static no.unit.nva.testutils.RandomDataGenerator.randomUri;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 import no.sikt.nva.approvals.domain.Approval;
+import no.sikt.nva.approvals.domain.NamedIdentifier;
 import nva.commons.core.Environment;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
 import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
 import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
 
 class DynamoDbApprovalRepositoryTest {
 
@@ -136,6 +153,67 @@ class DynamoDbApprovalRepositoryTest {
     assertEquals(approval, persistedApproval.orElseThrow());
   }
 
+  @Test
+  void shouldFindByIdentifier() {
+    var identifiers = randomIdentifiers(3);
+    var approval = randomApproval(identifiers, randomUUID());
+    approvalRepository.save(approval);
+
+    var persistedApproval = approvalRepository.findByIdentifier(identifiers.getFirst());
+
+    assertEquals(approval, persistedApproval.orElseThrow());
+  }
+
+  @Test
+  void shouldOnlyWriteChangedIdentifierItemsWhenIdentifiersAreUpdated() {
+    var client = spy(dynamoDbLocal.client());
+    var repository = new DynamoDbApprovalRepository(client, ENVIRONMENT);
+    var approval = randomApproval(randomIdentifiers(10), randomUUID());
+    repository.save(approval);
+    var identifiers = new ArrayList<>(approval.namedIdentifiers());
+    identifiers.add(randomIdentifier());
+    var updatedApproval =
+        new Approval(approval.identifier(), identifiers, approval.source(), approval.handle());
+    var requests = new ArrayList<TransactWriteItemsRequest>();
+    doAnswer(
+            invocation -> {
+              requests.add(invocation.getArgument(0));
+              return invocation.callRealMethod();
+            })
+        .when(client)
+        .transactWriteItems(any(TransactWriteItemsRequest.class));
+
+    repository.updateApprovalIdentifiers(updatedApproval);
+
+    assertEquals(1, requests.size());
+    assertEquals(2, requests.getFirst().transactItems().size());
+  }
+
+  @Test
+  void shouldReturnEmptyOptionalWhenIdentifierNotFound() {
+    var result = approvalRepository.findByIdentifier(randomIdentifier());
+
+    assertTrue(result.isEmpty());
+  }
+
+  @Test
+  void shouldFindUpdatedApprovalByUnchangedIdentifier() {
+    var unchangedIdentifier = randomIdentifier();
+    var approval = randomApproval(unchangedIdentifier);
+    approvalRepository.save(approval);
+    var updatedApproval =
+        new Approval(
+            approval.identifier(),
+            List.of(unchangedIdentifier, randomIdentifier()),
+            approval.source(),
+            approval.handle());
+    approvalRepository.updateApprovalIdentifiers(updatedApproval);
+
+    var persistedApproval = approvalRepository.findByIdentifier(unchangedIdentifier);
+
+    assertEquals(updatedApproval, persistedApproval.orElseThrow());
+  }
+
   @Test
   void shouldFindIdentifiers() {
     var identifiers = randomIdentifiers();
@@ -158,6 +236,43 @@ class DynamoDbApprovalRepositoryTest {
     assertEquals(identifiers.size(), persistedIdentifiers.size());
   }
 
+  @Test
+  void shouldRetryUnprocessedKeysWhenBatchGetIsThrottled() {
+    var client = spy(dynamoDbLocal.client());
+    var throttled = new AtomicBoolean(true);
+    doAnswer(
+            invocation ->
+                throttled.getAndSet(false)
+                    ? unprocessedResponse(invocation.getArgument(0))
+                    : invocation.callRealMethod())
+        .when(client)
+        .batchGetItem(any(BatchGetItemRequest.class));
+    var repository = new DynamoDbApprovalRepository(client, ENVIRONMENT);
+    var identifiers = randomIdentifiers(5);
+    repository.save(randomApproval(identifiers, randomUUID()));
+
+    var persistedIdentifiers = repository.findIdentifiers(identifiers);
+
+    assertEquals(identifiers.size(), persistedIdentifiers.size());
+    verify(client, times(2)).batchGetItem(any(BatchGetItemRequest.class));
+  }
+
+  @Test
+  void shouldGiveUpOnUnprocessedKeysAtConfiguredBatchGetTimeout() {
+    var client = spy(dynamoDbLocal.client());
+    doAnswer(invocation -> unprocessedResponse(invocation.getArgument(0)))
+        .when(client)
+        .batchGetItem(any(BatchGetItemRequest.class));
+    var environment = mock(Environment.class);
+    when(environment.readEnv(DynamoDbConstants.TABLE)).thenReturn(TABLE);
+    when(environment.readEnvOpt(DynamoDbApprovalRepository.ENV_APPROVAL_BATCH_GET_TIMEOUT_SECONDS))
+        .thenReturn(Optional.of("0"));
+    var repository = new DynamoDbApprovalRepository(client, environment);
+    var identifiers = randomIdentifiers(5);
+
+    assertThrows(IllegalStateException.class, () -> repository.findIdentifiers(identifiers));
+  }
+
   @Test
   void shouldUpdateApprovalIdentifiersByAddingNewIdentifiers() {
     var initialIdentifiers = randomIdentifiers(2);
@@ -234,6 +349,78 @@ class DynamoDbApprovalRepositoryTest {
     assertTrue(persistedApproval.orElseThrow().namedIdentifiers().containsAll(finalIdentifiers));
   }
 
+  @Test
+  void shouldRestoreIdentifiersWhenLaterTransactionOfUpdateFails() {
+    var initialIdentifiers = randomIdentifiers(10);
+    var approval = randomApproval(initialIdentifiers, randomUUID());
+    approvalRepository.save(approval);
+    var newIdentifiers = randomIdentifiers(100);
+    var otherApproval = randomApproval(newIdentifiers.getLast());
+    approvalRepository.save(otherApproval);
+    var updatedApproval = withIdentifiers(approval, newIdentifiers);
+
+    assertThrows(
+        TransactionCanceledException.class,
+        () -> approvalRepository.updateApprovalIdentifiers(updatedApproval));
+
+    var persistedApproval = approvalRepository.findByApprovalIdentifier(approval.identifier());
+    assertEquals(
+        Set.copyOf(initialIdentifiers),
+        Set.copyOf(persistedApproval.orElseThrow().namedIdentifiers()));
+    assertEquals(
+        otherApproval, approvalRepository.findByIdentifier(newIdentifiers.getLast()).orElseThrow());
+  }
+
+  @Test
+  void shouldIncrementApprovalVersionWhenIdentifiersAreUpdated() {
+    var approval = randomApproval(randomIdentifier());
+    approvalRepository.save(approval);
+    var currentApproval =
+        approvalRepository.findVersionedByApprovalIdentifier(approval.identifier()).orElseThrow();
+
+    approvalRepository.updateApprovalIdentifiers(
+        currentApproval, withIdentifiers(approval, List.of(randomIdentifier())));
+    var updatedApproval =
+        approvalRepository.findVersionedByApprovalIdentifier(approval.identifier()).orElseThrow();
+
+    assertEquals(ApprovalDao.INITIAL_VERSION, currentApproval.version());
+    assertEquals(ApprovalDao.INITIAL_VERSION + 1, updatedApproval.version());
+  }
+
+  @Test
+  void shouldThrowVersionConflictWhenUpdatingFromOutdatedApproval() {
+    var approval = randomApproval(randomIdentifier());
+    approvalRepository.save(approval);
+    var currentApproval =
+        approvalRepository.findVersionedByApprovalIdentifier(approval.identifier()).orElseThrow();
+    approvalRepository.updateApprovalIdentifiers(
+        currentApproval, withIdentifiers(approval, List.of(randomIdentifier())));
+
+    var concurrentUpdate = withIdentifiers(approval, List.of(randomIdentifier()));
+
+    assertThrows(
+        ApprovalVersionConflictException.class,
+        () -> approvalRepository.updateApprovalIdentifiers(currentApproval, concurrentUpdate));
+  }
+
+  @Test
+  void shouldUpdateApprovalWrittenBeforeVersioning() {
+    var approval = randomApproval(randomIdentifier());
+    approvalRepository.save(approval);
+    removeApprovalVersion(approval.identifier());
+    var currentApproval =
+        approvalRepository.findVersionedByApprovalIdentifier(approval.identifier()).orElseThrow();
+    var newIdentifier = randomIdentifier();
+
+    approvalRepository.updateApprovalIdentifiers(
+        currentApproval, withIdentifiers(approval, List.of(newIdentifier)));
+
+    assertNull(currentApproval.version());
+    assertEquals(
+        List.of(newIdentifier),
+        approvalRepository.findByIdentifier(newIdentifier).orElseThrow().namedIdentifiers());
+  }
+
   @Test
   void shouldThrowExceptionWhenUpdatingNonExistentApproval() {
     var approval = randomApproval(randomHandle());
@@ -292,4 +479,29 @@ class DynamoDbApprovalRepositoryTest {
     item.put(SK2, AttributeValue.builder().s(pk2Sk2).build());
     return item;
   }
+
+  private void removeApprovalVersion(UUID approvalId) {
+    var databaseIdentifier = ApprovalDao.toDatabaseIdentifier(approvalId);
+    var key =
+        Map.of(
+            PK0, AttributeValue.builder().s(databaseIdentifier).build(),
+            SK0, AttributeValue.builder().s(databaseIdentifier).build());
+    dynamoDbLocal
+        .client()
+        .updateItem(
+            UpdateItemRequest.builder()
+                .tableName(TABLE)
+                .key(key)
+                .updateExpression("REMOVE #version")
+                .expressionAttributeNames(Map.of("#version", VERSION))
+                .build());
+  }
+
+  private static Approval withIdentifiers(Approval approval, List<NamedIdentifier> identifiers) {
+    return new Approval(approval.identifier(), identifiers, approval.source(), approval.handle());
+  }
+
+  private static BatchGetItemResponse unprocessedResponse(BatchGetItemRequest request) {
+    return BatchGetItemResponse.builder().unprocessedKeys(request.requestItems()).build();
+  }
 }
@@ -0,0 +1,20 @@
+-- Fixed-width lookup index for reusing handles by url.
+--
+-- HandleDatabase looks up existing handles with
+--   md5(url) = md5(?) AND split_part(handle, '/', 1) = ? AND url = ?
+-- This index covers the digest and the handle prefix, so the lookup stays a
+-- single index probe regardless of url length. The expression is computed by
+-- Postgres for existing and new rows, so no backfill or change to the insert
+-- statements is needed.
+--
+-- Run outside a transaction; CONCURRENTLY does not block writes while the
+-- index is built. If the build is interrupted, drop the invalid index and run
+-- the statement again.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS handle_url_md5_prefix_idx
+    ON handle (md5(url), split_part(handle, '/', 1));
+
+ANALYZE handle;
+
+-- Once the new index is in use (check with EXPLAIN on the lookup above), a
+-- plain btree index on url is no longer needed by this service and can be
+-- dropped with DROP INDEX CONCURRENTLY.
@@ -0,0 +1,19 @@
+-- Unique index backing HANDLE_MINTING_MODE=UPSERT and generated handle suffixes.
+--
+-- In UPSERT mode, and with HANDLE_SUFFIX_STRATEGY=RANDOM or TIME_ORDERED, handles are inserted
+-- with INSERT ... ON CONFLICT DO NOTHING, which relies on this index to reject a second handle
+-- with the same name. Apply this script before switching a function to either setting.
+--
+-- The url is deliberately not unique: updating or repointing a handle to a url another handle
+-- already uses is allowed. Handles for the same url are instead deduplicated by taking a
+-- transaction-scoped advisory lock on the prefix and md5(url) before looking up and inserting.
+--
+-- Run outside a transaction. Building a unique index fails if duplicates exist, so check first:
+--
+--   SELECT handle, count(*) FROM handle GROUP BY handle HAVING count(*) > 1;
+--
+-- and resolve any rows returned before continuing. If a build is interrupted, drop the invalid
+-- index and run the statement again.
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS handle_handle_key
+    ON handle (handle);
+
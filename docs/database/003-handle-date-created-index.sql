@@ -0,0 +1,15 @@
+-- Range index for incremental handle exports.
+--
+-- The export job selects rows with
+--   date_created > ? AND date_created <= ?
+-- A full export still reads the whole table, but with this index an
+-- incremental export only touches the rows created since the previous
+-- watermark.
+--
+-- Run outside a transaction; CONCURRENTLY does not block writes while the
+-- index is built. If the build is interrupted, drop the invalid index and run
+-- the statement again.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS handle_date_created_idx
+    ON handle (date_created);
+
+ANALYZE handle;
@@ -0,0 +1,15 @@
+-- Prefix index for repointing and looking up handles by url prefix.
+--
+-- The repoint and lookup jobs select rows with
+--   url LIKE ? || '%'
+-- The database does not use the C collation, so a plain index on url can not
+-- serve a LIKE prefix match. With text_pattern_ops each chunk reads only the
+-- rows under the prefix instead of scanning the table.
+--
+-- Run outside a transaction; CONCURRENTLY does not block writes while the
+-- index is built. If the build is interrupted, drop the invalid index and run
+-- the statement again.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS handle_url_pattern_idx
+    ON handle (url text_pattern_ops);
+
+ANALYZE handle;
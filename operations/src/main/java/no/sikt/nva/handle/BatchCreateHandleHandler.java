@@ -0,0 +1,113 @@
+package no.sikt.nva.handle;
+
+import static java.util.Objects.isNull;
+import static no.sikt.nva.handle.utils.DatabaseConnectionSupplier.getConnectionSupplier;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import java.net.HttpURLConnection;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+import no.sikt.nva.handle.exceptions.CreateHandleException;
+import no.sikt.nva.handle.exceptions.MalformedRequestException;
+import no.sikt.nva.handle.model.BatchHandleRequest;
+import no.sikt.nva.handle.model.BatchHandleResponse;
+import no.sikt.nva.handle.model.HandleRequest;
+import nva.commons.apigateway.ApiGatewayHandler;
+import nva.commons.apigateway.RequestInfo;
+import nva.commons.apigateway.exceptions.ApiGatewayException;
+import nva.commons.core.Environment;
+import nva.commons.core.JacocoGenerated;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class BatchCreateHandleHandler
+    extends ApiGatewayHandler<BatchHandleRequest, BatchHandleResponse> {
+
+  public static final int MAX_BATCH_SIZE = 1000;
+  public static final String EMPTY_BATCH_ERROR = "handles can not be empty";
+  public static final String BATCH_TOO_LARGE_ERROR =
+      "handles can not contain more than " + MAX_BATCH_SIZE + " entries";
+  public static final String NULL_URI_ERROR = "uri can not be null";
+  public static final String ERROR_CREATING_HANDLES = "Error creating %s handles";
+  private static final Logger logger = LoggerFactory.getLogger(BatchCreateHandleHandler.class);
+  private final HandleDatabase handleDatabase;
+  private final Supplier<Connection> connectionSupplier;
+
+  @JacocoGenerated
+  public BatchCreateHandleHandler() {
+    this(new Environment(), getConnectionSupplier());
+  }
+
+  public BatchCreateHandleHandler(
+      Environment environment, Supplier<Connection> connectionSupplier) {
+    super(BatchHandleRequest.class, environment);
+    this.handleDatabase = new HandleDatabase(environment);
+    this.connectionSupplier = connectionSupplier;
+    if (handleDatabase.requiresUniqueHandleIndex()) {
+      verifyUniqueHandleIndex();
+    }
+  }
+
+  @Override
+  protected void validateRequest(BatchHandleRequest input, RequestInfo requestInfo, Context context)
+      throws ApiGatewayException {
+    if (isNull(input) || isNull(input.handles()) || input.handles().isEmpty()) {
+      throw new MalformedRequestException(EMPTY_BATCH_ERROR);
+    }
+    if (input.handles().size() > MAX_BATCH_SIZE) {
+      throw new MalformedRequestException(BATCH_TOO_LARGE_ERROR);
+    }
+    if (input.handles().stream().anyMatch(BatchCreateHandleHandler::isMissingUri)) {
+      throw new MalformedRequestException(NULL_URI_ERROR);
+    }
+  }
+
+  @Override
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  protected BatchHandleResponse processInput(
+      BatchHandleRequest input, RequestInfo requestInfo, Context context)
+      throws ApiGatewayException {
+    try (var connection = connectionSupplier.get()) {
+      return createHandles(input, connection);
+    } catch (Exception e) {
+      logger.error(String.format(ERROR_CREATING_HANDLES, input.handles().size()), e);
+      throw new CreateHandleException(e, HttpURLConnection.HTTP_BAD_GATEWAY);
+    }
+  }
+
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  private BatchHandleResponse createHandles(BatchHandleRequest input, Connection connection)
+      throws SQLException {
+    try {
+      logger.info("Creating handles for {} uris", input.handles().size());
+      var results = handleDatabase.createHandles(input.handles(), connection);
+      connection.commit();
+      return new BatchHandleResponse(results);
+    } catch (Exception e) {
+      connection.rollback();
+      throw e;
+    }
+  }
+
+  @Override
+  protected Integer getSuccessStatusCode(BatchHandleRequest input, BatchHandleResponse output) {
+    return HttpURLConnection.HTTP_OK;
+  }
+
+  private void verifyUniqueHandleIndex() {
+    try (var connection = connectionSupplier.get()) {
+      try {
+        handleDatabase.verifyUniqueHandleIndex(connection);
+      } finally {
+        connection.rollback();
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("Could not verify the unique index on handle", e);
+    }
+  }
+
+  private static boolean isMissingUri(HandleRequest request) {
+    return isNull(request) || isNull(request.uri());
+  }
+}
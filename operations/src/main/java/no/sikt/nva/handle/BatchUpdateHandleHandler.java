@@ -0,0 +1,118 @@
+package no.sikt.nva.handle;
+
+import static java.util.Objects.isNull;
+import static no.sikt.nva.handle.utils.DatabaseConnectionSupplier.getConnectionSupplier;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import java.net.HttpURLConnection;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import no.sikt.nva.handle.exceptions.MalformedRequestException;
+import no.sikt.nva.handle.exceptions.UpdateHandleException;
+import no.sikt.nva.handle.model.BatchHandleRequest;
+import no.sikt.nva.handle.model.BatchHandleResponse;
+import no.sikt.nva.handle.model.BatchHandleResult;
+import no.sikt.nva.handle.model.BatchHandleStatus;
+import no.sikt.nva.handle.model.HandleRequest;
+import nva.commons.apigateway.ApiGatewayHandler;
+import nva.commons.apigateway.RequestInfo;
+import nva.commons.apigateway.exceptions.ApiGatewayException;
+import nva.commons.core.Environment;
+import nva.commons.core.JacocoGenerated;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class BatchUpdateHandleHandler
+    extends ApiGatewayHandler<BatchHandleRequest, BatchHandleResponse> {
+
+  public static final int MAX_BATCH_SIZE = 10_000;
+  public static final int CHUNK_SIZE = 1000;
+  public static final String EMPTY_BATCH_ERROR = "handles can not be empty";
+  public static final String BATCH_TOO_LARGE_ERROR =
+      "handles can not contain more than " + MAX_BATCH_SIZE + " entries";
+  public static final String INCOMPLETE_HANDLE_ERROR = "uri, prefix and suffix can not be null";
+  public static final String ERROR_UPDATING_HANDLES = "Error updating %s handles";
+  private static final Logger logger = LoggerFactory.getLogger(BatchUpdateHandleHandler.class);
+  private final HandleDatabase handleDatabase;
+  private final Supplier<Connection> connectionSupplier;
+
+  @JacocoGenerated
+  public BatchUpdateHandleHandler() {
+    this(new Environment(), getConnectionSupplier());
+  }
+
+  public BatchUpdateHandleHandler(
+      Environment environment, Supplier<Connection> connectionSupplier) {
+    super(BatchHandleRequest.class, environment);
+    this.handleDatabase = new HandleDatabase(environment);
+    this.connectionSupplier = connectionSupplier;
+  }
+
+  @Override
+  protected void validateRequest(BatchHandleRequest input, RequestInfo requestInfo, Context context)
+      throws ApiGatewayException {
+    if (isNull(input) || isNull(input.handles()) || input.handles().isEmpty()) {
+      throw new MalformedRequestException(EMPTY_BATCH_ERROR);
+    }
+    if (input.handles().size() > MAX_BATCH_SIZE) {
+      throw new MalformedRequestException(BATCH_TOO_LARGE_ERROR);
+    }
+    if (input.handles().stream().anyMatch(BatchUpdateHandleHandler::isIncomplete)) {
+      throw new MalformedRequestException(INCOMPLETE_HANDLE_ERROR);
+    }
+  }
+
+  @Override
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  protected BatchHandleResponse processInput(
+      BatchHandleRequest input, RequestInfo requestInfo, Context context)
+      throws ApiGatewayException {
+    try (var connection = connectionSupplier.get()) {
+      logger.info("Updating {} handles", input.handles().size());
+      var results = new ArrayList<BatchHandleResult>(input.handles().size());
+      for (var from = 0; from < input.handles().size(); from += CHUNK_SIZE) {
+        var chunk =
+            input.handles().subList(from, Math.min(from + CHUNK_SIZE, input.handles().size()));
+        results.addAll(updateHandles(chunk, connection));
+      }
+      return new BatchHandleResponse(results);
+    } catch (Exception e) {
+      var message = String.format(ERROR_UPDATING_HANDLES, input.handles().size());
+      logger.error(message, e);
+      throw new UpdateHandleException(message);
+    }
+  }
+
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  private List<BatchHandleResult> updateHandles(List<HandleRequest> chunk, Connection connection)
+      throws SQLException {
+    try {
+      var results = handleDatabase.updateHandles(chunk, connection);
+      connection.commit();
+      return results;
+    } catch (Exception e) {
+      logger.error(String.format(ERROR_UPDATING_HANDLES, chunk.size()), e);
+      connection.rollback();
+      return chunk.stream().map(request -> toFailedResult(request, e)).toList();
+    }
+  }
+
+  @Override
+  protected Integer getSuccessStatusCode(BatchHandleRequest input, BatchHandleResponse output) {
+    return HttpURLConnection.HTTP_OK;
+  }
+
+  private static BatchHandleResult toFailedResult(HandleRequest request, Exception e) {
+    return new BatchHandleResult(request.uri(), null, BatchHandleStatus.FAILED, e.getMessage());
+  }
+
+  private static boolean isIncomplete(HandleRequest request) {
+    return isNull(request)
+        || isNull(request.uri())
+        || isNull(request.prefix())
+        || isNull(request.suffix());
+  }
+}
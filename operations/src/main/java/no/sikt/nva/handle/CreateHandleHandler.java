@@ -4,18 +4,21 @@ import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 import static no.sikt.nva.handle.HandleDatabase.ERROR_CREATING_HANDLE_FOR_URI;
 import static no.sikt.nva.handle.utils.DatabaseConnectionSupplier.getConnectionSupplier;
+import static no.sikt.nva.handle.utils.DatabaseConnectionSupplier.getReplicaConnectionSupplier;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Optional;
 import java.util.function.Supplier;
 import no.sikt.nva.handle.exceptions.CreateHandleException;
 import no.sikt.nva.handle.exceptions.HandleAlreadyExistException;
 import no.sikt.nva.handle.exceptions.MalformedRequestException;
 import no.sikt.nva.handle.model.HandleRequest;
 import no.sikt.nva.handle.model.HandleResponse;
+import no.sikt.nva.handle.utils.TransactionRetryPolicy;
 import nva.commons.apigateway.ApiGatewayHandler;
 import nva.commons.apigateway.RequestInfo;
 import nva.commons.apigateway.exceptions.ApiGatewayException;
@@ -27,19 +30,34 @@ import org.slf4j.LoggerFactory;
 public class CreateHandleHandler extends ApiGatewayHandler<HandleRequest, HandleResponse> {
 
   private static final String NULL_URI_ERROR = "uri can not be null";
+  private static final String CREATE_HANDLE_TRANSACTION = "CreateHandle";
   private static final Logger logger = LoggerFactory.getLogger(CreateHandleHandler.class);
   private final HandleDatabase handleDatabase;
   private final Supplier<Connection> connectionSupplier;
+  private final Supplier<Connection> replicaConnectionSupplier;
+  private final TransactionRetryPolicy retryPolicy;
 
   @JacocoGenerated
   public CreateHandleHandler() {
-    this(new Environment(), getConnectionSupplier());
+    this(new Environment(), getConnectionSupplier(), getReplicaConnectionSupplier().orElse(null));
   }
 
   public CreateHandleHandler(Environment environment, Supplier<Connection> connectionSupplier) {
+    this(environment, connectionSupplier, null);
+  }
+
+  public CreateHandleHandler(
+      Environment environment,
+      Supplier<Connection> connectionSupplier,
+      Supplier<Connection> replicaConnectionSupplier) {
     super(HandleRequest.class, environment);
     this.handleDatabase = new HandleDatabase(environment);
     this.connectionSupplier = connectionSupplier;
+    this.replicaConnectionSupplier = replicaConnectionSupplier;
+    this.retryPolicy = new TransactionRetryPolicy(CREATE_HANDLE_TRANSACTION, environment);
+    if (handleDatabase.requiresUniqueHandleIndex()) {
+      verifyUniqueHandleIndex();
+    }
   }
 
   @Override
@@ -53,8 +71,16 @@ public class CreateHandleHandler extends ApiGatewayHandler<HandleRequest, Handle
   @SuppressWarnings("PMD.AvoidCatchingGenericException")
   protected HandleResponse processInput(
       HandleRequest input, RequestInfo requestInfo, Context context) throws ApiGatewayException {
-    try (var connection = connectionSupplier.get()) {
-      return createHandle(input, connection);
+    // Without a separate replica the lookup would only add a round trip to the primary, where the
+    // write transaction checks for a reusable handle anyway.
+    if (!hasExplicitHandle(input) && nonNull(replicaConnectionSupplier)) {
+      var reusableHandle = findReusableHandle(input.uri());
+      if (reusableHandle.isPresent()) {
+        return new HandleResponse(reusableHandle.get());
+      }
+    }
+    try {
+      return retryPolicy.execute(() -> createHandle(input), context);
     } catch (HandleAlreadyExistException e) {
       throw new CreateHandleException(e, HttpURLConnection.HTTP_CONFLICT);
     } catch (Exception e) {
@@ -65,13 +91,19 @@ public class CreateHandleHandler extends ApiGatewayHandler<HandleRequest, Handle
     }
   }
 
+  private HandleResponse createHandle(HandleRequest input) throws SQLException {
+    try (var connection = connectionSupplier.get()) {
+      return createHandle(input, connection);
+    }
+  }
+
   @SuppressWarnings("PMD.AvoidCatchingGenericException")
   private HandleResponse createHandle(HandleRequest input, Connection connection)
       throws SQLException {
     try {
       logger.info("Creating handle for uri: {}", input.uri());
       URI handle;
-      if (nonNull(input.prefix()) && nonNull(input.suffix())) {
+      if (hasExplicitHandle(input)) {
         handle =
             handleDatabase.createHandle(input.prefix(), input.suffix(), input.uri(), connection);
       } else {
@@ -80,11 +112,38 @@ public class CreateHandleHandler extends ApiGatewayHandler<HandleRequest, Handle
       connection.commit();
       return new HandleResponse(handle);
     } catch (Exception e) {
+      handleDatabase.invalidateCachedHandles(input.uri());
       connection.rollback();
       throw e;
     }
   }
 
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  private Optional<URI> findReusableHandle(URI uri) {
+    try (var connection = replicaConnectionSupplier.get()) {
+      return handleDatabase.findReusableHandle(uri, connection);
+    } catch (Exception e) {
+      logger.warn("Could not look up reusable handle for uri {}, using primary", uri, e);
+      return Optional.empty();
+    }
+  }
+
+  private void verifyUniqueHandleIndex() {
+    try (var connection = connectionSupplier.get()) {
+      try {
+        handleDatabase.verifyUniqueHandleIndex(connection);
+      } finally {
+        connection.rollback();
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("Could not verify the unique index on handle", e);
+    }
+  }
+
+  private static boolean hasExplicitHandle(HandleRequest input) {
+    return nonNull(input.prefix()) && nonNull(input.suffix());
+  }
+
   private static String getNestedExceptionMessage(String message, Exception e) {
     return isNull(e.getMessage()) ? message : e.getMessage();
   }
@@ -0,0 +1,25 @@
+package no.sikt.nva.handle;
+
+import java.util.random.RandomGenerator;
+
+final class CrockfordBase32 {
+
+  private static final String ALPHABET = "0123456789abcdefghjkmnpqrstvwxyz";
+  private static final int BITS_PER_CHARACTER = 5;
+  private static final int CHARACTER_MASK = 0x1f;
+
+  private CrockfordBase32() {}
+
+  static void appendEncoded(StringBuilder builder, long value, int characters) {
+    for (var index = characters - 1; index >= 0; index--) {
+      var character = (int) (value >>> (index * BITS_PER_CHARACTER)) & CHARACTER_MASK;
+      builder.append(ALPHABET.charAt(character));
+    }
+  }
+
+  static void appendRandom(StringBuilder builder, RandomGenerator random, int characters) {
+    for (var index = 0; index < characters; index++) {
+      builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package no.sikt.nva.handle;
+
+import static java.util.Objects.nonNull;
+import static no.sikt.nva.handle.utils.DatabaseConnectionSupplier.getConnectionSupplier;
+import static no.unit.nva.commons.json.JsonUtils.dtoObjectMapper;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+import no.sikt.nva.handle.exceptions.ExportHandlesException;
+import no.sikt.nva.handle.export.HandleExportFormat;
+import no.sikt.nva.handle.export.HandleExportResult;
+import no.sikt.nva.handle.export.HandleExporter;
+import no.sikt.nva.handle.model.HandleExportRequest;
+import no.sikt.nva.handle.model.HandleExportResponse;
+import nva.commons.core.Environment;
+import nva.commons.core.JacocoGenerated;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+public class ExportHandlesHandler implements RequestStreamHandler {
+
+  public static final String ENV_HANDLE_EXPORT_BUCKET = "HANDLE_EXPORT_BUCKET";
+  public static final String ENV_HANDLE_EXPORT_FETCH_SIZE = "HANDLE_EXPORT_FETCH_SIZE";
+  public static final int DEFAULT_FETCH_SIZE = 10_000;
+  public static final String ENV_HANDLE_EXPORT_SAFETY_LAG_SECONDS =
+      "HANDLE_EXPORT_SAFETY_LAG_SECONDS";
+  public static final Duration DEFAULT_SAFETY_LAG = Duration.ofMinutes(1);
+  public static final String ENV_HANDLE_EXPORT_OVERLAP_SECONDS = "HANDLE_EXPORT_OVERLAP_SECONDS";
+  public static final Duration DEFAULT_OVERLAP = Duration.ofMinutes(15);
+  public static final String EXPORT_KEY = "handles/handles-%s-%s.%s.gz";
+  public static final String ERROR_EXPORTING_HANDLES = "Error exporting handles created after %s";
+  private static final String GZIP_CONTENT_ENCODING = "gzip";
+  private static final String S3_URI = "s3://%s/%s";
+  private static final Logger logger = LoggerFactory.getLogger(ExportHandlesHandler.class);
+  private final Supplier<Connection> connectionSupplier;
+  private final S3Client s3Client;
+  private final HandleExporter handleExporter;
+  private final Duration overlap;
+  private final String bucket;
+
+  @JacocoGenerated
+  public ExportHandlesHandler() {
+    this(new Environment(), getConnectionSupplier(), S3Client.create());
+  }
+
+  public ExportHandlesHandler(
+      Environment environment, Supplier<Connection> connectionSupplier, S3Client s3Client) {
+    this.connectionSupplier = connectionSupplier;
+    this.s3Client = s3Client;
+    this.bucket = environment.readEnv(ENV_HANDLE_EXPORT_BUCKET);
+    this.handleExporter =
+        new HandleExporter(
+            environment
+                .readEnvOpt(ENV_HANDLE_EXPORT_FETCH_SIZE)
+                .map(Integer::parseInt)
+                .orElse(DEFAULT_FETCH_SIZE),
+            readDuration(environment, ENV_HANDLE_EXPORT_SAFETY_LAG_SECONDS, DEFAULT_SAFETY_LAG));
+    this.overlap = readDuration(environment, ENV_HANDLE_EXPORT_OVERLAP_SECONDS, DEFAULT_OVERLAP);
+  }
+
+  @Override
+  public void handleRequest(InputStream input, OutputStream output, Context context)
+      throws IOException {
+    var request = dtoObjectMapper.readValue(input, HandleExportRequest.class);
+    var format = nonNull(request.format()) ? request.format() : HandleExportFormat.NDJSON;
+    // Rows committed late with an earlier date_created fall just before the previous watermark, so
+    // each incremental window starts some time before it. Rows in the overlap are exported again.
+    var createdAfter =
+        nonNull(request.createdAfter()) ? request.createdAfter().minus(overlap) : Instant.EPOCH;
+    var file = Files.createTempFile("handles-", "." + format.getFileExtension() + ".gz");
+    try {
+      var result = exportToFile(format, createdAfter, file);
+      var watermark = result.watermark();
+      var key = String.format(EXPORT_KEY, createdAfter, watermark, format.getFileExtension());
+      upload(file, key);
+      var location = URI.create(String.format(S3_URI, bucket, key));
+      logger.info(
+          "Exported {} handles created after {} to {}", result.rows(), createdAfter, location);
+      dtoObjectMapper.writeValue(
+          output,
+          new HandleExportResponse(location, format, createdAfter, watermark, result.rows()));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  private HandleExportResult exportToFile(
+      HandleExportFormat format, Instant createdAfter, Path file) throws IOException {
+    try (var connection = connectionSupplier.get();
+        var writer = format.newWriter(newGzipWriter(file))) {
+      return handleExporter.export(createdAfter, connection, writer);
+    } catch (SQLException e) {
+      throw new ExportHandlesException(String.format(ERROR_EXPORTING_HANDLES, createdAfter), e);
+    }
+  }
+
+  private void upload(Path file, String key) {
+    s3Client.putObject(
+        PutObjectRequest.builder()
+            .bucket(bucket)
+            .key(key)
+            .contentEncoding(GZIP_CONTENT_ENCODING)
+            .build(),
+        RequestBody.fromFile(file));
+  }
+
+  private static Duration readDuration(
+      Environment environment, String variableName, Duration defaultDuration) {
+    return environment
+        .readEnvOpt(variableName)
+        .map(Long::parseLong)
+        .map(Duration::ofSeconds)
+        .orElse(defaultDuration);
+  }
+
+  private static BufferedWriter newGzipWriter(Path file) throws IOException {
+    return new BufferedWriter(
+        new OutputStreamWriter(
+            new GZIPOutputStream(Files.newOutputStream(file)), StandardCharsets.UTF_8));
+  }
+}
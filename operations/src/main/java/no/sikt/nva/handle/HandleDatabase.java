@@ -1,14 +1,37 @@
 package no.sikt.nva.handle;
 
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.stream.Collectors.toCollection;
 
 import java.net.URI;
+import java.security.SecureRandom;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.IntFunction;
 import no.sikt.nva.handle.exceptions.HandleAlreadyExistException;
+import no.sikt.nva.handle.model.BatchHandleResult;
+import no.sikt.nva.handle.model.BatchHandleStatus;
+import no.sikt.nva.handle.model.CacheStatistics;
+import no.sikt.nva.handle.model.HandleLookupResponse;
+import no.sikt.nva.handle.model.HandleRequest;
+import no.sikt.nva.handle.utils.ExpiringLruCache;
+import no.sikt.nva.handle.utils.StatementMetrics;
 import nva.commons.core.Environment;
 import nva.commons.core.JacocoGenerated;
 import nva.commons.core.paths.UriWrapper;
@@ -23,9 +46,86 @@ public class HandleDatabase {
       "INSERT INTO handle(date_created) VALUES ( current_timestamp ) " + "RETURNING handle_id";
   public static final String SET_HANDLE_AND_URI_BY_ID_SQL =
       "UPDATE handle SET handle =  ?, url = ? WHERE handle_id = ?";
+  public static final String MINT_HANDLE_SQL =
+      "INSERT INTO handle(handle_id, handle, url, date_created) "
+          + "SELECT next_id.id, ? || '/' || next_id.id, ?, current_timestamp "
+          + "FROM (SELECT nextval(pg_get_serial_sequence('handle', 'handle_id')) AS id) AS next_id "
+          + "RETURNING handle_id";
+  public static final String INSERT_HANDLE_SQL =
+      "INSERT INTO handle(handle, url, date_created) VALUES (?, ?, current_timestamp)";
+  public static final String LOCK_URL_SQL =
+      "SELECT pg_advisory_xact_lock(hashtextextended(? || '/' || md5(?), 0))";
+  public static final String LOCK_URLS_SQL =
+      "SELECT pg_advisory_xact_lock(lock_key) FROM ("
+          + "SELECT DISTINCT hashtextextended(requested.prefix || '/' || md5(requested.url), 0) "
+          + "AS lock_key FROM unnest(?::varchar[], ?::varchar[]) AS requested(prefix, url) "
+          + "ORDER BY lock_key) AS lock_keys";
+  public static final String UPSERT_MINT_HANDLE_SQL =
+      LOCK_URL_SQL
+          + "; WITH existing AS (SELECT handle FROM handle "
+          + "WHERE md5(url) = md5(?) AND split_part(handle, '/', 1) = ? AND url = ? LIMIT 1), "
+          + "minted AS (INSERT INTO handle(handle_id, handle, url, date_created) "
+          + "SELECT next_id.id, ? || '/' || next_id.id, ?, current_timestamp "
+          + "FROM (SELECT nextval(pg_get_serial_sequence('handle', 'handle_id')) AS id "
+          + "WHERE NOT EXISTS (SELECT 1 FROM existing)) AS next_id "
+          + "RETURNING handle) "
+          + "SELECT handle, true FROM minted "
+          + "UNION ALL SELECT handle, false FROM existing";
+  public static final String UPSERT_HANDLE_SQL =
+      "INSERT INTO handle(handle, url, date_created) VALUES (?, ?, current_timestamp) "
+          + "ON CONFLICT DO NOTHING RETURNING handle";
+  public static final String RESERVE_HANDLE_IDS_SQL =
+      "SELECT nextval(pg_get_serial_sequence('handle', 'handle_id')) FROM generate_series(1, ?)";
+  public static final String INSERT_GENERATED_HANDLES_SQL =
+      "INSERT INTO handle(handle, url, date_created) "
+          + "SELECT generated.handle, generated.url, current_timestamp "
+          + "FROM unnest(?::varchar[], ?::varchar[]) AS generated(handle, url) "
+          + "ON CONFLICT DO NOTHING RETURNING handle";
+  public static final String INSERT_HANDLE_WITH_ID_SQL =
+      "INSERT INTO handle(handle_id, handle, url, date_created) "
+          + "VALUES (?, ?, ?, current_timestamp)";
   public static final String SET_URI_BY_HANDLE_SQL = "UPDATE handle SET url = ? WHERE handle = ?";
-  public static final String CHECK_URL_SQL = "SELECT handle FROM handle WHERE url = ?";
+  public static final String CHECK_URL_SQL =
+      "SELECT handle FROM handle "
+          + "WHERE md5(url) = md5(?) AND split_part(handle, '/', 1) = ? AND url = ? LIMIT 1";
   public static final String CHECK_HANDLE_SQL = "SELECT handle FROM handle WHERE handle = ?";
+  public static final String CHECK_UNIQUE_HANDLE_INDEX_SQL =
+      "SELECT 1 FROM pg_index "
+          + "JOIN pg_attribute ON attrelid = indrelid AND attnum = indkey[0] "
+          + "WHERE indrelid = 'handle'::regclass AND indisunique AND indisvalid "
+          + "AND indnatts = 1 AND indexprs IS NULL AND indpred IS NULL AND attname = 'handle'";
+  public static final String MISSING_UNIQUE_HANDLE_INDEX =
+      "HANDLE_MINTING_MODE=%s with HANDLE_SUFFIX_STRATEGY=%s requires a unique index on "
+          + "handle.handle, see docs/database/002-handle-unique-constraints.sql";
+  public static final String RESOLVE_HANDLE_SQL = "SELECT url FROM handle WHERE handle = ?";
+  public static final String RESOLVE_HANDLES_SQL =
+      "SELECT handle, url FROM handle WHERE handle = ANY(?)";
+  public static final int RESOLVE_HANDLES_CHUNK_SIZE = 1000;
+  public static final String CHECK_URLS_AND_HANDLES_SQL =
+      "SELECT handle.handle, handle.url FROM handle "
+          + "JOIN unnest(?::varchar[]) AS requested(url) "
+          + "ON md5(handle.url) = md5(requested.url) AND handle.url = requested.url "
+          + "UNION SELECT handle, url FROM handle WHERE handle = ANY(?)";
+  // The second prefix excludes urls that were already repointed, which still match the first
+  // prefix when the new prefix extends the old one
+  public static final String REPOINT_HANDLES_BY_URL_PREFIX_SQL =
+      "WITH chunk AS (SELECT handle_id FROM handle "
+          + "WHERE handle_id > ? AND url LIKE ? || '%' AND (NOT ? OR url NOT LIKE ? || '%') "
+          + "ORDER BY handle_id LIMIT ? FOR UPDATE) "
+          + "UPDATE handle SET url = ? || substr(handle.url, char_length(?) + 1) "
+          + "FROM chunk WHERE handle.handle_id = chunk.handle_id "
+          + "RETURNING handle.handle_id";
+  public static final String COUNT_HANDLES_BY_URL_PREFIX_SQL =
+      "SELECT count(*) FROM handle WHERE handle_id > ? AND url LIKE ? || '%' "
+          + "AND (NOT ? OR url NOT LIKE ? || '%')";
+  public static final String FIND_HANDLES_BY_URL_SQL =
+      "SELECT handle_id, handle FROM handle "
+          + "WHERE md5(url) = md5(?) AND url = ? AND handle_id > ? "
+          + "ORDER BY handle_id LIMIT ?";
+  public static final String FIND_HANDLES_BY_URL_PREFIX_SQL =
+      "SELECT handle_id, handle FROM handle "
+          + "WHERE handle_id > ? AND url LIKE ? || '%' "
+          + "ORDER BY handle_id LIMIT ?";
   public static final String REUSED_EXISTING_HANDLE_FOR_URI =
       "Reused existing handle '%s' for URI '%s'";
   public static final String CREATED_HANDLE_FOR_URI = "Created handle '%s' for URI '%s'";
@@ -34,28 +134,262 @@ public class HandleDatabase {
   public static final String CHARACTER_SLASH = "/";
   public static final String ENV_HANDLE_PREFIX = "HANDLE_PREFIX";
   public static final String ENV_HANDLE_BASE_URI = "HANDLE_BASE_URI";
+  public static final String ENV_HANDLE_MINTING_MODE = "HANDLE_MINTING_MODE";
+  public static final String ENV_HANDLE_ID_BLOCK_SIZE = "HANDLE_ID_BLOCK_SIZE";
+  public static final String ENV_HANDLE_METRIC_PREFIXES = "HANDLE_METRIC_PREFIXES";
+  public static final int DEFAULT_HANDLE_ID_BLOCK_SIZE = 1000;
+  public static final String ENV_HANDLE_SUFFIX_STRATEGY = "HANDLE_SUFFIX_STRATEGY";
+  public static final String ENV_HANDLE_SUFFIX_LENGTH = "HANDLE_SUFFIX_LENGTH";
+  public static final int DEFAULT_RANDOM_SUFFIX_LENGTH = 10;
+  public static final int MAX_GENERATED_SUFFIX_ATTEMPTS = 5;
+  public static final String ENV_HANDLE_REUSE_CACHE_SIZE = "HANDLE_REUSE_CACHE_SIZE";
+  public static final String ENV_HANDLE_REUSE_CACHE_TTL_SECONDS =
+      "HANDLE_REUSE_CACHE_TTL_SECONDS";
+  public static final int DEFAULT_REUSE_CACHE_SIZE = 10_000;
+  public static final Duration DEFAULT_REUSE_CACHE_TTL = Duration.ofSeconds(30);
+  public static final String ENV_HANDLE_RESOLUTION_CACHE_SIZE = "HANDLE_RESOLUTION_CACHE_SIZE";
+  public static final String ENV_HANDLE_RESOLUTION_CACHE_TTL_SECONDS =
+      "HANDLE_RESOLUTION_CACHE_TTL_SECONDS";
+  public static final String ENV_HANDLE_RESOLUTION_NEGATIVE_CACHE_TTL_SECONDS =
+      "HANDLE_RESOLUTION_NEGATIVE_CACHE_TTL_SECONDS";
+  public static final int DEFAULT_RESOLUTION_CACHE_SIZE = 10_000;
+  public static final Duration DEFAULT_RESOLUTION_CACHE_TTL = Duration.ofSeconds(5);
+  public static final Duration DEFAULT_RESOLUTION_NEGATIVE_CACHE_TTL = Duration.ofSeconds(30);
   public static final int ONE_ROW = 1;
-  private static final String ALREADY_EXISTING_HANDLE_FOR_URI = "Handle already exists: ";
+  public static final String ALREADY_EXISTING_HANDLE_FOR_URI = "Handle already exists: ";
+  private static final String HANDLE_NOT_FOUND = "Handle not found: ";
+  private static final String SUFFIX_WITHOUT_PREFIX = "suffix can not be given without prefix";
+  private static final String UPDATED_HANDLE_FOR_URI = "Updated handle '%s' to URI '%s'";
+  private static final String SQL_TEXT_TYPE = "varchar";
+  private static final String ALLOCATE_HANDLE_ID_OPERATION = "AllocateHandleId";
+  private static final String CHECK_HANDLE_OPERATION = "CheckHandle";
+  private static final String CHECK_URL_OPERATION = "CheckUrl";
+  private static final String CHECK_URLS_AND_HANDLES_OPERATION = "CheckUrlsAndHandles";
+  private static final String COUNT_HANDLES_BY_URL_PREFIX_OPERATION = "CountHandlesByUrlPrefix";
+  private static final String CREATE_ID_OPERATION = "CreateId";
+  private static final String FIND_HANDLES_BY_URL_OPERATION = "FindHandlesByUrl";
+  private static final String FIND_HANDLES_BY_URL_PREFIX_OPERATION = "FindHandlesByUrlPrefix";
+  private static final String INSERT_GENERATED_HANDLE_OPERATION = "InsertGeneratedHandle";
+  private static final String INSERT_HANDLE_OPERATION = "InsertHandle";
+  private static final String INSERT_HANDLE_WITH_ID_OPERATION = "InsertHandleWithId";
+  private static final String INSERT_GENERATED_HANDLES_OPERATION = "InsertGeneratedHandles";
+  private static final String INSERT_HANDLES_OPERATION = "InsertHandles";
+  private static final String LOCK_URL_OPERATION = "LockUrl";
+  private static final String LOCK_URLS_OPERATION = "LockUrls";
+  private static final String MINT_HANDLE_OPERATION = "MintHandle";
+  private static final String REPOINT_HANDLES_BY_URL_PREFIX_OPERATION = "RepointHandlesByUrlPrefix";
+  private static final String RESERVE_HANDLE_IDS_OPERATION = "ReserveHandleIds";
+  private static final String RESOLVE_HANDLE_OPERATION = "ResolveHandle";
+  private static final String RESOLVE_HANDLES_OPERATION = "ResolveHandles";
+  private static final String SET_HANDLE_AND_URI_BY_ID_OPERATION = "SetHandleAndUriById";
+  private static final String SET_URI_BY_HANDLE_OPERATION = "SetUriByHandle";
+  private static final String UPDATE_HANDLES_OPERATION = "UpdateHandles";
+  private static final String UPSERT_HANDLE_OPERATION = "UpsertHandle";
+  private static final String UPSERT_MINT_HANDLE_OPERATION = "UpsertMintHandle";
+  private static final String RESOLUTION_CACHE_OPERATION = "HandleResolutionCache";
+  private static final String REUSE_CACHE_OPERATION = "HandleReuseCache";
 
   private final URI handleBaseUri;
   private final String defaultPrefix;
+  private final MintingMode mintingMode;
+  private final HandleIdAllocator handleIdAllocator;
+  private final SuffixStrategyType suffixStrategyType;
+  private final SuffixStrategy generatedSuffixStrategy;
+  private final ExpiringLruCache<ReuseKey, String> reuseCache;
+  private final ExpiringLruCache<String, Optional<URI>> resolutionCache;
+  private final Duration resolutionNegativeCacheTtl;
+  private final StatementMetrics statementMetrics;
 
   public HandleDatabase(Environment environment) {
+    this(environment, StatementMetrics.toStandardOutput());
+  }
+
+  public HandleDatabase(Environment environment, StatementMetrics statementMetrics) {
     handleBaseUri = URI.create(environment.readEnv(ENV_HANDLE_BASE_URI));
     defaultPrefix = environment.readEnv(ENV_HANDLE_PREFIX);
+    mintingMode =
+        environment
+            .readEnvOpt(ENV_HANDLE_MINTING_MODE)
+            .map(MintingMode::valueOf)
+            .orElse(MintingMode.SINGLE_STATEMENT);
+    handleIdAllocator =
+        new HandleIdAllocator(
+            environment
+                .readEnvOpt(ENV_HANDLE_ID_BLOCK_SIZE)
+                .map(Integer::parseInt)
+                .orElse(DEFAULT_HANDLE_ID_BLOCK_SIZE));
+    suffixStrategyType =
+        environment
+            .readEnvOpt(ENV_HANDLE_SUFFIX_STRATEGY)
+            .map(SuffixStrategyType::valueOf)
+            .orElse(SuffixStrategyType.SEQUENTIAL);
+    generatedSuffixStrategy =
+        createGeneratedSuffixStrategy(
+            suffixStrategyType,
+            environment
+                .readEnvOpt(ENV_HANDLE_SUFFIX_LENGTH)
+                .map(Integer::parseInt)
+                .orElse(DEFAULT_RANDOM_SUFFIX_LENGTH));
+    reuseCache =
+        new ExpiringLruCache<>(
+            environment
+                .readEnvOpt(ENV_HANDLE_REUSE_CACHE_SIZE)
+                .map(Integer::parseInt)
+                .orElse(DEFAULT_REUSE_CACHE_SIZE),
+            readDuration(environment, ENV_HANDLE_REUSE_CACHE_TTL_SECONDS, DEFAULT_REUSE_CACHE_TTL),
+            Clock.systemUTC());
+    resolutionCache =
+        new ExpiringLruCache<>(
+            environment
+                .readEnvOpt(ENV_HANDLE_RESOLUTION_CACHE_SIZE)
+                .map(Integer::parseInt)
+                .orElse(DEFAULT_RESOLUTION_CACHE_SIZE),
+            readDuration(
+                environment,
+                ENV_HANDLE_RESOLUTION_CACHE_TTL_SECONDS,
+                DEFAULT_RESOLUTION_CACHE_TTL),
+            Clock.systemUTC());
+    resolutionNegativeCacheTtl =
+        readDuration(
+            environment,
+            ENV_HANDLE_RESOLUTION_NEGATIVE_CACHE_TTL_SECONDS,
+            DEFAULT_RESOLUTION_NEGATIVE_CACHE_TTL);
+    this.statementMetrics =
+        statementMetrics.withKnownPrefixes(readMetricPrefixes(environment, defaultPrefix));
   }
 
   public URI createHandle(URI uri, Connection connection) throws SQLException {
-    var existingHandle = fetchExistingHandleByValue(defaultPrefix, uri, connection);
-    if (existingHandle.isPresent()) {
-      logger.info(String.format(REUSED_EXISTING_HANDLE_FOR_URI, existingHandle.get(), uri));
-      return existingHandle.get();
-    } else {
-      return createNewHandle(uri, connection);
+    return createHandle(defaultPrefix, uri, connection);
+  }
+
+  public Optional<URI> findReusableHandle(URI uri, Connection connection) throws SQLException {
+    var reuseKey = new ReuseKey(defaultPrefix, uri);
+    var reusableHandle = findCachedHandle(reuseKey);
+    if (reusableHandle.isEmpty()) {
+      reusableHandle = fetchExistingHandleByValue(defaultPrefix, uri, connection);
     }
+    reusableHandle.ifPresent(
+        handle -> logger.info(String.format(REUSED_EXISTING_HANDLE_FOR_URI, handle, uri)));
+    return reusableHandle;
   }
 
   public URI createHandle(String prefix, URI uri, Connection connection) throws SQLException {
+    var cachedHandle = findCachedHandle(new ReuseKey(prefix, uri));
+    if (cachedHandle.isPresent()) {
+      logger.info(String.format(REUSED_EXISTING_HANDLE_FOR_URI, cachedHandle.get(), uri));
+      return cachedHandle.get();
+    }
+    if (nonNull(generatedSuffixStrategy)) {
+      // Without the lock, a concurrent request for the same url could pass the lookup before
+      // either handle is committed and mint a second handle under another generated suffix.
+      lockUrl(prefix, uri, connection);
+    }
+    return MintingMode.UPSERT == mintingMode && isNull(generatedSuffixStrategy)
+        ? upsertMintedHandle(prefix, uri, connection)
+        : fetchOrCreateHandle(prefix, uri, connection);
+  }
+
+  // Only handles created by this container are cached, and a hit is trusted without reading the
+  // database. Another container may update or repoint the handle without clearing this cache, so
+  // a hit can return a handle that points elsewhere for at most HANDLE_REUSE_CACHE_TTL_SECONDS.
+  private Optional<URI> findCachedHandle(ReuseKey reuseKey) {
+    var cachedHandle = reuseCache.get(reuseKey);
+    statementMetrics.recordCacheLookups(
+        REUSE_CACHE_OPERATION,
+        reuseKey.prefix(),
+        cachedHandle.isPresent() ? 1 : 0,
+        cachedHandle.isPresent() ? 0 : 1);
+    return cachedHandle.map(this::convertShortHandleToFull);
+  }
+
+  public boolean requiresUniqueHandleIndex() {
+    return MintingMode.UPSERT == mintingMode || nonNull(generatedSuffixStrategy);
+  }
+
+  public void verifyUniqueHandleIndex(Connection connection) throws SQLException {
+    try (PreparedStatement preparedStatementCheck =
+            connection.prepareStatement(CHECK_UNIQUE_HANDLE_INDEX_SQL);
+        ResultSet indexResult = preparedStatementCheck.executeQuery()) {
+      if (!indexResult.next()) {
+        throw new IllegalStateException(
+            String.format(MISSING_UNIQUE_HANDLE_INDEX, mintingMode, suffixStrategyType));
+      }
+    }
+  }
+
+  // Updates and repoints run in other functions and only clear the resolution cache of their own
+  // container, so a resolution can lag a change by at most HANDLE_RESOLUTION_CACHE_TTL_SECONDS.
+  public Optional<URI> resolveHandle(String prefix, String suffix, Connection connection)
+      throws SQLException {
+    var handleLocalPart = convertPrefixAndSuffixToShortHandle(prefix, suffix);
+    var cachedUri = resolutionCache.get(handleLocalPart);
+    statementMetrics.recordCacheLookups(
+        RESOLUTION_CACHE_OPERATION,
+        prefix,
+        cachedUri.isPresent() ? 1 : 0,
+        cachedUri.isPresent() ? 0 : 1);
+    if (cachedUri.isPresent()) {
+      return cachedUri.get();
+    }
+    var uri = fetchUriByHandle(handleLocalPart, connection);
+    cacheResolution(handleLocalPart, uri);
+    return uri;
+  }
+
+  public Map<String, URI> resolveHandles(
+      Collection<String> handleLocalParts, Connection connection) throws SQLException {
+    var resolved = new HashMap<String, URI>();
+    var uncached = new ArrayList<String>();
+    var uniqueHandleLocalParts = new LinkedHashSet<>(handleLocalParts);
+    for (var handleLocalPart : uniqueHandleLocalParts) {
+      var cachedUri = resolutionCache.get(handleLocalPart);
+      if (cachedUri.isPresent()) {
+        cachedUri.get().ifPresent(uri -> resolved.put(handleLocalPart, uri));
+      } else {
+        uncached.add(handleLocalPart);
+      }
+    }
+    statementMetrics.recordCacheLookups(
+        RESOLUTION_CACHE_OPERATION,
+        null,
+        uniqueHandleLocalParts.size() - uncached.size(),
+        uncached.size());
+    for (var from = 0; from < uncached.size(); from += RESOLVE_HANDLES_CHUNK_SIZE) {
+      var to = Math.min(from + RESOLVE_HANDLES_CHUNK_SIZE, uncached.size());
+      var chunk = uncached.subList(from, to);
+      var found = fetchUrisByHandles(chunk, connection);
+      for (var handleLocalPart : chunk) {
+        var uri = Optional.ofNullable(found.get(handleLocalPart));
+        cacheResolution(handleLocalPart, uri);
+        uri.ifPresent(value -> resolved.put(handleLocalPart, value));
+      }
+    }
+    return resolved;
+  }
+
+  public String toHandleLocalPart(String handle) {
+    var handleBasePath = handleBaseUri.toString() + CHARACTER_SLASH;
+    return handle.startsWith(handleBasePath) ? handle.substring(handleBasePath.length()) : handle;
+  }
+
+  public URI toFullHandle(String prefix, String suffix) {
+    return convertShortHandleToFull(convertPrefixAndSuffixToShortHandle(prefix, suffix));
+  }
+
+  public CacheStatistics getResolutionCacheStatistics() {
+    return resolutionCache.statistics();
+  }
+
+  public CacheStatistics getReuseCacheStatistics() {
+    return reuseCache.statistics();
+  }
+
+  public void invalidateCachedHandles(URI uri) {
+    reuseCache.invalidateIf((key, handle) -> key.uri().equals(uri));
+  }
+
+  private URI fetchOrCreateHandle(String prefix, URI uri, Connection connection)
+      throws SQLException {
     var existingHandle = fetchExistingHandleByValue(prefix, uri, connection);
     if (existingHandle.isPresent()) {
       logger.info(String.format(REUSED_EXISTING_HANDLE_FOR_URI, existingHandle.get(), uri));
@@ -67,6 +401,9 @@ public class HandleDatabase {
 
   public URI createHandle(String prefix, String suffix, URI uri, Connection connection)
       throws SQLException {
+    if (MintingMode.UPSERT == mintingMode) {
+      return upsertHandle(prefix, suffix, uri, connection);
+    }
     var handle = convertPrefixAndSuffixToShortHandle(prefix, suffix);
     var existingHandle = fetchExistingHandleByHandle(handle, connection);
     if (existingHandle.isPresent()) {
@@ -76,19 +413,221 @@ public class HandleDatabase {
     }
   }
 
+  public List<BatchHandleResult> createHandles(List<HandleRequest> requests, Connection connection)
+      throws SQLException {
+    var items = requests.stream().map(this::toBatchItem).toList();
+    var validItems = items.stream().filter(BatchItem::isValid).toList();
+    if (requiresUniqueHandleIndex()) {
+      // Same lock as a single create, taken before the lookup so that it sees handles committed
+      // by a concurrent create of the same url
+      lockUrls(validItems, connection);
+    }
+    resolveExistingHandles(validItems, fetchExistingHandles(validItems, connection));
+    var itemsToInsert = items.stream().filter(BatchItem::isToBeInserted).toList();
+    if (nonNull(generatedSuffixStrategy)) {
+      insertGeneratedHandles(
+          itemsToInsert.stream().filter(item -> !item.hasSuffix()).toList(), connection);
+      itemsToInsert = itemsToInsert.stream().filter(BatchItem::hasSuffix).toList();
+    }
+    insertHandlesWithReservedIds(itemsToInsert, connection);
+    return items.stream().map(this::toBatchHandleResult).toList();
+  }
+
+  private void insertHandlesWithReservedIds(List<BatchItem> itemsToInsert, Connection connection)
+      throws SQLException {
+    var handleIds =
+        statementMetrics.time(
+            RESERVE_HANDLE_IDS_OPERATION,
+            null,
+            () -> reserveHandleIds(itemsToInsert.size(), connection));
+    for (var index = 0; index < itemsToInsert.size(); index++) {
+      itemsToInsert.get(index).assignHandleId(handleIds.get(index));
+    }
+    executeInsertHandles(itemsToInsert, connection);
+  }
+
+  // Locks are taken in key order, so two batches with overlapping urls can not deadlock
+  private void lockUrls(List<BatchItem> items, Connection connection) throws SQLException {
+    var itemsToLock = items.stream().filter(item -> !item.hasSuffix()).toList();
+    if (itemsToLock.isEmpty()) {
+      return;
+    }
+    var prefixes = itemsToLock.stream().map(item -> item.prefix).toArray(String[]::new);
+    var urls = itemsToLock.stream().map(item -> item.uri.toString()).toArray(String[]::new);
+    try (PreparedStatement preparedStatementLock = connection.prepareStatement(LOCK_URLS_SQL)) {
+      preparedStatementLock.setArray(1, connection.createArrayOf(SQL_TEXT_TYPE, prefixes));
+      preparedStatementLock.setArray(2, connection.createArrayOf(SQL_TEXT_TYPE, urls));
+      statementMetrics.time(LOCK_URLS_OPERATION, null, preparedStatementLock::execute);
+    }
+  }
+
+  // Generated suffixes are inserted together, and the ones that were already taken are generated
+  // again, like a single create does.
+  private void insertGeneratedHandles(List<BatchItem> items, Connection connection)
+      throws SQLException {
+    var pendingItems = items;
+    for (var attempt = 1; !pendingItems.isEmpty(); attempt++) {
+      if (attempt > MAX_GENERATED_SUFFIX_ATTEMPTS) {
+        throw new RuntimeException(
+            String.format(ERROR_CREATING_HANDLE_FOR_URI, pendingItems.getFirst().uri));
+      }
+      var generatedHandles = new HashSet<String>();
+      var attemptedItems = new ArrayList<BatchItem>();
+      var retriedItems = new ArrayList<BatchItem>();
+      for (var item : pendingItems) {
+        item.assignGeneratedSuffix(generatedSuffixStrategy.nextSuffix());
+        if (generatedHandles.add(item.handleLocalPart())) {
+          attemptedItems.add(item);
+        } else {
+          retriedItems.add(item);
+        }
+      }
+      var insertedHandles = executeInsertGeneratedHandles(attemptedItems, connection);
+      attemptedItems.stream()
+          .filter(item -> !insertedHandles.contains(item.handleLocalPart()))
+          .forEach(retriedItems::add);
+      if (!retriedItems.isEmpty()) {
+        logger.warn("{} generated handles already exist, attempt {}", retriedItems.size(), attempt);
+      }
+      pendingItems = retriedItems;
+    }
+    items.forEach(item -> toCreatedHandle(item.handleLocalPart(), item.uri));
+  }
+
+  private Set<String> executeInsertGeneratedHandles(List<BatchItem> items, Connection connection)
+      throws SQLException {
+    var handles = items.stream().map(BatchItem::handleLocalPart).toArray(String[]::new);
+    var urls = items.stream().map(item -> item.uri.toString()).toArray(String[]::new);
+    try (PreparedStatement preparedStatementInsert =
+        connection.prepareStatement(INSERT_GENERATED_HANDLES_SQL)) {
+      preparedStatementInsert.setArray(1, connection.createArrayOf(SQL_TEXT_TYPE, handles));
+      preparedStatementInsert.setArray(2, connection.createArrayOf(SQL_TEXT_TYPE, urls));
+      try (ResultSet insertResult =
+          statementMetrics.time(
+              INSERT_GENERATED_HANDLES_OPERATION, null, preparedStatementInsert::executeQuery)) {
+        var insertedHandles = new HashSet<String>();
+        while (insertResult.next()) {
+          insertedHandles.add(insertResult.getString(1));
+        }
+        return insertedHandles;
+      }
+    }
+  }
+
+  public List<BatchHandleResult> updateHandles(List<HandleRequest> requests, Connection connection)
+      throws SQLException {
+    try (PreparedStatement preparedStatementUpdate =
+        connection.prepareStatement(SET_URI_BY_HANDLE_SQL)) {
+      for (var request : requests) {
+        preparedStatementUpdate.setString(1, request.uri().toString());
+        preparedStatementUpdate.setString(
+            2, convertPrefixAndSuffixToShortHandle(request.prefix(), request.suffix()));
+        preparedStatementUpdate.addBatch();
+      }
+      var numberOfRowsPerRequest =
+          statementMetrics.time(
+              UPDATE_HANDLES_OPERATION, null, preparedStatementUpdate::executeBatch);
+      var results = new ArrayList<BatchHandleResult>(requests.size());
+      for (var index = 0; index < requests.size(); index++) {
+        results.add(toUpdatedHandleResult(requests.get(index), numberOfRowsPerRequest[index]));
+      }
+      var updatedHandles =
+          requests.stream()
+              .map(
+                  request ->
+                      convertPrefixAndSuffixToShortHandle(request.prefix(), request.suffix()))
+              .collect(toCollection(HashSet::new));
+      reuseCache.invalidateIf((key, handle) -> updatedHandles.contains(handle));
+      updatedHandles.forEach(resolutionCache::invalidate);
+      return results;
+    }
+  }
+
+  public List<Integer> repointHandlesByUrlPrefix(
+      String fromUrlPrefix, String toUrlPrefix, int afterHandleId, int limit, Connection connection)
+      throws SQLException {
+    try (PreparedStatement preparedStatementRepoint =
+        connection.prepareStatement(REPOINT_HANDLES_BY_URL_PREFIX_SQL)) {
+      preparedStatementRepoint.setInt(1, afterHandleId);
+      preparedStatementRepoint.setString(2, escapeLikePattern(fromUrlPrefix));
+      preparedStatementRepoint.setBoolean(3, toUrlPrefix.startsWith(fromUrlPrefix));
+      preparedStatementRepoint.setString(4, escapeLikePattern(toUrlPrefix));
+      preparedStatementRepoint.setInt(5, limit);
+      preparedStatementRepoint.setString(6, toUrlPrefix);
+      preparedStatementRepoint.setString(7, fromUrlPrefix);
+      try (ResultSet repointedResult =
+          statementMetrics.time(
+              REPOINT_HANDLES_BY_URL_PREFIX_OPERATION,
+              null,
+              preparedStatementRepoint::executeQuery)) {
+        var handleIds = new ArrayList<Integer>(limit);
+        while (repointedResult.next()) {
+          handleIds.add(repointedResult.getInt(1));
+        }
+        reuseCache.invalidateIf((key, handle) -> key.uri().toString().startsWith(fromUrlPrefix));
+        resolutionCache.invalidateIf((handle, uri) -> isUnderUrlPrefix(uri, fromUrlPrefix));
+        return handleIds;
+      }
+    }
+  }
+
+  public long countHandlesByUrlPrefix(
+      String fromUrlPrefix, String toUrlPrefix, int afterHandleId, Connection connection)
+      throws SQLException {
+    try (PreparedStatement preparedStatementCount =
+        connection.prepareStatement(COUNT_HANDLES_BY_URL_PREFIX_SQL)) {
+      preparedStatementCount.setInt(1, afterHandleId);
+      preparedStatementCount.setString(2, escapeLikePattern(fromUrlPrefix));
+      preparedStatementCount.setBoolean(3, toUrlPrefix.startsWith(fromUrlPrefix));
+      preparedStatementCount.setString(4, escapeLikePattern(toUrlPrefix));
+      try (ResultSet countResult =
+          statementMetrics.time(
+              COUNT_HANDLES_BY_URL_PREFIX_OPERATION, null, preparedStatementCount::executeQuery)) {
+        return countResult.next() ? countResult.getLong(1) : 0;
+      }
+    }
+  }
+
+  public HandleLookupResponse findHandlesByUrl(
+      URI uri, int afterHandleId, int limit, Connection connection) throws SQLException {
+    try (PreparedStatement preparedStatementFind =
+        connection.prepareStatement(FIND_HANDLES_BY_URL_SQL)) {
+      preparedStatementFind.setString(1, uri.toString());
+      preparedStatementFind.setString(2, uri.toString());
+      preparedStatementFind.setInt(3, afterHandleId);
+      preparedStatementFind.setInt(4, limit);
+      return toHandleLookupResponse(FIND_HANDLES_BY_URL_OPERATION, preparedStatementFind, limit);
+    }
+  }
+
+  public HandleLookupResponse findHandlesByUrlPrefix(
+      String urlPrefix, int afterHandleId, int limit, Connection connection) throws SQLException {
+    try (PreparedStatement preparedStatementFind =
+        connection.prepareStatement(FIND_HANDLES_BY_URL_PREFIX_SQL)) {
+      preparedStatementFind.setInt(1, afterHandleId);
+      preparedStatementFind.setString(2, escapeLikePattern(urlPrefix));
+      preparedStatementFind.setInt(3, limit);
+      return toHandleLookupResponse(
+          FIND_HANDLES_BY_URL_PREFIX_OPERATION, preparedStatementFind, limit);
+    }
+  }
+
   public URI updateHandle(String prefix, String suffix, URI uri, Connection connection)
       throws SQLException {
     try {
       var handleLocalPart =
           executeUpdateUriByHandle(uri, prefix + CHARACTER_SLASH + suffix, connection);
-
-      return convertShortHandleToFull(handleLocalPart);
+      var handle = convertShortHandleToFull(handleLocalPart);
+      reuseCache.invalidateIf((key, cachedHandle) -> cachedHandle.equals(handleLocalPart));
+      resolutionCache.invalidate(handleLocalPart);
+      return handle;
     } catch (SQLException e) {
       var message =
           String.format(ERROR_UPDATING_HANDLE_FOR_URI, prefix, suffix)
-              + (isNull(e.getMessage()) ? "" : ": ");
+              + (isNull(e.getMessage()) ? "" : ": " + e.getMessage());
       logger.error(message, e);
-      throw new SQLException(message);
+      // Keeps the SQL state and cause, so transient failures of the update are retried
+      throw new SQLException(message, e.getSQLState(), e);
     }
   }
 
@@ -96,27 +635,86 @@ public class HandleDatabase {
       throws SQLException {
     try (PreparedStatement preparedStatementCheckUrl = connection.prepareStatement(CHECK_URL_SQL)) {
       preparedStatementCheckUrl.setString(1, value.toString());
+      preparedStatementCheckUrl.setString(2, prefix);
+      preparedStatementCheckUrl.setString(3, value.toString());
 
-      try (ResultSet existingResult = preparedStatementCheckUrl.executeQuery()) {
-        while (existingResult.next()) {
+      try (ResultSet existingResult =
+          statementMetrics.time(
+              CHECK_URL_OPERATION, prefix, preparedStatementCheckUrl::executeQuery)) {
+        if (existingResult.next()) {
           String existingHandleString = existingResult.getString(1);
-          if (existingHandleString.startsWith(prefix)) {
-            return Optional.of(
-                UriWrapper.fromUri(handleBaseUri).addChild(existingHandleString).getUri());
-          }
+          return Optional.of(
+              UriWrapper.fromUri(handleBaseUri).addChild(existingHandleString).getUri());
         }
         return Optional.empty();
       }
     }
   }
 
+  private HandleLookupResponse toHandleLookupResponse(
+      String operation, PreparedStatement preparedStatementFind, int limit) throws SQLException {
+    try (ResultSet findResult =
+        statementMetrics.time(operation, null, preparedStatementFind::executeQuery)) {
+      var handles = new ArrayList<URI>(limit);
+      var lastHandleId = 0;
+      while (findResult.next()) {
+        lastHandleId = findResult.getInt(1);
+        handles.add(convertShortHandleToFull(findResult.getString(2)));
+      }
+      return new HandleLookupResponse(handles, handles.size() == limit ? lastHandleId : null);
+    }
+  }
+
+  private Map<String, URI> fetchUrisByHandles(List<String> handles, Connection connection)
+      throws SQLException {
+    try (PreparedStatement preparedStatementResolve =
+        connection.prepareStatement(RESOLVE_HANDLES_SQL)) {
+      preparedStatementResolve.setArray(
+          1, connection.createArrayOf(SQL_TEXT_TYPE, handles.toArray(String[]::new)));
+      try (ResultSet resolveResult =
+          statementMetrics.time(
+              RESOLVE_HANDLES_OPERATION, null, preparedStatementResolve::executeQuery)) {
+        var uris = new HashMap<String, URI>();
+        while (resolveResult.next()) {
+          uris.put(resolveResult.getString(1), URI.create(resolveResult.getString(2)));
+        }
+        return uris;
+      }
+    }
+  }
+
+  private void cacheResolution(String handleLocalPart, Optional<URI> uri) {
+    if (uri.isPresent()) {
+      resolutionCache.put(handleLocalPart, uri);
+    } else {
+      resolutionCache.put(handleLocalPart, uri, resolutionNegativeCacheTtl);
+    }
+  }
+
+  private Optional<URI> fetchUriByHandle(String handle, Connection connection)
+      throws SQLException {
+    try (PreparedStatement preparedStatementResolve =
+        connection.prepareStatement(RESOLVE_HANDLE_SQL)) {
+      preparedStatementResolve.setString(1, handle);
+      try (ResultSet resolveResult =
+          statementMetrics.time(
+              RESOLVE_HANDLE_OPERATION, toPrefix(handle), preparedStatementResolve::executeQuery)) {
+        return resolveResult.next()
+            ? Optional.of(URI.create(resolveResult.getString(1)))
+            : Optional.empty();
+      }
+    }
+  }
+
   private Optional<String> fetchExistingHandleByHandle(String handle, Connection connection)
       throws SQLException {
     try (PreparedStatement preparedStatementCheckUrl =
         connection.prepareStatement(CHECK_HANDLE_SQL)) {
       preparedStatementCheckUrl.setString(1, handle);
 
-      try (ResultSet existingResult = preparedStatementCheckUrl.executeQuery()) {
+      try (ResultSet existingResult =
+          statementMetrics.time(
+              CHECK_HANDLE_OPERATION, toPrefix(handle), preparedStatementCheckUrl::executeQuery)) {
         if (existingResult.next()) {
           return Optional.of(existingResult.getString(1));
         } else {
@@ -126,53 +724,320 @@ public class HandleDatabase {
     }
   }
 
-  private URI createNewHandle(URI uri, Connection connection) throws SQLException {
+  private BatchItem toBatchItem(HandleRequest request) {
+    if (isNull(request.prefix())) {
+      var item = new BatchItem(request.uri(), defaultPrefix, null);
+      if (nonNull(request.suffix())) {
+        item.reject();
+      }
+      return item;
+    }
+    return new BatchItem(request.uri(), request.prefix(), request.suffix());
+  }
 
-    try (PreparedStatement preparedStatementCreate = connection.prepareStatement(CREATE_ID_SQL);
-        var createResult = preparedStatementCreate.executeQuery()) {
-      if (createResult.next()) {
-        var handleId = createResult.getInt(1);
-        var localHandle = convertIdToShortHandle(handleId);
-        executeUpdateHandleById(localHandle, uri, handleId, connection);
-        URI handle = convertShortHandleToFull(localHandle);
-        logger.info(String.format(CREATED_HANDLE_FOR_URI, handle, uri));
-        return handle;
+  private List<ExistingHandle> fetchExistingHandles(List<BatchItem> items, Connection connection)
+      throws SQLException {
+    var urls =
+        items.stream().filter(item -> !item.hasSuffix()).map(item -> item.uri.toString()).toList();
+    var handles = items.stream().filter(BatchItem::hasSuffix).map(BatchItem::requestedHandle);
+    try (PreparedStatement preparedStatementCheck =
+        connection.prepareStatement(CHECK_URLS_AND_HANDLES_SQL)) {
+      preparedStatementCheck.setArray(
+          1, connection.createArrayOf(SQL_TEXT_TYPE, urls.toArray(String[]::new)));
+      preparedStatementCheck.setArray(
+          2, connection.createArrayOf(SQL_TEXT_TYPE, handles.toArray(String[]::new)));
+      try (ResultSet existingResult =
+          statementMetrics.time(
+              CHECK_URLS_AND_HANDLES_OPERATION, null, preparedStatementCheck::executeQuery)) {
+        var existingHandles = new ArrayList<ExistingHandle>();
+        while (existingResult.next()) {
+          existingHandles.add(
+              new ExistingHandle(existingResult.getString(1), existingResult.getString(2)));
+        }
+        return existingHandles;
+      }
+    }
+  }
+
+  private void resolveExistingHandles(List<BatchItem> items, List<ExistingHandle> existingHandles) {
+    var claimedHandles =
+        existingHandles.stream().map(ExistingHandle::handle).collect(toCollection(HashSet::new));
+    var itemsByPrefixAndUri = new HashMap<String, BatchItem>();
+    for (var item : items) {
+      if (item.hasSuffix()) {
+        item.resolveRequestedHandle(claimedHandles.add(item.requestedHandle()));
       } else {
-        throw new RuntimeException(String.format(ERROR_CREATING_HANDLE_FOR_URI, uri));
+        existingHandles.stream()
+            .filter(existing -> existing.isReusableFor(item.prefix, item.uri))
+            .findFirst()
+            .ifPresentOrElse(
+                existing -> item.reuse(existing.handle()),
+                () -> reuseOrMint(item, itemsByPrefixAndUri));
       }
     }
   }
 
+  private static void reuseOrMint(BatchItem item, Map<String, BatchItem> itemsByPrefixAndUri) {
+    var firstItem = itemsByPrefixAndUri.putIfAbsent(item.prefix + item.uri, item);
+    if (isNull(firstItem)) {
+      item.mint();
+    } else {
+      item.reuse(firstItem);
+    }
+  }
+
+  static List<Integer> reserveHandleIds(int count, Connection connection) throws SQLException {
+    var handleIds = new ArrayList<Integer>(count);
+    if (count == 0) {
+      return handleIds;
+    }
+    try (PreparedStatement preparedStatementReserve =
+        connection.prepareStatement(RESERVE_HANDLE_IDS_SQL)) {
+      preparedStatementReserve.setInt(1, count);
+      try (ResultSet reservedResult = preparedStatementReserve.executeQuery()) {
+        while (reservedResult.next()) {
+          handleIds.add(reservedResult.getInt(1));
+        }
+      }
+    }
+    if (handleIds.size() != count) {
+      throw new IllegalStateException(
+          String.format("Expected %s reserved handle ids, but got %s", count, handleIds.size()));
+    }
+    return handleIds;
+  }
+
+  private void executeInsertHandles(List<BatchItem> items, Connection connection)
+      throws SQLException {
+    if (items.isEmpty()) {
+      return;
+    }
+    try (PreparedStatement preparedStatementInsert =
+        connection.prepareStatement(INSERT_HANDLE_WITH_ID_SQL)) {
+      for (var item : items) {
+        preparedStatementInsert.setInt(1, item.handleId);
+        preparedStatementInsert.setString(2, item.handleLocalPart());
+        preparedStatementInsert.setString(3, item.uri.toString());
+        preparedStatementInsert.addBatch();
+      }
+      executeSingleRowBatch(INSERT_HANDLES_OPERATION, preparedStatementInsert);
+    }
+    items.forEach(item -> toCreatedHandle(item.handleLocalPart(), item.uri));
+  }
+
+  private BatchHandleResult toBatchHandleResult(BatchItem item) {
+    if (!item.isValid()) {
+      return new BatchHandleResult(
+          item.uri, null, BatchHandleStatus.BAD_REQUEST, SUFFIX_WITHOUT_PREFIX);
+    }
+    var handle = convertShortHandleToFull(item.handleLocalPart());
+    var message =
+        BatchHandleStatus.CONFLICT == item.status
+            ? ALREADY_EXISTING_HANDLE_FOR_URI + item.handleLocalPart()
+            : null;
+    return new BatchHandleResult(item.uri, handle, item.status, message);
+  }
+
+  private BatchHandleResult toUpdatedHandleResult(HandleRequest request, int numberOfRows) {
+    var handleLocalPart = convertPrefixAndSuffixToShortHandle(request.prefix(), request.suffix());
+    var handle = convertShortHandleToFull(handleLocalPart);
+    if (numberOfRows == ONE_ROW || numberOfRows == Statement.SUCCESS_NO_INFO) {
+      logger.info(String.format(UPDATED_HANDLE_FOR_URI, handleLocalPart, request.uri()));
+      return new BatchHandleResult(request.uri(), handle, BatchHandleStatus.UPDATED, null);
+    }
+    if (numberOfRows == 0) {
+      return new BatchHandleResult(
+          request.uri(), handle, BatchHandleStatus.NOT_FOUND, HANDLE_NOT_FOUND + handleLocalPart);
+    }
+    throw new IllegalStateException(
+        String.format(
+            "Expected one row to be updated, but got %s for handle \"%s\"",
+            numberOfRows, handleLocalPart));
+  }
+
   private URI createNewHandle(String prefix, URI uri, Connection connection) throws SQLException {
+    if (nonNull(generatedSuffixStrategy)) {
+      return toCreatedHandle(executeInsertGeneratedHandle(prefix, uri, connection), uri);
+    }
+    var handleLocalPart =
+        switch (mintingMode) {
+          case TWO_STEP ->
+              executeCreateIdAndSetHandle(
+                  handleId ->
+                      convertPrefixAndSuffixToShortHandle(prefix, Integer.toString(handleId)),
+                  uri,
+                  connection);
+          case PREALLOCATED -> executeInsertPreallocatedHandle(prefix, uri, connection);
+          default -> executeMintHandle(prefix, uri, connection);
+        };
+    return toCreatedHandle(handleLocalPart, uri);
+  }
 
-    try (var preparedStatementCreate = connection.prepareStatement(CREATE_ID_SQL);
-        var createResult = preparedStatementCreate.executeQuery()) {
-      if (createResult.next()) {
-        var handleId = createResult.getInt(1);
-        var suffix = Integer.toString(handleId);
-        var localHandle = convertPrefixAndSuffixToShortHandle(prefix, suffix);
-        executeUpdateHandleById(localHandle, uri, handleId, connection);
-        return convertShortHandleToFull(localHandle);
-      } else {
+  private URI createNewHandle(String prefix, String suffix, URI uri, Connection connection)
+      throws SQLException {
+    var handleLocalPart = convertPrefixAndSuffixToShortHandle(prefix, suffix);
+    if (MintingMode.TWO_STEP == mintingMode) {
+      executeCreateIdAndSetHandle(handleId -> handleLocalPart, uri, connection);
+    } else {
+      executeInsertHandle(handleLocalPart, uri, connection);
+    }
+    return toCreatedHandle(handleLocalPart, uri);
+  }
+
+  private URI upsertMintedHandle(String prefix, URI uri, Connection connection)
+      throws SQLException {
+    // The url is not unique in the handle table, so concurrent upserts of the same url are
+    // serialized on a transaction-scoped lock instead. The lock and the upsert are two statements
+    // sent in one round trip. The upsert takes its snapshot after the lock is granted, so it sees a
+    // handle committed by the transaction it waited for.
+    try (PreparedStatement preparedStatementUpsert =
+        connection.prepareStatement(UPSERT_MINT_HANDLE_SQL)) {
+      preparedStatementUpsert.setString(1, prefix);
+      preparedStatementUpsert.setString(2, uri.toString());
+      preparedStatementUpsert.setString(3, uri.toString());
+      preparedStatementUpsert.setString(4, prefix);
+      preparedStatementUpsert.setString(5, uri.toString());
+      preparedStatementUpsert.setString(6, prefix);
+      preparedStatementUpsert.setString(7, uri.toString());
+      statementMetrics.time(
+          UPSERT_MINT_HANDLE_OPERATION, prefix, preparedStatementUpsert::execute);
+      // The first result is the lock, the second the upserted or existing handle
+      if (!preparedStatementUpsert.getMoreResults()) {
         throw new RuntimeException(String.format(ERROR_CREATING_HANDLE_FOR_URI, uri));
       }
+      try (ResultSet upsertResult = preparedStatementUpsert.getResultSet()) {
+        if (upsertResult.next()) {
+          var handleLocalPart = upsertResult.getString(1);
+          return upsertResult.getBoolean(2)
+              ? toCreatedHandle(handleLocalPart, uri)
+              : toReusedHandle(handleLocalPart, uri);
+        }
+      }
     }
+    throw new RuntimeException(String.format(ERROR_CREATING_HANDLE_FOR_URI, uri));
   }
 
-  private URI createNewHandle(String prefix, String suffix, URI uri, Connection connection)
+  private void lockUrl(String prefix, URI uri, Connection connection) throws SQLException {
+    try (PreparedStatement preparedStatementLock = connection.prepareStatement(LOCK_URL_SQL)) {
+      preparedStatementLock.setString(1, prefix);
+      preparedStatementLock.setString(2, uri.toString());
+      statementMetrics.time(LOCK_URL_OPERATION, prefix, preparedStatementLock::execute);
+    }
+  }
+
+  private URI upsertHandle(String prefix, String suffix, URI uri, Connection connection)
       throws SQLException {
+    var handleLocalPart = convertPrefixAndSuffixToShortHandle(prefix, suffix);
+    try (PreparedStatement preparedStatementUpsert =
+        connection.prepareStatement(UPSERT_HANDLE_SQL)) {
+      preparedStatementUpsert.setString(1, handleLocalPart);
+      preparedStatementUpsert.setString(2, uri.toString());
+      try (ResultSet upsertResult =
+          statementMetrics.time(
+              UPSERT_HANDLE_OPERATION, prefix, preparedStatementUpsert::executeQuery)) {
+        if (upsertResult.next()) {
+          return toCreatedHandle(upsertResult.getString(1), uri);
+        }
+      }
+    }
+    // The handle is the only unique key the insert can conflict on.
+    throw new HandleAlreadyExistException(ALREADY_EXISTING_HANDLE_FOR_URI + handleLocalPart);
+  }
+
+  private URI toReusedHandle(String handleLocalPart, URI uri) {
+    URI handle = convertShortHandleToFull(handleLocalPart);
+    logger.info(String.format(REUSED_EXISTING_HANDLE_FOR_URI, handle, uri));
+    return handle;
+  }
 
+  private URI toCreatedHandle(String handleLocalPart, URI uri) {
+    resolutionCache.invalidate(handleLocalPart);
+    reuseCache.put(new ReuseKey(toPrefix(handleLocalPart), uri), handleLocalPart);
+    URI handle = convertShortHandleToFull(handleLocalPart);
+    logger.info(String.format(CREATED_HANDLE_FOR_URI, handle, uri));
+    return handle;
+  }
+
+  private String executeMintHandle(String prefix, URI uri, Connection connection)
+      throws SQLException {
+    try (PreparedStatement preparedStatementMint = connection.prepareStatement(MINT_HANDLE_SQL)) {
+      preparedStatementMint.setString(1, prefix);
+      preparedStatementMint.setString(2, uri.toString());
+      try (var mintResult =
+          statementMetrics.time(
+              MINT_HANDLE_OPERATION, prefix, preparedStatementMint::executeQuery)) {
+        if (mintResult.next()) {
+          var handleId = mintResult.getInt(1);
+          return convertPrefixAndSuffixToShortHandle(prefix, Integer.toString(handleId));
+        } else {
+          throw new RuntimeException(String.format(ERROR_CREATING_HANDLE_FOR_URI, uri));
+        }
+      }
+    }
+  }
+
+  private String executeInsertPreallocatedHandle(String prefix, URI uri, Connection connection)
+      throws SQLException {
+    var handleId =
+        statementMetrics.time(
+            ALLOCATE_HANDLE_ID_OPERATION, prefix, () -> handleIdAllocator.nextId(connection));
+    var handleLocalPart = convertPrefixAndSuffixToShortHandle(prefix, Integer.toString(handleId));
+    try (PreparedStatement preparedStatementInsert =
+        connection.prepareStatement(INSERT_HANDLE_WITH_ID_SQL)) {
+      preparedStatementInsert.setInt(1, handleId);
+      preparedStatementInsert.setString(2, handleLocalPart);
+      preparedStatementInsert.setString(3, uri.toString());
+      executeSingleRowUpdate(INSERT_HANDLE_WITH_ID_OPERATION, prefix, preparedStatementInsert);
+    }
+    return handleLocalPart;
+  }
+
+  private String executeInsertGeneratedHandle(String prefix, URI uri, Connection connection)
+      throws SQLException {
+    for (var attempt = 1; attempt <= MAX_GENERATED_SUFFIX_ATTEMPTS; attempt++) {
+      var handleLocalPart =
+          convertPrefixAndSuffixToShortHandle(prefix, generatedSuffixStrategy.nextSuffix());
+      try (PreparedStatement preparedStatementInsert =
+          connection.prepareStatement(UPSERT_HANDLE_SQL)) {
+        preparedStatementInsert.setString(1, handleLocalPart);
+        preparedStatementInsert.setString(2, uri.toString());
+        try (ResultSet insertResult =
+            statementMetrics.time(
+                INSERT_GENERATED_HANDLE_OPERATION, prefix, preparedStatementInsert::executeQuery)) {
+          if (insertResult.next()) {
+            return insertResult.getString(1);
+          }
+        }
+      }
+      // The handle is the only unique key the insert can conflict on, so the generated suffix
+      // is already taken.
+      logger.warn("Generated handle {} already exists, attempt {}", handleLocalPart, attempt);
+    }
+    throw new RuntimeException(String.format(ERROR_CREATING_HANDLE_FOR_URI, uri));
+  }
+
+  private void executeInsertHandle(String handleLocalPart, URI uri, Connection connection)
+      throws SQLException {
+    try (PreparedStatement preparedStatementInsert =
+        connection.prepareStatement(INSERT_HANDLE_SQL)) {
+      preparedStatementInsert.setString(1, handleLocalPart);
+      preparedStatementInsert.setString(2, uri.toString());
+      executeSingleRowUpdate(
+          INSERT_HANDLE_OPERATION, toPrefix(handleLocalPart), preparedStatementInsert);
+    }
+  }
+
+  private String executeCreateIdAndSetHandle(
+      IntFunction<String> toHandleLocalPart, URI uri, Connection connection) throws SQLException {
     try (PreparedStatement preparedStatementCreate = connection.prepareStatement(CREATE_ID_SQL);
-        var createResult = preparedStatementCreate.executeQuery()) {
+        var createResult =
+            statementMetrics.time(
+                CREATE_ID_OPERATION, null, preparedStatementCreate::executeQuery)) {
       if (createResult.next()) {
         var handleId = createResult.getInt(1);
-        var handleLocalPart = convertPrefixAndSuffixToShortHandle(prefix, suffix);
-
+        var handleLocalPart = toHandleLocalPart.apply(handleId);
         executeUpdateHandleById(handleLocalPart, uri, handleId, connection);
-
-        URI handle = convertShortHandleToFull(handleLocalPart);
-        logger.info(String.format(CREATED_HANDLE_FOR_URI, handle, uri));
-        return handle;
+        return handleLocalPart;
       } else {
         throw new RuntimeException(String.format(ERROR_CREATING_HANDLE_FOR_URI, uri));
       }
@@ -186,7 +1051,8 @@ public class HandleDatabase {
       preparedStatementUpdate.setString(1, localHandle);
       preparedStatementUpdate.setString(2, uri.toString());
       preparedStatementUpdate.setInt(3, handleId);
-      executeSingleRowUpdate(preparedStatementUpdate);
+      executeSingleRowUpdate(
+          SET_HANDLE_AND_URI_BY_ID_OPERATION, toPrefix(localHandle), preparedStatementUpdate);
     }
   }
 
@@ -196,13 +1062,15 @@ public class HandleDatabase {
         connection.prepareStatement(SET_URI_BY_HANDLE_SQL)) {
       preparedStatementUpdate.setString(1, uri.toString());
       preparedStatementUpdate.setString(2, handleLocalPart);
-      executeSingleRowUpdate(preparedStatementUpdate);
+      executeSingleRowUpdate(
+          SET_URI_BY_HANDLE_OPERATION, toPrefix(handleLocalPart), preparedStatementUpdate);
       return handleLocalPart;
     }
   }
 
-  private void executeSingleRowUpdate(PreparedStatement preparedStatement) throws SQLException {
-    var numberOfRows = preparedStatement.executeUpdate();
+  private void executeSingleRowUpdate(
+      String operation, String prefix, PreparedStatement preparedStatement) throws SQLException {
+    var numberOfRows = statementMetrics.time(operation, prefix, preparedStatement::executeUpdate);
     if (numberOfRows != ONE_ROW) {
       throw new IllegalStateException(
           String.format(
@@ -211,15 +1079,161 @@ public class HandleDatabase {
     }
   }
 
-  private String convertIdToShortHandle(int generatedId) {
-    return convertPrefixAndSuffixToShortHandle(defaultPrefix, Integer.toString(generatedId));
+  private void executeSingleRowBatch(String operation, PreparedStatement preparedStatement)
+      throws SQLException {
+    var numberOfRowsPerEntry =
+        statementMetrics.time(operation, null, preparedStatement::executeBatch);
+    for (var numberOfRows : numberOfRowsPerEntry) {
+      if (numberOfRows != ONE_ROW && numberOfRows != Statement.SUCCESS_NO_INFO) {
+        throw new IllegalStateException(
+            String.format(
+                "Expected one row to be updated per batch entry, but got %s for query \"%s\"",
+                numberOfRows, preparedStatement));
+      }
+    }
+  }
+
+  private static SuffixStrategy createGeneratedSuffixStrategy(
+      SuffixStrategyType suffixStrategyType, int randomSuffixLength) {
+    return switch (suffixStrategyType) {
+      case RANDOM -> new RandomSuffixStrategy(randomSuffixLength, new SecureRandom());
+      case TIME_ORDERED -> new TimeOrderedSuffixStrategy(Clock.systemUTC(), new SecureRandom());
+      case SEQUENTIAL -> null;
+    };
   }
 
-  private String convertPrefixAndSuffixToShortHandle(String prefix, String suffix) {
+  private static String toPrefix(String handleLocalPart) {
+    var separator = handleLocalPart.indexOf(CHARACTER_SLASH);
+    return separator < 0 ? null : handleLocalPart.substring(0, separator);
+  }
+
+  private static String convertPrefixAndSuffixToShortHandle(String prefix, String suffix) {
     return prefix + CHARACTER_SLASH + suffix;
   }
 
   private URI convertShortHandleToFull(String handleLocalPart) {
     return UriWrapper.fromUri(handleBaseUri).addChild(handleLocalPart).getUri();
   }
+
+  // Backslash is the default LIKE escape character in Postgres
+  static String escapeLikePattern(String value) {
+    return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+  }
+
+  private static boolean isUnderUrlPrefix(Optional<URI> uri, String urlPrefix) {
+    return uri.filter(value -> value.toString().startsWith(urlPrefix)).isPresent();
+  }
+
+  private static Set<String> readMetricPrefixes(Environment environment, String defaultPrefix) {
+    var prefixes = new HashSet<String>();
+    prefixes.add(defaultPrefix);
+    environment.readEnvOpt(ENV_HANDLE_METRIC_PREFIXES).stream()
+        .flatMap(value -> Arrays.stream(value.split(",")))
+        .map(String::trim)
+        .filter(prefix -> !prefix.isEmpty())
+        .forEach(prefixes::add);
+    return prefixes;
+  }
+
+  private static Duration readDuration(
+      Environment environment, String variableName, Duration defaultDuration) {
+    return environment
+        .readEnvOpt(variableName)
+        .map(Long::parseLong)
+        .map(Duration::ofSeconds)
+        .orElse(defaultDuration);
+  }
+
+  private record ReuseKey(String prefix, URI uri) {}
+
+  private record ExistingHandle(String handle, String url) {
+
+    private boolean isReusableFor(String prefix, URI uri) {
+      return uri.toString().equals(url) && handle.startsWith(prefix + CHARACTER_SLASH);
+    }
+  }
+
+  private static final class BatchItem {
+
+    private final URI uri;
+    private final String prefix;
+    private final String suffix;
+    private BatchHandleStatus status;
+    private String handleLocalPart;
+    private BatchItem reusedItem;
+    private int handleId;
+
+    private BatchItem(URI uri, String prefix, String suffix) {
+      this.uri = uri;
+      this.prefix = prefix;
+      this.suffix = suffix;
+    }
+
+    private boolean hasSuffix() {
+      return nonNull(suffix);
+    }
+
+    private boolean isValid() {
+      return BatchHandleStatus.BAD_REQUEST != status;
+    }
+
+    private void reject() {
+      status = BatchHandleStatus.BAD_REQUEST;
+    }
+
+    private String requestedHandle() {
+      return convertPrefixAndSuffixToShortHandle(prefix, suffix);
+    }
+
+    private boolean isToBeInserted() {
+      return BatchHandleStatus.CREATED == status;
+    }
+
+    private void resolveRequestedHandle(boolean isAvailable) {
+      status = isAvailable ? BatchHandleStatus.CREATED : BatchHandleStatus.CONFLICT;
+      handleLocalPart = requestedHandle();
+    }
+
+    private void mint() {
+      status = BatchHandleStatus.CREATED;
+    }
+
+    private void reuse(String existingHandleLocalPart) {
+      status = BatchHandleStatus.REUSED;
+      handleLocalPart = existingHandleLocalPart;
+    }
+
+    private void reuse(BatchItem item) {
+      status = BatchHandleStatus.REUSED;
+      reusedItem = item;
+    }
+
+    private void assignGeneratedSuffix(String generatedSuffix) {
+      handleLocalPart = convertPrefixAndSuffixToShortHandle(prefix, generatedSuffix);
+    }
+
+    private void assignHandleId(int reservedHandleId) {
+      handleId = reservedHandleId;
+      if (isNull(handleLocalPart)) {
+        handleLocalPart = convertPrefixAndSuffixToShortHandle(prefix, Integer.toString(handleId));
+      }
+    }
+
+    private String handleLocalPart() {
+      return nonNull(reusedItem) ? reusedItem.handleLocalPart() : handleLocalPart;
+    }
+  }
+
+  public enum MintingMode {
+    SINGLE_STATEMENT,
+    TWO_STEP,
+    UPSERT,
+    PREALLOCATED
+  }
+
+  public enum SuffixStrategyType {
+    SEQUENTIAL,
+    RANDOM,
+    TIME_ORDERED
+  }
 }
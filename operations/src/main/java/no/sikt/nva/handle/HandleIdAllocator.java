@@ -0,0 +1,50 @@
+package no.sikt.nva.handle;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SuppressWarnings({"PMD.AvoidSynchronizedStatement", "PMD.AvoidUsingVolatile"})
+public class HandleIdAllocator {
+
+  private final int blockSize;
+  private volatile IdBlock currentBlock = new IdBlock(List.of());
+
+  public HandleIdAllocator(int blockSize) {
+    if (blockSize < 1) {
+      throw new IllegalArgumentException("Handle id block size must be positive: " + blockSize);
+    }
+    this.blockSize = blockSize;
+  }
+
+  public int nextId(Connection connection) throws SQLException {
+    while (true) {
+      var block = currentBlock;
+      var handleId = block.next();
+      if (handleId.isPresent()) {
+        return handleId.getAsInt();
+      }
+      synchronized (this) {
+        if (block == currentBlock) {
+          currentBlock = new IdBlock(HandleDatabase.reserveHandleIds(blockSize, connection));
+        }
+      }
+    }
+  }
+
+  private record IdBlock(List<Integer> handleIds, AtomicInteger position) {
+
+    private IdBlock(List<Integer> handleIds) {
+      this(handleIds, new AtomicInteger());
+    }
+
+    private OptionalInt next() {
+      var index = position.getAndIncrement();
+      return index < handleIds.size()
+          ? OptionalInt.of(handleIds.get(index))
+          : OptionalInt.empty();
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package no.sikt.nva.handle;
+
+import static no.sikt.nva.handle.HandleDatabase.ALREADY_EXISTING_HANDLE_FOR_URI;
+import static no.sikt.nva.handle.HandleDatabase.CHARACTER_SLASH;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import no.sikt.nva.handle.model.HandleImportConflict;
+import no.sikt.nva.handle.model.HandleImportResponse;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class HandleImporter {
+
+  public static final String CREATE_STAGING_TABLE_SQL =
+      "CREATE TEMP TABLE handle_import ("
+          + "line bigint GENERATED ALWAYS AS IDENTITY, "
+          + "prefix varchar NOT NULL, suffix varchar NOT NULL, url varchar NOT NULL, "
+          + "imported boolean NOT NULL DEFAULT false) "
+          + "ON COMMIT DROP";
+  public static final String COPY_TO_STAGING_TABLE_SQL =
+      "COPY handle_import (prefix, suffix, url) FROM STDIN WITH (FORMAT csv, HEADER true)";
+  public static final String MERGE_STAGING_TABLE_SQL =
+      "WITH staged AS (SELECT DISTINCT ON (prefix, suffix) "
+          + "line, prefix || '/' || suffix AS handle, url FROM handle_import "
+          + "ORDER BY prefix, suffix, line), "
+          + "inserted AS (INSERT INTO handle(handle, url, date_created) "
+          + "SELECT handle, url, current_timestamp FROM staged WHERE NOT EXISTS ("
+          + "SELECT 1 FROM handle WHERE handle.handle = staged.handle) "
+          + "ON CONFLICT DO NOTHING RETURNING handle) "
+          + "UPDATE handle_import SET imported = true "
+          + "FROM staged JOIN inserted USING (handle) WHERE handle_import.line = staged.line";
+  // The staging identity column counts data rows only; the header row is line 1 of the file.
+  public static final String FIND_CONFLICTS_SQL =
+      "SELECT line + 1, prefix, suffix, count(*) OVER () FROM handle_import "
+          + "WHERE NOT imported ORDER BY line LIMIT ?";
+  public static final int MAX_REPORTED_CONFLICTS = 1000;
+  private static final Logger logger = LoggerFactory.getLogger(HandleImporter.class);
+  private final HandleDatabase handleDatabase;
+
+  public HandleImporter(HandleDatabase handleDatabase) {
+    this.handleDatabase = handleDatabase;
+  }
+
+  public HandleImportResponse importHandles(Reader csv, Connection connection)
+      throws SQLException, IOException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(CREATE_STAGING_TABLE_SQL);
+    }
+    var received =
+        connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_TO_STAGING_TABLE_SQL, csv);
+    logger.info("Copied {} handles to staging table", received);
+    // Every staged row the merge did not insert is reported, whether it was a duplicate in the
+    // file, an existing handle, or a handle inserted concurrently.
+    var created = mergeStagingTable(connection);
+    var conflicts = new ArrayList<HandleImportConflict>();
+    var numberOfConflicts = findConflicts(connection, conflicts);
+    logger.info("Imported {} handles, {} conflicts", created, numberOfConflicts);
+    return new HandleImportResponse(received, created, numberOfConflicts, conflicts);
+  }
+
+  private long findConflicts(Connection connection, List<HandleImportConflict> conflicts)
+      throws SQLException {
+    try (PreparedStatement preparedStatementConflicts =
+        connection.prepareStatement(FIND_CONFLICTS_SQL)) {
+      preparedStatementConflicts.setInt(1, MAX_REPORTED_CONFLICTS);
+      try (ResultSet conflictResult = preparedStatementConflicts.executeQuery()) {
+        var numberOfConflicts = 0L;
+        while (conflictResult.next()) {
+          var prefix = conflictResult.getString(2);
+          var suffix = conflictResult.getString(3);
+          conflicts.add(
+              new HandleImportConflict(
+                  conflictResult.getLong(1),
+                  handleDatabase.toFullHandle(prefix, suffix),
+                  ALREADY_EXISTING_HANDLE_FOR_URI + prefix + CHARACTER_SLASH + suffix));
+          numberOfConflicts = conflictResult.getLong(4);
+        }
+        return numberOfConflicts;
+      }
+    }
+  }
+
+  private static long mergeStagingTable(Connection connection) throws SQLException {
+    try (PreparedStatement preparedStatementMerge =
+        connection.prepareStatement(MERGE_STAGING_TABLE_SQL)) {
+      return preparedStatementMerge.executeLargeUpdate();
+    }
+  }
+}
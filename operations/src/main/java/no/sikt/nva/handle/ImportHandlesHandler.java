@@ -0,0 +1,84 @@
+package no.sikt.nva.handle;
+
+import static no.sikt.nva.handle.utils.DatabaseConnectionSupplier.getConnectionSupplier;
+import static no.unit.nva.commons.json.JsonUtils.dtoObjectMapper;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import no.sikt.nva.handle.exceptions.ImportHandlesException;
+import no.sikt.nva.handle.model.HandleImportRequest;
+import no.sikt.nva.handle.model.HandleImportResponse;
+import nva.commons.core.Environment;
+import nva.commons.core.JacocoGenerated;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+
+public class ImportHandlesHandler implements RequestStreamHandler {
+
+  public static final String ENV_HANDLE_IMPORT_BUCKET = "HANDLE_IMPORT_BUCKET";
+  public static final String ERROR_IMPORTING_HANDLES = "Error importing handles from '%s'";
+  private static final String GZIP_FILE_EXTENSION = ".gz";
+  private static final Logger logger = LoggerFactory.getLogger(ImportHandlesHandler.class);
+  private final Supplier<Connection> connectionSupplier;
+  private final S3Client s3Client;
+  private final HandleImporter handleImporter;
+  private final String bucket;
+
+  @JacocoGenerated
+  public ImportHandlesHandler() {
+    this(new Environment(), getConnectionSupplier(), S3Client.create());
+  }
+
+  public ImportHandlesHandler(
+      Environment environment, Supplier<Connection> connectionSupplier, S3Client s3Client) {
+    this.connectionSupplier = connectionSupplier;
+    this.s3Client = s3Client;
+    this.bucket = environment.readEnv(ENV_HANDLE_IMPORT_BUCKET);
+    this.handleImporter = new HandleImporter(new HandleDatabase(environment));
+  }
+
+  @Override
+  public void handleRequest(InputStream input, OutputStream output, Context context)
+      throws IOException {
+    var request = dtoObjectMapper.readValue(input, HandleImportRequest.class);
+    logger.info("Importing handles from s3://{}/{}", bucket, request.key());
+    try (var csv = openCsv(request.key())) {
+      dtoObjectMapper.writeValue(output, importHandles(request.key(), csv));
+    }
+  }
+
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  private HandleImportResponse importHandles(String key, BufferedReader csv) throws IOException {
+    try (var connection = connectionSupplier.get()) {
+      try {
+        var response = handleImporter.importHandles(csv, connection);
+        connection.commit();
+        return response;
+      } catch (Exception e) {
+        connection.rollback();
+        throw e;
+      }
+    } catch (SQLException e) {
+      throw new ImportHandlesException(String.format(ERROR_IMPORTING_HANDLES, key), e);
+    }
+  }
+
+  private BufferedReader openCsv(String key) throws IOException {
+    InputStream object =
+        s3Client.getObject(GetObjectRequest.builder().bucket(bucket).key(key).build());
+    var content = key.endsWith(GZIP_FILE_EXTENSION) ? new GZIPInputStream(object) : object;
+    return new BufferedReader(new InputStreamReader(content, StandardCharsets.UTF_8));
+  }
+}
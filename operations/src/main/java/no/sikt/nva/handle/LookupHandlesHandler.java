@@ -0,0 +1,110 @@
+package no.sikt.nva.handle;
+
+import static java.util.Objects.nonNull;
+import static no.sikt.nva.handle.utils.DatabaseConnectionSupplier.getReadOnlyConnectionSupplier;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.sql.Connection;
+import java.util.Optional;
+import java.util.function.Supplier;
+import no.sikt.nva.handle.exceptions.MalformedRequestException;
+import no.sikt.nva.handle.exceptions.ResolveHandleException;
+import no.sikt.nva.handle.model.HandleLookupResponse;
+import nva.commons.apigateway.ApiGatewayHandler;
+import nva.commons.apigateway.RequestInfo;
+import nva.commons.apigateway.exceptions.ApiGatewayException;
+import nva.commons.core.Environment;
+import nva.commons.core.JacocoGenerated;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class LookupHandlesHandler extends ApiGatewayHandler<Void, HandleLookupResponse> {
+
+  public static final String URL_QUERY_PARAMETER = "url";
+  public static final String URL_PREFIX_QUERY_PARAMETER = "urlPrefix";
+  public static final String CURSOR_QUERY_PARAMETER = "cursor";
+  public static final String LIMIT_QUERY_PARAMETER = "limit";
+  public static final int DEFAULT_LIMIT = 1000;
+  public static final int MAX_LIMIT = 1000;
+  public static final String URL_OR_URL_PREFIX_ERROR =
+      "exactly one of url and urlPrefix must be given as an absolute url";
+  public static final String INVALID_PAGING_ERROR =
+      "cursor must be a non-negative integer and limit an integer between 1 and " + MAX_LIMIT;
+  public static final String ERROR_LOOKING_UP_HANDLES = "Error looking up handles for '%s'";
+  private static final int START_CURSOR = 0;
+  private static final Logger logger = LoggerFactory.getLogger(LookupHandlesHandler.class);
+  private final HandleDatabase handleDatabase;
+  private final Supplier<Connection> connectionSupplier;
+
+  @JacocoGenerated
+  public LookupHandlesHandler() {
+    this(new Environment(), getReadOnlyConnectionSupplier());
+  }
+
+  public LookupHandlesHandler(Environment environment, Supplier<Connection> connectionSupplier) {
+    super(Void.class, environment);
+    this.handleDatabase = new HandleDatabase(environment);
+    this.connectionSupplier = connectionSupplier;
+  }
+
+  @Override
+  protected void validateRequest(Void input, RequestInfo requestInfo, Context context)
+      throws ApiGatewayException {
+    var url = requestInfo.getQueryParameterOpt(URL_QUERY_PARAMETER);
+    var urlPrefix = requestInfo.getQueryParameterOpt(URL_PREFIX_QUERY_PARAMETER);
+    if (url.isPresent() == urlPrefix.isPresent()
+        || !isAbsoluteUrl(url.orElseGet(urlPrefix::get))) {
+      throw new MalformedRequestException(URL_OR_URL_PREFIX_ERROR);
+    }
+    var cursor = readInteger(requestInfo, CURSOR_QUERY_PARAMETER, START_CURSOR);
+    var limit = readInteger(requestInfo, LIMIT_QUERY_PARAMETER, DEFAULT_LIMIT);
+    if (cursor < START_CURSOR || limit < 1 || limit > MAX_LIMIT) {
+      throw new MalformedRequestException(INVALID_PAGING_ERROR);
+    }
+  }
+
+  @Override
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  protected HandleLookupResponse processInput(
+      Void input, RequestInfo requestInfo, Context context) throws ApiGatewayException {
+    var url = requestInfo.getQueryParameterOpt(URL_QUERY_PARAMETER);
+    var urlPrefix = requestInfo.getQueryParameterOpt(URL_PREFIX_QUERY_PARAMETER);
+    var cursor = readInteger(requestInfo, CURSOR_QUERY_PARAMETER, START_CURSOR);
+    var limit = readInteger(requestInfo, LIMIT_QUERY_PARAMETER, DEFAULT_LIMIT);
+    try (var connection = connectionSupplier.get()) {
+      return url.isPresent()
+          ? handleDatabase.findHandlesByUrl(URI.create(url.get()), cursor, limit, connection)
+          : handleDatabase.findHandlesByUrlPrefix(urlPrefix.get(), cursor, limit, connection);
+    } catch (Exception e) {
+      var message = String.format(ERROR_LOOKING_UP_HANDLES, url.orElseGet(urlPrefix::get));
+      logger.error(message, e);
+      throw new ResolveHandleException(message);
+    }
+  }
+
+  @Override
+  protected Integer getSuccessStatusCode(Void input, HandleLookupResponse output) {
+    return HttpURLConnection.HTTP_OK;
+  }
+
+  private static int readInteger(RequestInfo requestInfo, String name, int defaultValue)
+      throws MalformedRequestException {
+    Optional<String> value = requestInfo.getQueryParameterOpt(name);
+    try {
+      return value.map(Integer::parseInt).orElse(defaultValue);
+    } catch (NumberFormatException e) {
+      throw new MalformedRequestException(INVALID_PAGING_ERROR);
+    }
+  }
+
+  private static boolean isAbsoluteUrl(String url) {
+    try {
+      var uri = URI.create(url);
+      return uri.isAbsolute() && nonNull(uri.getHost());
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+}
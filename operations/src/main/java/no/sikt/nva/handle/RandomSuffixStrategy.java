@@ -0,0 +1,24 @@
+package no.sikt.nva.handle;
+
+import java.util.random.RandomGenerator;
+
+public class RandomSuffixStrategy implements SuffixStrategy {
+
+  private final int length;
+  private final RandomGenerator random;
+
+  public RandomSuffixStrategy(int length, RandomGenerator random) {
+    if (length < 1) {
+      throw new IllegalArgumentException("Suffix length must be positive: " + length);
+    }
+    this.length = length;
+    this.random = random;
+  }
+
+  @Override
+  public String nextSuffix() {
+    var suffix = new StringBuilder(length);
+    CrockfordBase32.appendRandom(suffix, random, length);
+    return suffix.toString();
+  }
+}
@@ -0,0 +1,141 @@
+package no.sikt.nva.handle;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static no.sikt.nva.handle.utils.DatabaseConnectionSupplier.getConnectionSupplier;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import no.sikt.nva.handle.exceptions.MalformedRequestException;
+import no.sikt.nva.handle.exceptions.UpdateHandleException;
+import no.sikt.nva.handle.model.RepointHandlesRequest;
+import no.sikt.nva.handle.model.RepointHandlesResponse;
+import nva.commons.apigateway.ApiGatewayHandler;
+import nva.commons.apigateway.RequestInfo;
+import nva.commons.apigateway.exceptions.ApiGatewayException;
+import nva.commons.core.Environment;
+import nva.commons.core.JacocoGenerated;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class RepointHandlesHandler
+    extends ApiGatewayHandler<RepointHandlesRequest, RepointHandlesResponse> {
+
+  public static final int CHUNK_SIZE = 5000;
+  public static final Duration MAX_PROCESSING_TIME = Duration.ofSeconds(20);
+  public static final String INVALID_URL_PREFIX_ERROR =
+      "fromUrlPrefix and toUrlPrefix must be absolute urls with a host";
+  public static final String SAME_URL_PREFIX_ERROR = "fromUrlPrefix and toUrlPrefix must differ";
+  public static final String ERROR_REPOINTING_HANDLES =
+      "Error repointing handles from '%s' to '%s', resume from cursor %s";
+  private static final int START_CURSOR = 0;
+  private static final Logger logger = LoggerFactory.getLogger(RepointHandlesHandler.class);
+  private final HandleDatabase handleDatabase;
+  private final Supplier<Connection> connectionSupplier;
+  private final Clock clock;
+
+  @JacocoGenerated
+  public RepointHandlesHandler() {
+    this(new Environment(), getConnectionSupplier(), Clock.systemUTC());
+  }
+
+  public RepointHandlesHandler(
+      Environment environment, Supplier<Connection> connectionSupplier, Clock clock) {
+    super(RepointHandlesRequest.class, environment);
+    this.handleDatabase = new HandleDatabase(environment);
+    this.connectionSupplier = connectionSupplier;
+    this.clock = clock;
+  }
+
+  @Override
+  protected void validateRequest(
+      RepointHandlesRequest input, RequestInfo requestInfo, Context context)
+      throws ApiGatewayException {
+    if (isNull(input)
+        || !isAbsoluteUrl(input.fromUrlPrefix())
+        || !isAbsoluteUrl(input.toUrlPrefix())) {
+      throw new MalformedRequestException(INVALID_URL_PREFIX_ERROR);
+    }
+    if (input.fromUrlPrefix().equals(input.toUrlPrefix())) {
+      throw new MalformedRequestException(SAME_URL_PREFIX_ERROR);
+    }
+  }
+
+  @Override
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  protected RepointHandlesResponse processInput(
+      RepointHandlesRequest input, RequestInfo requestInfo, Context context)
+      throws ApiGatewayException {
+    var deadline = clock.instant().plus(MAX_PROCESSING_TIME);
+    var cursor = nonNull(input.cursor()) ? input.cursor() : START_CURSOR;
+    var updated = 0;
+    var complete = false;
+    try (var connection = connectionSupplier.get()) {
+      while (!complete && clock.instant().isBefore(deadline)) {
+        var handleIds = repointChunk(input, cursor, connection);
+        updated += handleIds.size();
+        cursor = handleIds.isEmpty() ? cursor : Collections.max(handleIds);
+        complete = handleIds.size() < CHUNK_SIZE;
+        logger.info(
+            "Repointed {} handles from '{}' to '{}', cursor: {}",
+            updated,
+            input.fromUrlPrefix(),
+            input.toUrlPrefix(),
+            cursor);
+      }
+      var remaining =
+          complete
+              ? 0
+              : handleDatabase.countHandlesByUrlPrefix(
+                  input.fromUrlPrefix(), input.toUrlPrefix(), cursor, connection);
+      return new RepointHandlesResponse(updated, remaining, cursor, complete);
+    } catch (Exception e) {
+      var message =
+          String.format(
+              ERROR_REPOINTING_HANDLES, input.fromUrlPrefix(), input.toUrlPrefix(), cursor);
+      logger.error(message, e);
+      throw new UpdateHandleException(message);
+    }
+  }
+
+  @Override
+  protected Integer getSuccessStatusCode(
+      RepointHandlesRequest input, RepointHandlesResponse output) {
+    return HttpURLConnection.HTTP_OK;
+  }
+
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  private List<Integer> repointChunk(RepointHandlesRequest input, int cursor, Connection connection)
+      throws SQLException {
+    try {
+      var handleIds =
+          handleDatabase.repointHandlesByUrlPrefix(
+              input.fromUrlPrefix(), input.toUrlPrefix(), cursor, CHUNK_SIZE, connection);
+      connection.commit();
+      return handleIds;
+    } catch (Exception e) {
+      connection.rollback();
+      throw e;
+    }
+  }
+
+  private static boolean isAbsoluteUrl(String urlPrefix) {
+    if (isNull(urlPrefix)) {
+      return false;
+    }
+    try {
+      var uri = URI.create(urlPrefix);
+      return uri.isAbsolute() && nonNull(uri.getHost());
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+}
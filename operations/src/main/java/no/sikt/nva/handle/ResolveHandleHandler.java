@@ -0,0 +1,89 @@
+package no.sikt.nva.handle;
+
+import static java.util.Objects.isNull;
+import static no.sikt.nva.handle.utils.DatabaseConnectionSupplier.getReadOnlyConnectionSupplier;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.sql.Connection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import no.sikt.nva.handle.exceptions.ResolveHandleException;
+import no.sikt.nva.handle.model.HandleResolution;
+import nva.commons.apigateway.ApiGatewayHandler;
+import nva.commons.apigateway.RequestInfo;
+import nva.commons.apigateway.exceptions.ApiGatewayException;
+import nva.commons.apigateway.exceptions.NotFoundException;
+import nva.commons.core.Environment;
+import nva.commons.core.JacocoGenerated;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ResolveHandleHandler extends ApiGatewayHandler<Void, HandleResolution> {
+
+  public static final String REDIRECT_QUERY_PARAMETER = "redirect";
+  public static final String HANDLE_NOT_FOUND = "Handle not found: %s/%s";
+  public static final String ERROR_RESOLVING_HANDLE = "Error resolving handle '%s/%s'";
+  private static final String LOCATION_HEADER = "Location";
+  private static final Logger logger = LoggerFactory.getLogger(ResolveHandleHandler.class);
+  private final HandleDatabase handleDatabase;
+  private final Supplier<Connection> connectionSupplier;
+
+  @JacocoGenerated
+  public ResolveHandleHandler() {
+    this(new Environment(), getReadOnlyConnectionSupplier());
+  }
+
+  public ResolveHandleHandler(Environment environment, Supplier<Connection> connectionSupplier) {
+    super(Void.class, environment);
+    this.handleDatabase = new HandleDatabase(environment);
+    this.connectionSupplier = connectionSupplier;
+  }
+
+  @Override
+  protected void validateRequest(Void input, RequestInfo requestInfo, Context context)
+      throws ApiGatewayException {
+    // no request body to validate
+  }
+
+  @Override
+  protected HandleResolution processInput(Void input, RequestInfo requestInfo, Context context)
+      throws ApiGatewayException {
+    var prefix = requestInfo.getPathParameter("prefix");
+    var suffix = requestInfo.getPathParameter("suffix");
+    var uri =
+        resolveHandle(prefix, suffix)
+            .orElseThrow(
+                () -> new NotFoundException(String.format(HANDLE_NOT_FOUND, prefix, suffix)));
+    if (isRedirectRequest(requestInfo)) {
+      addAdditionalHeaders(() -> Map.of(LOCATION_HEADER, uri.toString()));
+      return null;
+    }
+    return new HandleResolution(handleDatabase.toFullHandle(prefix, suffix), uri);
+  }
+
+  @Override
+  protected Integer getSuccessStatusCode(Void input, HandleResolution output) {
+    return isNull(output) ? HttpURLConnection.HTTP_MOVED_TEMP : HttpURLConnection.HTTP_OK;
+  }
+
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  private Optional<URI> resolveHandle(String prefix, String suffix) throws ResolveHandleException {
+    try (var connection = connectionSupplier.get()) {
+      return handleDatabase.resolveHandle(prefix, suffix, connection);
+    } catch (Exception e) {
+      var message = String.format(ERROR_RESOLVING_HANDLE, prefix, suffix);
+      logger.error(message, e);
+      throw new ResolveHandleException(message);
+    }
+  }
+
+  private static boolean isRedirectRequest(RequestInfo requestInfo) {
+    return requestInfo
+        .getQueryParameterOpt(REDIRECT_QUERY_PARAMETER)
+        .map(Boolean::parseBoolean)
+        .orElse(false);
+  }
+}
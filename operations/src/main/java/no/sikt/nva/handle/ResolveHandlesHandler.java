@@ -0,0 +1,100 @@
+package no.sikt.nva.handle;
+
+import static java.util.Objects.isNull;
+import static no.sikt.nva.handle.utils.DatabaseConnectionSupplier.getReadOnlyConnectionSupplier;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.sql.Connection;
+import java.util.LinkedHashMap;
+import java.util.function.Supplier;
+import no.sikt.nva.handle.exceptions.MalformedRequestException;
+import no.sikt.nva.handle.exceptions.ResolveHandleException;
+import no.sikt.nva.handle.model.ResolveHandlesRequest;
+import no.sikt.nva.handle.model.ResolveHandlesResponse;
+import nva.commons.apigateway.ApiGatewayHandler;
+import nva.commons.apigateway.RequestInfo;
+import nva.commons.apigateway.exceptions.ApiGatewayException;
+import nva.commons.core.Environment;
+import nva.commons.core.JacocoGenerated;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ResolveHandlesHandler
+    extends ApiGatewayHandler<ResolveHandlesRequest, ResolveHandlesResponse> {
+
+  public static final int MAX_BATCH_SIZE = 10_000;
+  public static final String EMPTY_BATCH_ERROR = "handles can not be empty";
+  public static final String BATCH_TOO_LARGE_ERROR =
+      "handles can not contain more than " + MAX_BATCH_SIZE + " entries";
+  public static final String INVALID_HANDLE_ERROR = "handles must be on the form prefix/suffix";
+  public static final String ERROR_RESOLVING_HANDLES = "Error resolving %s handles";
+  private static final Logger logger = LoggerFactory.getLogger(ResolveHandlesHandler.class);
+  private final HandleDatabase handleDatabase;
+  private final Supplier<Connection> connectionSupplier;
+
+  @JacocoGenerated
+  public ResolveHandlesHandler() {
+    this(new Environment(), getReadOnlyConnectionSupplier());
+  }
+
+  public ResolveHandlesHandler(Environment environment, Supplier<Connection> connectionSupplier) {
+    super(ResolveHandlesRequest.class, environment);
+    this.handleDatabase = new HandleDatabase(environment);
+    this.connectionSupplier = connectionSupplier;
+  }
+
+  @Override
+  protected void validateRequest(
+      ResolveHandlesRequest input, RequestInfo requestInfo, Context context)
+      throws ApiGatewayException {
+    if (isNull(input) || isNull(input.handles()) || input.handles().isEmpty()) {
+      throw new MalformedRequestException(EMPTY_BATCH_ERROR);
+    }
+    if (input.handles().size() > MAX_BATCH_SIZE) {
+      throw new MalformedRequestException(BATCH_TOO_LARGE_ERROR);
+    }
+    if (input.handles().stream().anyMatch(this::isInvalidHandle)) {
+      throw new MalformedRequestException(INVALID_HANDLE_ERROR);
+    }
+  }
+
+  @Override
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  protected ResolveHandlesResponse processInput(
+      ResolveHandlesRequest input, RequestInfo requestInfo, Context context)
+      throws ApiGatewayException {
+    var handleLocalParts = input.handles().stream().map(handleDatabase::toHandleLocalPart).toList();
+    try (var connection = connectionSupplier.get()) {
+      var uris = handleDatabase.resolveHandles(handleLocalParts, connection);
+      var resolved = new LinkedHashMap<String, URI>();
+      handleLocalParts.stream()
+          .filter(uris::containsKey)
+          .forEach(handleLocalPart -> resolved.put(handleLocalPart, uris.get(handleLocalPart)));
+      var missing =
+          handleLocalParts.stream().filter(handle -> !uris.containsKey(handle)).distinct().toList();
+      logger.info("Resolved {} handles, {} missing", resolved.size(), missing.size());
+      return new ResolveHandlesResponse(resolved, missing);
+    } catch (Exception e) {
+      var message = String.format(ERROR_RESOLVING_HANDLES, handleLocalParts.size());
+      logger.error(message, e);
+      throw new ResolveHandleException(message);
+    }
+  }
+
+  @Override
+  protected Integer getSuccessStatusCode(
+      ResolveHandlesRequest input, ResolveHandlesResponse output) {
+    return HttpURLConnection.HTTP_OK;
+  }
+
+  private boolean isInvalidHandle(String handle) {
+    if (isNull(handle)) {
+      return true;
+    }
+    var handleLocalPart = handleDatabase.toHandleLocalPart(handle);
+    var separator = handleLocalPart.indexOf(HandleDatabase.CHARACTER_SLASH);
+    return separator <= 0 || separator == handleLocalPart.length() - 1;
+  }
+}
@@ -0,0 +1,7 @@
+package no.sikt.nva.handle;
+
+@FunctionalInterface
+public interface SuffixStrategy {
+
+  String nextSuffix();
+}
@@ -0,0 +1,26 @@
+package no.sikt.nva.handle;
+
+import java.time.Clock;
+import java.util.random.RandomGenerator;
+
+public class TimeOrderedSuffixStrategy implements SuffixStrategy {
+
+  // Same layout as a ULID: 48 bits of epoch milliseconds followed by 80 random bits.
+  private static final int TIMESTAMP_CHARACTERS = 10;
+  private static final int RANDOM_CHARACTERS = 16;
+  private final Clock clock;
+  private final RandomGenerator random;
+
+  public TimeOrderedSuffixStrategy(Clock clock, RandomGenerator random) {
+    this.clock = clock;
+    this.random = random;
+  }
+
+  @Override
+  public String nextSuffix() {
+    var suffix = new StringBuilder(TIMESTAMP_CHARACTERS + RANDOM_CHARACTERS);
+    CrockfordBase32.appendEncoded(suffix, clock.millis(), TIMESTAMP_CHARACTERS);
+    CrockfordBase32.appendRandom(suffix, random, RANDOM_CHARACTERS);
+    return suffix.toString();
+  }
+}
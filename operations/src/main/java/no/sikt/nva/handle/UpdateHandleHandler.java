@@ -13,6 +13,7 @@ import no.sikt.nva.handle.exceptions.MalformedRequestException;
 import no.sikt.nva.handle.exceptions.UpdateHandleException;
 import no.sikt.nva.handle.model.HandleRequest;
 import no.sikt.nva.handle.model.HandleResponse;
+import no.sikt.nva.handle.utils.TransactionRetryPolicy;
 import nva.commons.apigateway.ApiGatewayHandler;
 import nva.commons.apigateway.RequestInfo;
 import nva.commons.apigateway.exceptions.ApiGatewayException;
@@ -25,9 +26,11 @@ import org.slf4j.LoggerFactory;
 public class UpdateHandleHandler extends ApiGatewayHandler<HandleRequest, HandleResponse> {
 
   private static final String NULL_URI_ERROR = "uri can not be null";
+  private static final String UPDATE_HANDLE_TRANSACTION = "UpdateHandle";
   private static final Logger logger = LoggerFactory.getLogger(UpdateHandleHandler.class);
   private final HandleDatabase handleDatabase;
   private final Supplier<Connection> connectionSupplier;
+  private final TransactionRetryPolicy retryPolicy;
 
   @JacocoGenerated
   public UpdateHandleHandler() {
@@ -38,6 +41,7 @@ public class UpdateHandleHandler extends ApiGatewayHandler<HandleRequest, Handle
     super(HandleRequest.class, environment);
     this.handleDatabase = new HandleDatabase(environment);
     this.connectionSupplier = connectionSupplier;
+    this.retryPolicy = new TransactionRetryPolicy(UPDATE_HANDLE_TRANSACTION, environment);
   }
 
   @Override
@@ -53,8 +57,8 @@ public class UpdateHandleHandler extends ApiGatewayHandler<HandleRequest, Handle
       HandleRequest input, RequestInfo requestInfo, Context context) throws ApiGatewayException {
     var prefix = requestInfo.getPathParameter("prefix");
     var suffix = requestInfo.getPathParameter("suffix");
-    try (var connection = connectionSupplier.get()) {
-      return updateHandle(input, prefix, suffix, connection);
+    try {
+      return retryPolicy.execute(() -> updateHandle(input, prefix, suffix), context);
     } catch (Exception e) {
       var message =
           getNestedExceptionMessage(
@@ -64,6 +68,13 @@ public class UpdateHandleHandler extends ApiGatewayHandler<HandleRequest, Handle
     }
   }
 
+  private HandleResponse updateHandle(HandleRequest input, String prefix, String suffix)
+      throws SQLException {
+    try (var connection = connectionSupplier.get()) {
+      return updateHandle(input, prefix, suffix, connection);
+    }
+  }
+
   @SuppressWarnings("PMD.AvoidCatchingGenericException")
   private HandleResponse updateHandle(
       HandleRequest input, String prefix, String suffix, Connection connection)
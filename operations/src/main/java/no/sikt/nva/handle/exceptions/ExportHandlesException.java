@@ -0,0 +1,8 @@
+package no.sikt.nva.handle.exceptions;
+
+public class ExportHandlesException extends RuntimeException {
+
+  public ExportHandlesException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,8 @@
+package no.sikt.nva.handle.exceptions;
+
+public class ImportHandlesException extends RuntimeException {
+
+  public ImportHandlesException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,16 @@
+package no.sikt.nva.handle.exceptions;
+
+import java.net.HttpURLConnection;
+import nva.commons.apigateway.exceptions.ApiGatewayException;
+
+public class ResolveHandleException extends ApiGatewayException {
+
+  public ResolveHandleException(String message) {
+    super(message);
+  }
+
+  @Override
+  protected Integer statusCode() {
+    return HttpURLConnection.HTTP_BAD_GATEWAY;
+  }
+}
@@ -0,0 +1,40 @@
+package no.sikt.nva.handle.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+
+public class CsvHandleExportWriter implements HandleExportWriter {
+
+  private static final String HEADER = "handle,url,date_created";
+  private static final String QUOTE = "\"";
+  private static final String ESCAPED_QUOTE = "\"\"";
+  private static final char SEPARATOR = ',';
+  private static final String LINE_SEPARATOR = "\r\n";
+  private final Writer writer;
+
+  public CsvHandleExportWriter(Writer writer) throws IOException {
+    this.writer = writer;
+    writer.write(HEADER);
+    writer.write(LINE_SEPARATOR);
+  }
+
+  @Override
+  public void write(String handle, String url, Instant dateCreated) throws IOException {
+    writer.write(quote(handle));
+    writer.write(SEPARATOR);
+    writer.write(quote(url));
+    writer.write(SEPARATOR);
+    writer.write(dateCreated.toString());
+    writer.write(LINE_SEPARATOR);
+  }
+
+  @Override
+  public void close() throws IOException {
+    writer.close();
+  }
+
+  private static String quote(String value) {
+    return QUOTE + value.replace(QUOTE, ESCAPED_QUOTE) + QUOTE;
+  }
+}
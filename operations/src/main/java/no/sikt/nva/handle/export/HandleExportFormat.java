@@ -0,0 +1,23 @@
+package no.sikt.nva.handle.export;
+
+import java.io.IOException;
+import java.io.Writer;
+
+public enum HandleExportFormat {
+  NDJSON("ndjson"),
+  CSV("csv");
+
+  private final String fileExtension;
+
+  HandleExportFormat(String fileExtension) {
+    this.fileExtension = fileExtension;
+  }
+
+  public String getFileExtension() {
+    return fileExtension;
+  }
+
+  public HandleExportWriter newWriter(Writer writer) throws IOException {
+    return this == CSV ? new CsvHandleExportWriter(writer) : new NdjsonHandleExportWriter(writer);
+  }
+}
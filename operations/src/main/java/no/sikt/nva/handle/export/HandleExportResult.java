@@ -0,0 +1,5 @@
+package no.sikt.nva.handle.export;
+
+import java.time.Instant;
+
+public record HandleExportResult(Instant watermark, long rows) {}
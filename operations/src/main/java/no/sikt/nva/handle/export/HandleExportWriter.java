@@ -0,0 +1,10 @@
+package no.sikt.nva.handle.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Instant;
+
+public interface HandleExportWriter extends Closeable {
+
+  void write(String handle, String url, Instant dateCreated) throws IOException;
+}
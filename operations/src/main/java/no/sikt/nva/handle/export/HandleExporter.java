@@ -0,0 +1,85 @@
+package no.sikt.nva.handle.export;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class HandleExporter {
+
+  public static final String EXPORT_WATERMARK_SQL =
+      "SELECT current_timestamp - make_interval(secs => ?)";
+  public static final String EXPORT_HANDLES_SQL =
+      "SELECT handle, url, date_created FROM handle "
+          + "WHERE date_created > ? AND date_created <= ? "
+          + "ORDER BY date_created, handle_id";
+  private static final int PROGRESS_INTERVAL = 100_000;
+  private static final Logger logger = LoggerFactory.getLogger(HandleExporter.class);
+  private final int fetchSize;
+  private final Duration safetyLag;
+
+  public HandleExporter(int fetchSize, Duration safetyLag) {
+    this.fetchSize = fetchSize;
+    this.safetyLag = safetyLag;
+  }
+
+  // date_created is the start time of the inserting transaction, so a row can commit after rows
+  // with a later date_created. The watermark is taken from the database clock and held back by
+  // safetyLag, so rows from transactions still open when the export starts stay out of this window.
+  public HandleExportResult export(
+      Instant createdAfter, Connection connection, HandleExportWriter writer)
+      throws SQLException, IOException {
+    try {
+      var watermark = fetchWatermark(connection);
+      return new HandleExportResult(
+          watermark, exportRows(createdAfter, watermark, connection, writer));
+    } finally {
+      connection.rollback();
+    }
+  }
+
+  private Instant fetchWatermark(Connection connection) throws SQLException {
+    try (PreparedStatement preparedStatementWatermark =
+        connection.prepareStatement(EXPORT_WATERMARK_SQL)) {
+      preparedStatementWatermark.setLong(1, safetyLag.toSeconds());
+      try (ResultSet watermarkResult = preparedStatementWatermark.executeQuery()) {
+        watermarkResult.next();
+        return watermarkResult.getTimestamp(1).toInstant();
+      }
+    }
+  }
+
+  private long exportRows(
+      Instant createdAfter, Instant watermark, Connection connection, HandleExportWriter writer)
+      throws SQLException, IOException {
+    try (PreparedStatement preparedStatementExport =
+        connection.prepareStatement(
+            EXPORT_HANDLES_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+      // With auto-commit off, a forward-only statement with a fetch size is read through a
+      // server-side cursor, fetchSize rows at a time.
+      preparedStatementExport.setFetchSize(fetchSize);
+      preparedStatementExport.setTimestamp(1, Timestamp.from(createdAfter));
+      preparedStatementExport.setTimestamp(2, Timestamp.from(watermark));
+      try (ResultSet exportResult = preparedStatementExport.executeQuery()) {
+        var rows = 0L;
+        while (exportResult.next()) {
+          writer.write(
+              exportResult.getString(1),
+              exportResult.getString(2),
+              exportResult.getTimestamp(3).toInstant());
+          rows++;
+          if (rows % PROGRESS_INTERVAL == 0) {
+            logger.info("Exported {} handles", rows);
+          }
+        }
+        return rows;
+      }
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package no.sikt.nva.handle.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+
+public class NdjsonHandleExportWriter implements HandleExportWriter {
+
+  private static final char LINE_SEPARATOR = '\n';
+  private final JsonGenerator generator;
+
+  public NdjsonHandleExportWriter(Writer writer) throws IOException {
+    this.generator = new JsonFactory().createGenerator(writer);
+  }
+
+  @Override
+  public void write(String handle, String url, Instant dateCreated) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("handle", handle);
+    generator.writeStringField("url", url);
+    generator.writeStringField("dateCreated", dateCreated.toString());
+    generator.writeEndObject();
+    generator.writeRaw(LINE_SEPARATOR);
+  }
+
+  @Override
+  public void close() throws IOException {
+    generator.close();
+  }
+}
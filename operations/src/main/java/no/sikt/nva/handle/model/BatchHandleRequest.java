@@ -0,0 +1,6 @@
+package no.sikt.nva.handle.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+public record BatchHandleRequest(@JsonProperty("handles") List<HandleRequest> handles) {}
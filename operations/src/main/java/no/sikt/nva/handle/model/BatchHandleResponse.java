@@ -0,0 +1,6 @@
+package no.sikt.nva.handle.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+public record BatchHandleResponse(@JsonProperty("results") List<BatchHandleResult> results) {}
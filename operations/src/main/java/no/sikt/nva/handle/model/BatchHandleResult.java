@@ -0,0 +1,12 @@
+package no.sikt.nva.handle.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.net.URI;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchHandleResult(
+    @JsonProperty("uri") URI uri,
+    @JsonProperty("handle") URI handle,
+    @JsonProperty("status") BatchHandleStatus status,
+    @JsonProperty("message") String message) {}
@@ -0,0 +1,11 @@
+package no.sikt.nva.handle.model;
+
+public enum BatchHandleStatus {
+  CREATED,
+  REUSED,
+  CONFLICT,
+  UPDATED,
+  NOT_FOUND,
+  BAD_REQUEST,
+  FAILED
+}
@@ -0,0 +1,9 @@
+package no.sikt.nva.handle.model;
+
+public record CacheStatistics(long hits, long misses, int size) {
+
+  public double hitRatio() {
+    var lookups = hits + misses;
+    return lookups == 0 ? 0 : (double) hits / lookups;
+  }
+}
@@ -0,0 +1,4 @@
+package no.sikt.nva.handle.model;
+
+public record ConnectionPoolMetrics(
+    int activeConnections, int idleConnections, int totalConnections, int awaitingThreads) {}
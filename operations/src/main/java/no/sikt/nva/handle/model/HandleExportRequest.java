@@ -0,0 +1,9 @@
+package no.sikt.nva.handle.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.Instant;
+import no.sikt.nva.handle.export.HandleExportFormat;
+
+public record HandleExportRequest(
+    @JsonProperty("format") HandleExportFormat format,
+    @JsonProperty("createdAfter") Instant createdAfter) {}
@@ -0,0 +1,13 @@
+package no.sikt.nva.handle.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.net.URI;
+import java.time.Instant;
+import no.sikt.nva.handle.export.HandleExportFormat;
+
+public record HandleExportResponse(
+    @JsonProperty("location") URI location,
+    @JsonProperty("format") HandleExportFormat format,
+    @JsonProperty("createdAfter") Instant createdAfter,
+    @JsonProperty("watermark") Instant watermark,
+    @JsonProperty("rows") long rows) {}
@@ -0,0 +1,9 @@
+package no.sikt.nva.handle.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.net.URI;
+
+public record HandleImportConflict(
+    @JsonProperty("line") long line,
+    @JsonProperty("handle") URI handle,
+    @JsonProperty("message") String message) {}
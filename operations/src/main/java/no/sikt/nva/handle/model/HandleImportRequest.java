@@ -0,0 +1,5 @@
+package no.sikt.nva.handle.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record HandleImportRequest(@JsonProperty("key") String key) {}
@@ -0,0 +1,10 @@
+package no.sikt.nva.handle.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+public record HandleImportResponse(
+    @JsonProperty("received") long received,
+    @JsonProperty("created") long created,
+    @JsonProperty("conflicts") long conflicts,
+    @JsonProperty("reportedConflicts") List<HandleImportConflict> reportedConflicts) {}
@@ -0,0 +1,8 @@
+package no.sikt.nva.handle.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.net.URI;
+import java.util.List;
+
+public record HandleLookupResponse(
+    @JsonProperty("handles") List<URI> handles, @JsonProperty("nextCursor") Integer nextCursor) {}
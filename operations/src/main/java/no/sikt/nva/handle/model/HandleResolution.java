@@ -0,0 +1,6 @@
+package no.sikt.nva.handle.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.net.URI;
+
+public record HandleResolution(@JsonProperty("handle") URI handle, @JsonProperty("uri") URI uri) {}
@@ -0,0 +1,10 @@
+package no.sikt.nva.handle.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RepointHandlesRequest(
+    @JsonProperty("fromUrlPrefix") String fromUrlPrefix,
+    @JsonProperty("toUrlPrefix") String toUrlPrefix,
+    @JsonProperty("cursor") Integer cursor) {}
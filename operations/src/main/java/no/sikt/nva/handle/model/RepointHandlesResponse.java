@@ -0,0 +1,9 @@
+package no.sikt.nva.handle.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record RepointHandlesResponse(
+    @JsonProperty("updated") int updated,
+    @JsonProperty("remaining") long remaining,
+    @JsonProperty("cursor") int cursor,
+    @JsonProperty("complete") boolean complete) {}
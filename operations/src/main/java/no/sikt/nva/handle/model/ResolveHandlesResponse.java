@@ -0,0 +1,10 @@
+package no.sikt.nva.handle.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+public record ResolveHandlesResponse(
+    @JsonProperty("resolved") Map<String, URI> resolved,
+    @JsonProperty("missing") List<String> missing) {}
@@ -0,0 +1,63 @@
+package no.sikt.nva.handle.utils;
+
+import static java.util.Objects.nonNull;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.function.Supplier;
+import no.sikt.nva.handle.model.HandleDatabaseSecrets;
+import nva.commons.core.JacocoGenerated;
+import nva.commons.secrets.SecretsReader;
+
+@SuppressWarnings("PMD.AvoidSynchronizedStatement")
+public class CachedDatabaseSecrets {
+
+  private final Supplier<HandleDatabaseSecrets> secretsFetcher;
+  private final Duration timeToLive;
+  private final Clock clock;
+  private HandleDatabaseSecrets cachedSecrets;
+  private Instant expiry;
+
+  public CachedDatabaseSecrets(
+      Supplier<HandleDatabaseSecrets> secretsFetcher, Duration timeToLive, Clock clock) {
+    this.secretsFetcher = Objects.requireNonNull(secretsFetcher, "Secrets fetcher is required");
+    this.timeToLive = Objects.requireNonNull(timeToLive, "Time to live is required");
+    this.clock = Objects.requireNonNull(clock, "Clock is required");
+  }
+
+  @JacocoGenerated
+  public static CachedDatabaseSecrets forSecret(
+      SecretsReader secretsReader, String secretName, Duration timeToLive) {
+    return new CachedDatabaseSecrets(
+        () -> secretsReader.fetchClassSecret(secretName, HandleDatabaseSecrets.class),
+        timeToLive,
+        Clock.systemUTC());
+  }
+
+  public HandleDatabaseSecrets get() {
+    synchronized (this) {
+      if (isValid()) {
+        return cachedSecrets;
+      }
+      return fetchSecrets();
+    }
+  }
+
+  public HandleDatabaseSecrets refresh() {
+    synchronized (this) {
+      return fetchSecrets();
+    }
+  }
+
+  private boolean isValid() {
+    return nonNull(cachedSecrets) && nonNull(expiry) && clock.instant().isBefore(expiry);
+  }
+
+  private HandleDatabaseSecrets fetchSecrets() {
+    cachedSecrets = secretsFetcher.get();
+    expiry = clock.instant().plus(timeToLive);
+    return cachedSecrets;
+  }
+}
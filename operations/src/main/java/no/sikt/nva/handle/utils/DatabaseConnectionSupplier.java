@@ -1,12 +1,17 @@
 package no.sikt.nva.handle.utils;
 
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 import static nva.commons.secrets.SecretsReader.defaultSecretsManagerClient;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.util.Properties;
+import java.time.Duration;
+import java.util.Optional;
 import java.util.function.Supplier;
+import no.sikt.nva.handle.model.ConnectionPoolMetrics;
 import no.sikt.nva.handle.model.HandleDatabaseSecrets;
 import nva.commons.core.Environment;
 import nva.commons.core.JacocoGenerated;
@@ -15,40 +20,208 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @JacocoGenerated
+@SuppressWarnings("PMD.AvoidSynchronizedStatement")
 public final class DatabaseConnectionSupplier {
-  public static final String USER = "user";
-  public static final String PASSWORD = "password";
   public static final String ERROR_CONNECTING_TO_HANDLE_DATABASE =
       "Error connecting to handle database";
+  private static final String AUTHENTICATION_FAILED_REFRESHING_SECRET =
+      "Authentication against handle database failed, refreshing database secret";
   private static final Logger logger = LoggerFactory.getLogger(DatabaseConnectionSupplier.class);
   public static final String ENV_HANDLE_DATABASE_SECRET_NAME = "HANDLE_DATABASE_SECRET_NAME";
+  public static final String ENV_HANDLE_DATABASE_SECRET_TTL_SECONDS =
+      "HANDLE_DATABASE_SECRET_TTL_SECONDS";
+  public static final String ENV_HANDLE_DATABASE_POOL_SIZE = "HANDLE_DATABASE_POOL_SIZE";
+  public static final String ENV_HANDLE_DATABASE_MAX_LIFETIME_SECONDS =
+      "HANDLE_DATABASE_MAX_LIFETIME_SECONDS";
+  public static final String ENV_HANDLE_DATABASE_READ_ONLY_URI = "HANDLE_DATABASE_READ_ONLY_URI";
+  public static final String ENV_HANDLE_DATABASE_PREPARE_THRESHOLD =
+      "HANDLE_DATABASE_PREPARE_THRESHOLD";
+  private static final String INVALID_AUTHORIZATION_SQL_STATE_CLASS = "28";
+  private static final String POOL_NAME = "handle-database";
+  private static final String READ_ONLY_POOL_NAME = "handle-database-read-only";
+  private static final String REWRITE_BATCHED_INSERTS = "reWriteBatchedInserts";
+  private static final String PREPARE_THRESHOLD = "prepareThreshold";
+  // The handle SQL is a small fixed set of statements, so they are prepared on the server on first
+  // use and kept in the driver's per-connection cache for the lifetime of the pooled connection.
+  private static final int DEFAULT_PREPARE_THRESHOLD = 1;
+  private static final int DEFAULT_POOL_SIZE = 2;
+  private static final int MINIMUM_IDLE_CONNECTIONS = 1;
+  private static final Duration DEFAULT_SECRET_TTL = Duration.ofMinutes(15);
+  private static final Duration DEFAULT_MAX_LIFETIME = Duration.ofMinutes(10);
+  private static final Duration KEEPALIVE_TIME = Duration.ofMinutes(2);
+  private static final Duration CONNECTION_TIMEOUT = Duration.ofSeconds(10);
+  private static final Duration VALIDATION_TIMEOUT = Duration.ofSeconds(3);
+  private static final long SKIP_INITIAL_CONNECTION = -1;
+  private static final String ACQUIRE_CONNECTION_OPERATION = "AcquireConnection";
+  private static final StatementMetrics statementMetrics = StatementMetrics.toStandardOutput();
+
+  private static CachedDatabaseSecrets databaseSecrets;
+  private static HikariDataSource dataSource;
+  private static HikariDataSource readOnlyDataSource;
 
   private DatabaseConnectionSupplier() {}
 
-  private static Connection createConnection(Environment environment, SecretsReader secretsReader) {
+  public static Supplier<Connection> getConnectionSupplier() {
+    return () -> getConnection(getDataSource());
+  }
+
+  public static Supplier<Connection> getReadOnlyConnectionSupplier() {
+    return getReplicaConnectionSupplier()
+        .orElseGet(DatabaseConnectionSupplier::getConnectionSupplier);
+  }
+
+  public static Optional<Supplier<Connection>> getReplicaConnectionSupplier() {
+    return readReadOnlyUri(new Environment())
+        .<Supplier<Connection>>map(uri -> () -> getConnection(getReadOnlyDataSource()));
+  }
+
+  public static ConnectionPoolMetrics getPoolMetrics() {
+    return toPoolMetrics(getDataSource());
+  }
+
+  private static ConnectionPoolMetrics toPoolMetrics(HikariDataSource source) {
+    var pool = source.getHikariPoolMXBean();
+    return isNull(pool)
+        ? new ConnectionPoolMetrics(0, 0, 0, 0)
+        : new ConnectionPoolMetrics(
+            pool.getActiveConnections(),
+            pool.getIdleConnections(),
+            pool.getTotalConnections(),
+            pool.getThreadsAwaitingConnection());
+  }
+
+  public static boolean isAuthenticationFailure(SQLException exception) {
+    Throwable cause = exception;
+    while (nonNull(cause)) {
+      if (cause instanceof SQLException sqlException
+          && nonNull(sqlException.getSQLState())
+          && sqlException.getSQLState().startsWith(INVALID_AUTHORIZATION_SQL_STATE_CLASS)) {
+        return true;
+      }
+      cause = cause.getCause();
+    }
+    return false;
+  }
+
+  private static Connection getConnection(HikariDataSource pool) {
     try {
-      var dbSecrets =
-          secretsReader.fetchClassSecret(
-              environment.readEnv(ENV_HANDLE_DATABASE_SECRET_NAME), HandleDatabaseSecrets.class);
-      var connection =
-          DriverManager.getConnection(dbSecrets.uri(), getConnectionProperties(dbSecrets));
-      connection.setAutoCommit(false);
-      return connection;
+      return borrowConnection(pool, getDatabaseSecrets().get());
     } catch (SQLException e) {
+      if (isAuthenticationFailure(e)) {
+        logger.warn(AUTHENTICATION_FAILED_REFRESHING_SECRET, e);
+        return borrowConnectionWithRefreshedSecrets(pool);
+      }
       logger.error(ERROR_CONNECTING_TO_HANDLE_DATABASE, e);
       throw new RuntimeException(e);
     }
   }
 
-  public static Supplier<Connection> getConnectionSupplier() {
-    return () ->
-        createConnection(new Environment(), new SecretsReader(defaultSecretsManagerClient()));
+  private static Connection borrowConnectionWithRefreshedSecrets(HikariDataSource pool) {
+    try {
+      return borrowConnection(pool, getDatabaseSecrets().refresh());
+    } catch (SQLException e) {
+      logger.error(ERROR_CONNECTING_TO_HANDLE_DATABASE, e);
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static Connection borrowConnection(HikariDataSource pool, HandleDatabaseSecrets secrets)
+      throws SQLException {
+    applyCredentials(pool, secrets);
+    var connection = statementMetrics.time(ACQUIRE_CONNECTION_OPERATION, null, pool::getConnection);
+    statementMetrics.recordPool(pool.getPoolName(), toPoolMetrics(pool));
+    return connection;
+  }
+
+  private static void applyCredentials(HikariDataSource pool, HandleDatabaseSecrets secrets) {
+    var poolConfig = pool.getHikariConfigMXBean();
+    poolConfig.setUsername(secrets.user());
+    poolConfig.setPassword(secrets.password());
+  }
+
+  private static CachedDatabaseSecrets getDatabaseSecrets() {
+    synchronized (DatabaseConnectionSupplier.class) {
+      if (isNull(databaseSecrets)) {
+        databaseSecrets = createDatabaseSecrets(new Environment());
+      }
+      return databaseSecrets;
+    }
+  }
+
+  private static CachedDatabaseSecrets createDatabaseSecrets(Environment environment) {
+    return CachedDatabaseSecrets.forSecret(
+        new SecretsReader(defaultSecretsManagerClient()),
+        environment.readEnv(ENV_HANDLE_DATABASE_SECRET_NAME),
+        environment
+            .readEnvOpt(ENV_HANDLE_DATABASE_SECRET_TTL_SECONDS)
+            .map(Long::parseLong)
+            .map(Duration::ofSeconds)
+            .orElse(DEFAULT_SECRET_TTL));
+  }
+
+  private static HikariDataSource getDataSource() {
+    synchronized (DatabaseConnectionSupplier.class) {
+      if (isNull(dataSource) || dataSource.isClosed()) {
+        dataSource =
+            new HikariDataSource(createPoolConfig(new Environment(), getDatabaseSecrets().get()));
+      }
+      return dataSource;
+    }
+  }
+
+  private static HikariDataSource getReadOnlyDataSource() {
+    synchronized (DatabaseConnectionSupplier.class) {
+      if (isNull(readOnlyDataSource) || readOnlyDataSource.isClosed()) {
+        var environment = new Environment();
+        var config = createPoolConfig(environment, getDatabaseSecrets().get());
+        config.setPoolName(READ_ONLY_POOL_NAME);
+        config.setJdbcUrl(readReadOnlyUri(environment).orElseThrow());
+        config.setReadOnly(true);
+        readOnlyDataSource = new HikariDataSource(config);
+      }
+      return readOnlyDataSource;
+    }
+  }
+
+  private static Optional<String> readReadOnlyUri(Environment environment) {
+    return environment
+        .readEnvOpt(ENV_HANDLE_DATABASE_READ_ONLY_URI)
+        .filter(uri -> !uri.isBlank());
   }
 
-  private static Properties getConnectionProperties(HandleDatabaseSecrets dbSecrets) {
-    final Properties properties = new Properties();
-    properties.setProperty(USER, dbSecrets.user());
-    properties.setProperty(PASSWORD, dbSecrets.password());
-    return properties;
+  private static HikariConfig createPoolConfig(
+      Environment environment, HandleDatabaseSecrets dbSecrets) {
+    var config = new HikariConfig();
+    config.setPoolName(POOL_NAME);
+    config.setJdbcUrl(dbSecrets.uri());
+    config.setUsername(dbSecrets.user());
+    config.setPassword(dbSecrets.password());
+    config.setAutoCommit(false);
+    config.addDataSourceProperty(REWRITE_BATCHED_INSERTS, Boolean.TRUE.toString());
+    config.addDataSourceProperty(
+        PREPARE_THRESHOLD,
+        environment
+            .readEnvOpt(ENV_HANDLE_DATABASE_PREPARE_THRESHOLD)
+            .map(Integer::parseInt)
+            .orElse(DEFAULT_PREPARE_THRESHOLD)
+            .toString());
+    config.setMaximumPoolSize(
+        environment
+            .readEnvOpt(ENV_HANDLE_DATABASE_POOL_SIZE)
+            .map(Integer::parseInt)
+            .orElse(DEFAULT_POOL_SIZE));
+    config.setMinimumIdle(MINIMUM_IDLE_CONNECTIONS);
+    config.setMaxLifetime(
+        environment
+            .readEnvOpt(ENV_HANDLE_DATABASE_MAX_LIFETIME_SECONDS)
+            .map(Long::parseLong)
+            .map(Duration::ofSeconds)
+            .orElse(DEFAULT_MAX_LIFETIME)
+            .toMillis());
+    config.setKeepaliveTime(KEEPALIVE_TIME.toMillis());
+    config.setConnectionTimeout(CONNECTION_TIMEOUT.toMillis());
+    config.setValidationTimeout(VALIDATION_TIMEOUT.toMillis());
+    config.setInitializationFailTimeout(SKIP_INITIAL_CONNECTION);
+    return config;
   }
 }
@@ -0,0 +1,89 @@
+package no.sikt.nva.handle.utils;
+
+import static java.util.Objects.nonNull;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import no.sikt.nva.handle.model.CacheStatistics;
+
+@SuppressWarnings("PMD.AvoidSynchronizedStatement")
+public class ExpiringLruCache<K, V> {
+
+  private static final int INITIAL_CAPACITY = 16;
+  private static final float LOAD_FACTOR = 0.75f;
+  private final int maximumSize;
+  private final Duration timeToLive;
+  private final Clock clock;
+  private final Map<K, Entry<V>> entries;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  public ExpiringLruCache(int maximumSize, Duration timeToLive, Clock clock) {
+    this.maximumSize = maximumSize;
+    this.timeToLive = Objects.requireNonNull(timeToLive, "Time to live is required");
+    this.clock = Objects.requireNonNull(clock, "Clock is required");
+    this.entries = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+  }
+
+  public Optional<V> get(K key) {
+    synchronized (entries) {
+      var entry = entries.get(key);
+      if (nonNull(entry) && entry.expiry().isAfter(clock.instant())) {
+        hits.incrementAndGet();
+        return Optional.of(entry.value());
+      }
+      if (nonNull(entry)) {
+        entries.remove(key);
+      }
+      misses.incrementAndGet();
+      return Optional.empty();
+    }
+  }
+
+  public void put(K key, V value) {
+    put(key, value, timeToLive);
+  }
+
+  public void put(K key, V value, Duration entryTimeToLive) {
+    if (maximumSize < 1) {
+      return;
+    }
+    synchronized (entries) {
+      entries.put(key, new Entry<>(value, clock.instant().plus(entryTimeToLive)));
+      var iterator = entries.entrySet().iterator();
+      while (entries.size() > maximumSize && iterator.hasNext()) {
+        iterator.next();
+        iterator.remove();
+      }
+    }
+  }
+
+  public void invalidate(K key) {
+    synchronized (entries) {
+      entries.remove(key);
+    }
+  }
+
+  public void invalidateIf(BiPredicate<K, V> predicate) {
+    synchronized (entries) {
+      entries
+          .entrySet()
+          .removeIf(entry -> predicate.test(entry.getKey(), entry.getValue().value()));
+    }
+  }
+
+  public CacheStatistics statistics() {
+    synchronized (entries) {
+      return new CacheStatistics(hits.get(), misses.get(), entries.size());
+    }
+  }
+
+  private record Entry<V>(V value, Instant expiry) {}
+}
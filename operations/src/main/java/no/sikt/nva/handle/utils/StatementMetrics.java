@@ -0,0 +1,151 @@
+package no.sikt.nva.handle.utils;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import no.sikt.nva.handle.model.ConnectionPoolMetrics;
+import no.unit.nva.commons.json.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Writes CloudWatch Embedded Metric Format lines, which CloudWatch turns into metrics from the
+// Lambda log stream. They go straight to stdout because EMF lines must be plain JSON objects.
+public class StatementMetrics {
+
+  public static final String NAMESPACE = "NvaHandleService";
+  public static final String LATENCY_METRIC = "StatementLatency";
+  public static final String OPERATION_DIMENSION = "Operation";
+  public static final String PREFIX_DIMENSION = "Prefix";
+  public static final String OTHER_PREFIX = "other";
+  public static final String ACTIVE_CONNECTIONS_METRIC = "PoolActiveConnections";
+  public static final String IDLE_CONNECTIONS_METRIC = "PoolIdleConnections";
+  public static final String TOTAL_CONNECTIONS_METRIC = "PoolTotalConnections";
+  public static final String AWAITING_THREADS_METRIC = "PoolAwaitingThreads";
+  public static final String CACHE_HITS_METRIC = "CacheHits";
+  public static final String CACHE_MISSES_METRIC = "CacheMisses";
+  private static final String MILLISECONDS_UNIT = "Milliseconds";
+  private static final String COUNT_UNIT = "Count";
+  private static final double NANOS_PER_MILLI = 1_000_000.0;
+  private static final Logger logger = LoggerFactory.getLogger(StatementMetrics.class);
+
+  @SuppressWarnings("PMD.SystemPrintln")
+  private static final Consumer<String> STANDARD_OUTPUT = System.out::println;
+
+  private final Consumer<String> sink;
+  private final Clock clock;
+  private final Set<String> knownPrefixes;
+
+  public StatementMetrics(Consumer<String> sink, Clock clock) {
+    this(sink, clock, Set.of());
+  }
+
+  public StatementMetrics(Consumer<String> sink, Clock clock, Set<String> knownPrefixes) {
+    this.sink = sink;
+    this.clock = clock;
+    this.knownPrefixes = Set.copyOf(knownPrefixes);
+  }
+
+  public static StatementMetrics toStandardOutput() {
+    return new StatementMetrics(STANDARD_OUTPUT, Clock.systemUTC());
+  }
+
+  public StatementMetrics withKnownPrefixes(Set<String> prefixes) {
+    return new StatementMetrics(sink, clock, prefixes);
+  }
+
+  public <T> T time(String operation, String prefix, TimedStatement<T> statement)
+      throws SQLException {
+    var start = System.nanoTime();
+    try {
+      return statement.execute();
+    } finally {
+      record(operation, prefix, Duration.ofNanos(System.nanoTime() - start));
+    }
+  }
+
+  public void record(String operation, String prefix, Duration latency) {
+    write(
+        Map.of(LATENCY_METRIC, latency.toNanos() / NANOS_PER_MILLI),
+        MILLISECONDS_UNIT,
+        operation,
+        toPrefixDimension(prefix));
+  }
+
+  public void count(String metric, String operation) {
+    write(Map.of(metric, 1), COUNT_UNIT, operation, null);
+  }
+
+  // Written as one line per call, with the cache name as operation
+  public void recordCacheLookups(String cache, String prefix, long hits, long misses) {
+    var values = new LinkedHashMap<String, Number>();
+    values.put(CACHE_HITS_METRIC, hits);
+    values.put(CACHE_MISSES_METRIC, misses);
+    write(values, COUNT_UNIT, cache, toPrefixDimension(prefix));
+  }
+
+  // Written as one line per borrow, with the pool name as operation, so the primary and read-only
+  // pools can be told apart
+  public void recordPool(String poolName, ConnectionPoolMetrics pool) {
+    var values = new LinkedHashMap<String, Number>();
+    values.put(ACTIVE_CONNECTIONS_METRIC, pool.activeConnections());
+    values.put(IDLE_CONNECTIONS_METRIC, pool.idleConnections());
+    values.put(TOTAL_CONNECTIONS_METRIC, pool.totalConnections());
+    values.put(AWAITING_THREADS_METRIC, pool.awaitingThreads());
+    write(values, COUNT_UNIT, poolName, null);
+  }
+
+  // Prefixes can come from requests, so only configured ones become dimension values and the
+  // number of metric series stays bounded
+  private String toPrefixDimension(String prefix) {
+    return isNull(prefix) || knownPrefixes.contains(prefix) ? prefix : OTHER_PREFIX;
+  }
+
+  private void write(
+      Map<String, ? extends Number> values, String unit, String operation, String prefix) {
+    try {
+      var emfLine = toEmfLine(values, unit, operation, prefix);
+      sink.accept(JsonUtils.dtoObjectMapper.writeValueAsString(emfLine));
+    } catch (JsonProcessingException e) {
+      logger.warn("Could not write {} metrics for {}", values.keySet(), operation, e);
+    }
+  }
+
+  private Map<String, Object> toEmfLine(
+      Map<String, ? extends Number> values, String unit, String operation, String prefix) {
+    var dimensions =
+        nonNull(prefix)
+            ? List.of(OPERATION_DIMENSION, PREFIX_DIMENSION)
+            : List.of(OPERATION_DIMENSION);
+    var metrics =
+        values.keySet().stream().map(metric -> Map.of("Name", metric, "Unit", unit)).toList();
+    var metricDirective =
+        Map.of(
+            "Namespace", NAMESPACE,
+            "Dimensions", List.of(dimensions),
+            "Metrics", metrics);
+    var line = new LinkedHashMap<String, Object>();
+    line.put(
+        "_aws", Map.of("Timestamp", clock.millis(), "CloudWatchMetrics", List.of(metricDirective)));
+    line.put(OPERATION_DIMENSION, operation);
+    if (nonNull(prefix)) {
+      line.put(PREFIX_DIMENSION, prefix);
+    }
+    line.putAll(values);
+    return line;
+  }
+
+  @FunctionalInterface
+  public interface TimedStatement<T> {
+
+    T execute() throws SQLException;
+  }
+}
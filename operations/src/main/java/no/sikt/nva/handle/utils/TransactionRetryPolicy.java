@@ -0,0 +1,175 @@
+package no.sikt.nva.handle.utils;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.random.RandomGenerator;
+import nva.commons.core.Environment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class TransactionRetryPolicy {
+
+  public static final String ENV_HANDLE_TRANSACTION_MAX_ATTEMPTS =
+      "HANDLE_TRANSACTION_MAX_ATTEMPTS";
+  public static final int DEFAULT_MAX_ATTEMPTS = 3;
+  public static final Duration BASE_DELAY = Duration.ofMillis(50);
+  public static final Duration MAX_DELAY = Duration.ofSeconds(1);
+  // Leaves room for rollback and the error response before the Lambda times out
+  public static final Duration RESPONSE_MARGIN = Duration.ofSeconds(1);
+  // API Gateway gives up on the integration after 29 seconds, even if the Lambda has time left
+  public static final Duration API_GATEWAY_INTEGRATION_TIMEOUT = Duration.ofSeconds(29);
+  public static final String RETRIED_METRIC = "TransactionRetried";
+  public static final String RECOVERED_METRIC = "TransactionRecovered";
+  public static final String EXHAUSTED_METRIC = "TransactionRetriesExhausted";
+  private static final String CONNECTION_EXCEPTION_SQL_STATE_CLASS = "08";
+  private static final Set<String> TRANSIENT_SQL_STATES =
+      Set.of(
+          "40001", // serialization_failure
+          "40P01", // deadlock_detected
+          "55P03", // lock_not_available
+          "57P01", // admin_shutdown
+          "57P02", // crash_shutdown
+          "57P03"); // cannot_connect_now
+  private static final int MAX_BACKOFF_SHIFT = 20;
+  private static final Logger logger = LoggerFactory.getLogger(TransactionRetryPolicy.class);
+  private final int maxAttempts;
+  private final Duration baseDelay;
+  private final Duration maxDelay;
+  private final Clock clock;
+  private final RandomGenerator random;
+  private final String operation;
+  private final StatementMetrics statementMetrics;
+
+  public TransactionRetryPolicy(String operation, Environment environment) {
+    this(
+        operation,
+        environment
+            .readEnvOpt(ENV_HANDLE_TRANSACTION_MAX_ATTEMPTS)
+            .map(Integer::parseInt)
+            .orElse(DEFAULT_MAX_ATTEMPTS),
+        BASE_DELAY,
+        MAX_DELAY,
+        Clock.systemUTC(),
+        RandomGenerator.getDefault(),
+        StatementMetrics.toStandardOutput());
+  }
+
+  public TransactionRetryPolicy(
+      String operation,
+      int maxAttempts,
+      Duration baseDelay,
+      Duration maxDelay,
+      Clock clock,
+      RandomGenerator random,
+      StatementMetrics statementMetrics) {
+    this.operation = operation;
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.baseDelay = baseDelay;
+    this.maxDelay = maxDelay;
+    this.clock = clock;
+    this.random = random;
+    this.statementMetrics = statementMetrics;
+  }
+
+  public <T> T execute(Transaction<T> transaction, Context context) throws SQLException {
+    var deadline = toDeadline(context);
+    var attempt = 1;
+    while (true) {
+      try {
+        var result = transaction.execute();
+        if (attempt > 1) {
+          statementMetrics.count(RECOVERED_METRIC, operation);
+        }
+        return result;
+      } catch (SQLException | RuntimeException e) {
+        if (!isTransient(e)) {
+          throw e;
+        }
+        var delay = backoff(attempt);
+        if (attempt >= maxAttempts || !clock.instant().plus(delay).isBefore(deadline)) {
+          statementMetrics.count(EXHAUSTED_METRIC, operation);
+          logger.warn("Giving up transaction after {} attempts", attempt);
+          throw e;
+        }
+        statementMetrics.count(RETRIED_METRIC, operation);
+        logger.warn(
+            "Transaction attempt {} of {} failed with transient error, retrying in {} ms",
+            attempt,
+            maxAttempts,
+            delay.toMillis(),
+            e);
+        if (!sleep(delay)) {
+          throw e;
+        }
+        attempt++;
+      }
+    }
+  }
+
+  public static boolean isTransient(Throwable failure) {
+    var cause = failure;
+    while (nonNull(cause)) {
+      if (cause instanceof SQLTransientException || cause instanceof SQLRecoverableException) {
+        return true;
+      }
+      if (cause instanceof SQLException sqlException
+          && isTransientSqlState(sqlException.getSQLState())) {
+        return true;
+      }
+      cause = cause.getCause() == cause ? null : cause.getCause();
+    }
+    return false;
+  }
+
+  private static boolean isTransientSqlState(String sqlState) {
+    return nonNull(sqlState)
+        && (TRANSIENT_SQL_STATES.contains(sqlState)
+            || sqlState.startsWith(CONNECTION_EXCEPTION_SQL_STATE_CLASS));
+  }
+
+  // Full jitter: a random delay between zero and the capped exponential backoff
+  private Duration backoff(int attempt) {
+    var exponential = baseDelay.toMillis() << Math.min(attempt - 1, MAX_BACKOFF_SHIFT);
+    var cap = Math.min(maxDelay.toMillis(), exponential);
+    return Duration.ofMillis(random.nextLong(cap + 1));
+  }
+
+  private Instant toDeadline(Context context) {
+    var budget =
+        isNull(context)
+            ? API_GATEWAY_INTEGRATION_TIMEOUT
+            : min(
+                Duration.ofMillis(context.getRemainingTimeInMillis()),
+                API_GATEWAY_INTEGRATION_TIMEOUT);
+    return clock.instant().plus(budget).minus(RESPONSE_MARGIN);
+  }
+
+  private static Duration min(Duration first, Duration second) {
+    return first.compareTo(second) <= 0 ? first : second;
+  }
+
+  private static boolean sleep(Duration delay) {
+    try {
+      Thread.sleep(delay);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  @FunctionalInterface
+  public interface Transaction<T> {
+
+    T execute() throws SQLException;
+  }
+}
@@ -0,0 +1,310 @@
+package no.sikt.nva.handle;
+
+import static no.sikt.nva.handle.BatchCreateHandleHandler.BATCH_TOO_LARGE_ERROR;
+import static no.sikt.nva.handle.BatchCreateHandleHandler.EMPTY_BATCH_ERROR;
+import static no.sikt.nva.handle.BatchCreateHandleHandler.MAX_BATCH_SIZE;
+import static no.sikt.nva.handle.HandleDatabase.CHARACTER_SLASH;
+import static no.sikt.nva.handle.HandleDatabase.CHECK_URLS_AND_HANDLES_SQL;
+import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_BASE_URI;
+import static no.sikt.nva.handle.HandleDatabase.CHECK_UNIQUE_HANDLE_INDEX_SQL;
+import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_PREFIX;
+import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_SUFFIX_STRATEGY;
+import static no.sikt.nva.handle.HandleDatabase.INSERT_GENERATED_HANDLES_SQL;
+import static no.sikt.nva.handle.HandleDatabase.INSERT_HANDLE_WITH_ID_SQL;
+import static no.sikt.nva.handle.HandleDatabase.LOCK_URLS_SQL;
+import static no.sikt.nva.handle.HandleDatabase.RESERVE_HANDLE_IDS_SQL;
+import static no.unit.nva.testutils.RandomDataGenerator.randomUri;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import no.sikt.nva.handle.HandleDatabase.SuffixStrategyType;
+import no.sikt.nva.handle.model.BatchHandleRequest;
+import no.sikt.nva.handle.model.BatchHandleResponse;
+import no.sikt.nva.handle.model.BatchHandleResult;
+import no.sikt.nva.handle.model.BatchHandleStatus;
+import no.sikt.nva.handle.model.HandleRequest;
+import no.unit.nva.commons.json.JsonUtils;
+import no.unit.nva.stubs.FakeContext;
+import no.unit.nva.testutils.HandlerRequestBuilder;
+import nva.commons.apigateway.GatewayResponse;
+import nva.commons.core.Environment;
+import nva.commons.core.paths.UriWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.zalando.problem.Problem;
+
+class BatchCreateHandleHandlerTest {
+
+  private static final String HANDLE_BASE_URI = "https://hdl.handle.net";
+  private static final String HANDLE_PREFIX = "11250.1";
+  private static final String EXISTING_HANDLE = HANDLE_PREFIX + CHARACTER_SLASH + "1111";
+  private static final int FIRST_RESERVED_ID = 2222;
+  private static final int SECOND_RESERVED_ID = 2223;
+  private static final String MINTED_HANDLE = HANDLE_PREFIX + CHARACTER_SLASH + FIRST_RESERVED_ID;
+  private static final String ENV_ALLOWED_ORIGIN = "ALLOWED_ORIGIN";
+  private static final String ENV_API_HOST = "API_HOST";
+  private static final String COGNITO_AUTHORIZER_URLS = "COGNITO_AUTHORIZER_URLS";
+  private FakeContext context;
+  private BatchCreateHandleHandler handler;
+  private Connection connection;
+  private Environment environment;
+  private ByteArrayOutputStream outputStream;
+
+  @BeforeEach
+  void init() {
+    environment = mock(Environment.class);
+    when(environment.readEnv(ENV_HANDLE_BASE_URI)).thenReturn(HANDLE_BASE_URI);
+    when(environment.readEnv(ENV_HANDLE_PREFIX)).thenReturn(HANDLE_PREFIX);
+    when(environment.readEnv(ENV_API_HOST)).thenReturn("api.localhost.nva.aws.unit.no");
+    when(environment.readEnv(ENV_ALLOWED_ORIGIN)).thenReturn("*");
+    when(environment.readEnv(COGNITO_AUTHORIZER_URLS)).thenReturn("http://localhost:3000");
+
+    this.context = new FakeContext();
+    this.outputStream = new ByteArrayOutputStream();
+    this.connection = mock(Connection.class);
+    this.handler = new BatchCreateHandleHandler(environment, () -> connection);
+  }
+
+  @Test
+  void shouldReturnCreatedReusedAndConflictingResultsPerEntry() throws IOException, SQLException {
+    var existingUri = randomUri();
+    var newUri = randomUri();
+    var importedUri = randomUri();
+    var requests =
+        List.of(
+            new HandleRequest(existingUri),
+            new HandleRequest(newUri),
+            new HandleRequest(newUri),
+            new HandleRequest(importedUri, "some-prefix", "some-suffix"),
+            new HandleRequest(randomUri(), HANDLE_PREFIX, "1111"));
+    mockExistingHandle(existingUri);
+    mockReservedIds(FIRST_RESERVED_ID, SECOND_RESERVED_ID);
+    var insertStatement = mockInsertHandles(2);
+
+    handler.handleRequest(createBatchRequest(requests), outputStream, context);
+    var response = GatewayResponse.fromOutputStream(outputStream, BatchHandleResponse.class);
+    var results = response.getBodyObject(BatchHandleResponse.class).results();
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_OK)));
+    assertResult(results.get(0), BatchHandleStatus.REUSED, EXISTING_HANDLE);
+    assertResult(results.get(1), BatchHandleStatus.CREATED, MINTED_HANDLE);
+    assertResult(results.get(2), BatchHandleStatus.REUSED, MINTED_HANDLE);
+    assertResult(results.get(3), BatchHandleStatus.CREATED, "some-prefix/some-suffix");
+    assertResult(results.get(4), BatchHandleStatus.CONFLICT, EXISTING_HANDLE);
+    assertThat(results.get(4).message(), containsString(EXISTING_HANDLE));
+    verify(insertStatement, times(2)).addBatch();
+    verify(insertStatement, times(1)).executeBatch();
+    verify(connection, times(1)).commit();
+  }
+
+  @Test
+  void shouldReturnBadRequestResultForEntryWithSuffixButNoPrefix()
+      throws IOException, SQLException {
+    var requests =
+        List.of(new HandleRequest(randomUri()), new HandleRequest(randomUri(), null, "1234"));
+    mockExistingHandle(randomUri());
+    mockReservedIds(FIRST_RESERVED_ID);
+    var insertStatement = mockInsertHandles(1);
+
+    handler.handleRequest(createBatchRequest(requests), outputStream, context);
+    var response = GatewayResponse.fromOutputStream(outputStream, BatchHandleResponse.class);
+    var results = response.getBodyObject(BatchHandleResponse.class).results();
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_OK)));
+    assertResult(results.get(0), BatchHandleStatus.CREATED, MINTED_HANDLE);
+    assertThat(results.get(1).status(), is(equalTo(BatchHandleStatus.BAD_REQUEST)));
+    assertThat(results.get(1).handle(), is(nullValue()));
+    verify(insertStatement, times(1)).addBatch();
+  }
+
+  @Test
+  void shouldLockUrlsAndInsertGeneratedSuffixesWhenSuffixStrategyIsConfigured()
+      throws IOException, SQLException {
+    when(environment.readEnvOpt(ENV_HANDLE_SUFFIX_STRATEGY))
+        .thenReturn(Optional.of(SuffixStrategyType.RANDOM.name()));
+    var uniqueIndexStatement = mockStatement(CHECK_UNIQUE_HANDLE_INDEX_SQL);
+    when(uniqueIndexStatement.executeQuery()).thenReturn(resultSetOf(new Object[] {1}));
+    var randomSuffixHandler = new BatchCreateHandleHandler(environment, () -> connection);
+    var existingUri = randomUri();
+    var requests = List.of(new HandleRequest(existingUri), new HandleRequest(randomUri()));
+    var lockStatement = mockStatement(LOCK_URLS_SQL);
+    var checkStatement = mockExistingHandle(existingUri);
+    var arrays = captureArrays();
+    var insertStatement = mockStatement(INSERT_GENERATED_HANDLES_SQL);
+    // The first generated suffix is taken, the second is inserted
+    when(insertStatement.executeQuery())
+        .thenAnswer(invocation -> resultSetOf(new Object[0]))
+        .thenAnswer(invocation -> resultSetOf(arrays.get(arrays.size() - 2)));
+
+    randomSuffixHandler.handleRequest(createBatchRequest(requests), outputStream, context);
+    var response = GatewayResponse.fromOutputStream(outputStream, BatchHandleResponse.class);
+    var results = response.getBodyObject(BatchHandleResponse.class).results();
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_OK)));
+    assertResult(results.get(0), BatchHandleStatus.REUSED, EXISTING_HANDLE);
+    assertThat(results.get(1).status(), is(equalTo(BatchHandleStatus.CREATED)));
+    var insertedHandle = (String) arrays.get(arrays.size() - 2)[0];
+    assertThat(results.get(1).handle(), is(equalTo(toFullHandle(insertedHandle))));
+    var inOrder = inOrder(lockStatement, checkStatement, insertStatement);
+    inOrder.verify(lockStatement).execute();
+    inOrder.verify(checkStatement).executeQuery();
+    inOrder.verify(insertStatement, times(2)).executeQuery();
+    verify(connection, never()).prepareStatement(RESERVE_HANDLE_IDS_SQL);
+  }
+
+  @Test
+  void shouldNotInsertAnythingWhenAllEntriesAreReused() throws IOException, SQLException {
+    var existingUri = randomUri();
+    mockExistingHandle(existingUri);
+
+    handler.handleRequest(
+        createBatchRequest(List.of(new HandleRequest(existingUri))), outputStream, context);
+    var response = GatewayResponse.fromOutputStream(outputStream, BatchHandleResponse.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_OK)));
+    assertResult(
+        response.getBodyObject(BatchHandleResponse.class).results().getFirst(),
+        BatchHandleStatus.REUSED,
+        EXISTING_HANDLE);
+    verify(connection, never()).prepareStatement(RESERVE_HANDLE_IDS_SQL);
+    verify(connection, never()).prepareStatement(INSERT_HANDLE_WITH_ID_SQL);
+  }
+
+  @Test
+  void shouldReturnBadGatewayAndRollbackWhenBatchInsertFails() throws IOException, SQLException {
+    mockExistingHandle(randomUri());
+    mockReservedIds(FIRST_RESERVED_ID);
+    var insertStatement = mock(PreparedStatement.class);
+    when(insertStatement.executeBatch()).thenThrow(new SQLException("duplicate key"));
+    when(connection.prepareStatement(INSERT_HANDLE_WITH_ID_SQL)).thenReturn(insertStatement);
+
+    handler.handleRequest(
+        createBatchRequest(List.of(new HandleRequest(randomUri()))), outputStream, context);
+    var response = GatewayResponse.fromOutputStream(outputStream, Problem.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_BAD_GATEWAY)));
+    verify(connection, times(1)).rollback();
+  }
+
+  @Test
+  void shouldReturnBadRequestWhenBatchIsEmpty() throws IOException {
+    handler.handleRequest(createBatchRequest(List.of()), outputStream, context);
+    var response = GatewayResponse.fromOutputStream(outputStream, Problem.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_BAD_REQUEST)));
+    assertThat(response.getBody(), containsString(EMPTY_BATCH_ERROR));
+  }
+
+  @Test
+  void shouldReturnBadRequestWhenBatchIsTooLarge() throws IOException {
+    var requests = Collections.nCopies(MAX_BATCH_SIZE + 1, new HandleRequest(randomUri()));
+
+    handler.handleRequest(createBatchRequest(requests), outputStream, context);
+    var response = GatewayResponse.fromOutputStream(outputStream, Problem.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_BAD_REQUEST)));
+    assertThat(response.getBody(), containsString(BATCH_TOO_LARGE_ERROR));
+  }
+
+  private void assertResult(
+      BatchHandleResult result, BatchHandleStatus expectedStatus, String expectedLocalHandle) {
+    assertThat(result.status(), is(equalTo(expectedStatus)));
+    assertThat(result.handle(), is(equalTo(toFullHandle(expectedLocalHandle))));
+  }
+
+  private static URI toFullHandle(String handleLocalPart) {
+    return UriWrapper.fromHost(HANDLE_BASE_URI).addChild(handleLocalPart).getUri();
+  }
+
+  private static InputStream createBatchRequest(List<HandleRequest> requests)
+      throws JsonProcessingException {
+    return new HandlerRequestBuilder<BatchHandleRequest>(JsonUtils.dtoObjectMapper)
+        .withBody(new BatchHandleRequest(requests))
+        .build();
+  }
+
+  private PreparedStatement mockExistingHandle(URI existingUri) throws SQLException {
+    var preparedStatement = mock(PreparedStatement.class);
+    var resultSet = mock(ResultSet.class);
+    when(resultSet.next()).thenReturn(true, false);
+    when(resultSet.getString(1)).thenReturn(EXISTING_HANDLE);
+    when(resultSet.getString(2)).thenReturn(existingUri.toString());
+    when(preparedStatement.executeQuery()).thenReturn(resultSet);
+    when(connection.prepareStatement(CHECK_URLS_AND_HANDLES_SQL)).thenReturn(preparedStatement);
+    return preparedStatement;
+  }
+
+  private PreparedStatement mockStatement(String sql) throws SQLException {
+    var preparedStatement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(sql)).thenReturn(preparedStatement);
+    return preparedStatement;
+  }
+
+  private List<Object[]> captureArrays() throws SQLException {
+    var arrays = new ArrayList<Object[]>();
+    when(connection.createArrayOf(anyString(), any()))
+        .thenAnswer(
+            invocation -> {
+              arrays.add(invocation.getArgument(1));
+              return null;
+            });
+    return arrays;
+  }
+
+  private static ResultSet resultSetOf(Object[] values) throws SQLException {
+    var resultSet = mock(ResultSet.class);
+    var row = new AtomicInteger(-1);
+    when(resultSet.next()).thenAnswer(invocation -> row.incrementAndGet() < values.length);
+    when(resultSet.getString(1)).thenAnswer(invocation -> String.valueOf(values[row.get()]));
+    return resultSet;
+  }
+
+  private void mockReservedIds(Integer firstId, Integer... otherIds) throws SQLException {
+    var preparedStatement = mock(PreparedStatement.class);
+    var resultSet = mock(ResultSet.class);
+    var hasNext = new Boolean[otherIds.length + 1];
+    Arrays.fill(hasNext, Boolean.TRUE);
+    hasNext[otherIds.length] = Boolean.FALSE;
+    when(resultSet.next()).thenReturn(true, hasNext);
+    when(resultSet.getInt(anyInt())).thenReturn(firstId, otherIds);
+    when(preparedStatement.executeQuery()).thenReturn(resultSet);
+    when(connection.prepareStatement(RESERVE_HANDLE_IDS_SQL)).thenReturn(preparedStatement);
+  }
+
+  private PreparedStatement mockInsertHandles(int numberOfRows) throws SQLException {
+    var preparedStatement = mock(PreparedStatement.class);
+    var updateCounts = new int[numberOfRows];
+    Arrays.fill(updateCounts, 1);
+    when(preparedStatement.executeBatch()).thenReturn(updateCounts);
+    when(connection.prepareStatement(INSERT_HANDLE_WITH_ID_SQL)).thenReturn(preparedStatement);
+    return preparedStatement;
+  }
+}
@@ -0,0 +1,173 @@
+package no.sikt.nva.handle;
+
+import static no.sikt.nva.handle.BatchUpdateHandleHandler.CHUNK_SIZE;
+import static no.sikt.nva.handle.BatchUpdateHandleHandler.EMPTY_BATCH_ERROR;
+import static no.sikt.nva.handle.BatchUpdateHandleHandler.INCOMPLETE_HANDLE_ERROR;
+import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_BASE_URI;
+import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_PREFIX;
+import static no.sikt.nva.handle.HandleDatabase.SET_URI_BY_HANDLE_SQL;
+import static no.unit.nva.testutils.RandomDataGenerator.randomString;
+import static no.unit.nva.testutils.RandomDataGenerator.randomUri;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Every.everyItem;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.IntStream;
+import no.sikt.nva.handle.model.BatchHandleRequest;
+import no.sikt.nva.handle.model.BatchHandleResponse;
+import no.sikt.nva.handle.model.BatchHandleResult;
+import no.sikt.nva.handle.model.BatchHandleStatus;
+import no.sikt.nva.handle.model.HandleRequest;
+import no.unit.nva.commons.json.JsonUtils;
+import no.unit.nva.stubs.FakeContext;
+import no.unit.nva.testutils.HandlerRequestBuilder;
+import nva.commons.apigateway.GatewayResponse;
+import nva.commons.core.Environment;
+import nva.commons.core.paths.UriWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.zalando.problem.Problem;
+
+class BatchUpdateHandleHandlerTest {
+
+  private static final String HANDLE_BASE_URI = "https://hdl.handle.net";
+  private static final String HANDLE_PREFIX = "11250.1";
+  private static final String ENV_ALLOWED_ORIGIN = "ALLOWED_ORIGIN";
+  private static final String ENV_API_HOST = "API_HOST";
+  private static final String COGNITO_AUTHORIZER_URLS = "COGNITO_AUTHORIZER_URLS";
+  private FakeContext context;
+  private BatchUpdateHandleHandler handler;
+  private Connection connection;
+  private PreparedStatement updateStatement;
+  private ByteArrayOutputStream outputStream;
+
+  @BeforeEach
+  void init() throws SQLException {
+    this.context = new FakeContext();
+    this.outputStream = new ByteArrayOutputStream();
+    this.connection = mock(Connection.class);
+    this.updateStatement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(SET_URI_BY_HANDLE_SQL)).thenReturn(updateStatement);
+    this.handler = new BatchUpdateHandleHandler(mockEnvironment(), () -> connection);
+  }
+
+  @Test
+  void shouldReportUpdatedAndNotFoundHandlesPerEntry() throws IOException, SQLException {
+    var existing = new HandleRequest(randomUri(), HANDLE_PREFIX, randomString());
+    var missing = new HandleRequest(randomUri(), HANDLE_PREFIX, randomString());
+    when(updateStatement.executeBatch()).thenReturn(new int[] {1, 0});
+
+    handler.handleRequest(createBatchRequest(List.of(existing, missing)), outputStream, context);
+    var response = GatewayResponse.fromOutputStream(outputStream, BatchHandleResponse.class);
+    var results = response.getBodyObject(BatchHandleResponse.class).results();
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_OK)));
+    assertResult(results.get(0), existing, BatchHandleStatus.UPDATED);
+    assertResult(results.get(1), missing, BatchHandleStatus.NOT_FOUND);
+    verify(updateStatement, times(2)).addBatch();
+    verify(updateStatement, times(1)).executeBatch();
+    verify(connection, times(1)).commit();
+  }
+
+  @Test
+  void shouldCommitEachChunkSeparatelyAndReportFailedChunk() throws IOException, SQLException {
+    var requests =
+        IntStream.rangeClosed(0, CHUNK_SIZE)
+            .mapToObj(index -> new HandleRequest(randomUri(), HANDLE_PREFIX, randomString()))
+            .toList();
+    when(updateStatement.executeBatch())
+        .thenThrow(new SQLException("deadlock detected"))
+        .thenReturn(new int[] {1});
+
+    handler.handleRequest(createBatchRequest(requests), outputStream, context);
+    var response = GatewayResponse.fromOutputStream(outputStream, BatchHandleResponse.class);
+    var results = response.getBodyObject(BatchHandleResponse.class).results();
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_OK)));
+    assertThat(
+        results.subList(0, CHUNK_SIZE).stream().map(BatchHandleResult::status).toList(),
+        everyItem(is(BatchHandleStatus.FAILED)));
+    assertResult(results.get(CHUNK_SIZE), requests.get(CHUNK_SIZE), BatchHandleStatus.UPDATED);
+    verify(connection, times(1)).rollback();
+    verify(connection, times(1)).commit();
+  }
+
+  @Test
+  void shouldReturnBadRequestWhenBatchIsEmpty() throws IOException {
+    handler.handleRequest(createBatchRequest(List.of()), outputStream, context);
+    var response = GatewayResponse.fromOutputStream(outputStream, Problem.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_BAD_REQUEST)));
+    assertThat(response.getBody(), containsString(EMPTY_BATCH_ERROR));
+  }
+
+  @Test
+  void shouldReturnBadRequestWhenEntryIsMissingSuffix() throws IOException {
+    var requests = List.of(new HandleRequest(randomUri(), HANDLE_PREFIX, null));
+
+    handler.handleRequest(createBatchRequest(requests), outputStream, context);
+    var response = GatewayResponse.fromOutputStream(outputStream, Problem.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_BAD_REQUEST)));
+    assertThat(response.getBody(), containsString(INCOMPLETE_HANDLE_ERROR));
+  }
+
+  @Test
+  void shouldReturnBadGatewayWhenConnectionIsUnavailable() throws IOException {
+    var failingHandler =
+        new BatchUpdateHandleHandler(
+            mockEnvironment(),
+            () -> {
+              throw new IllegalStateException("Connection is not available");
+            });
+    var requests = List.of(new HandleRequest(randomUri(), HANDLE_PREFIX, randomString()));
+
+    failingHandler.handleRequest(createBatchRequest(requests), outputStream, context);
+    var response = GatewayResponse.fromOutputStream(outputStream, Problem.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_BAD_GATEWAY)));
+  }
+
+  private static void assertResult(
+      BatchHandleResult result, HandleRequest request, BatchHandleStatus expectedStatus) {
+    var expectedHandle =
+        UriWrapper.fromHost(HANDLE_BASE_URI)
+            .addChild(request.prefix() + "/" + request.suffix())
+            .getUri();
+    assertThat(result.status(), is(equalTo(expectedStatus)));
+    assertThat(result.uri(), is(equalTo(request.uri())));
+    assertThat(result.handle(), is(equalTo(expectedHandle)));
+  }
+
+  private static Environment mockEnvironment() {
+    var environment = mock(Environment.class);
+    when(environment.readEnv(ENV_HANDLE_BASE_URI)).thenReturn(HANDLE_BASE_URI);
+    when(environment.readEnv(ENV_HANDLE_PREFIX)).thenReturn(HANDLE_PREFIX);
+    when(environment.readEnv(ENV_API_HOST)).thenReturn("api.localhost.nva.aws.unit.no");
+    when(environment.readEnv(ENV_ALLOWED_ORIGIN)).thenReturn("*");
+    when(environment.readEnv(COGNITO_AUTHORIZER_URLS)).thenReturn("http://localhost:3000");
+    return environment;
+  }
+
+  private static InputStream createBatchRequest(List<HandleRequest> requests)
+      throws JsonProcessingException {
+    return new HandlerRequestBuilder<BatchHandleRequest>(JsonUtils.dtoObjectMapper)
+        .withBody(new BatchHandleRequest(requests))
+        .build();
+  }
+}
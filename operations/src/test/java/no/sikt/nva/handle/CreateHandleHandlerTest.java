@@ -2,12 +2,16 @@ package no.sikt.nva.handle;
 
 import static no.sikt.nva.handle.HandleDatabase.CHARACTER_SLASH;
 import static no.sikt.nva.handle.HandleDatabase.CHECK_HANDLE_SQL;
+import static no.sikt.nva.handle.HandleDatabase.CHECK_UNIQUE_HANDLE_INDEX_SQL;
 import static no.sikt.nva.handle.HandleDatabase.CHECK_URL_SQL;
 import static no.sikt.nva.handle.HandleDatabase.CREATED_HANDLE_FOR_URI;
 import static no.sikt.nva.handle.HandleDatabase.CREATE_ID_SQL;
 import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_BASE_URI;
 import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_PREFIX;
+import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_SUFFIX_STRATEGY;
 import static no.sikt.nva.handle.HandleDatabase.ERROR_CREATING_HANDLE_FOR_URI;
+import static no.sikt.nva.handle.HandleDatabase.INSERT_HANDLE_SQL;
+import static no.sikt.nva.handle.HandleDatabase.MINT_HANDLE_SQL;
 import static no.sikt.nva.handle.HandleDatabase.REUSED_EXISTING_HANDLE_FOR_URI;
 import static no.sikt.nva.handle.HandleDatabase.SET_HANDLE_AND_URI_BY_ID_SQL;
 import static no.unit.nva.testutils.RandomDataGenerator.randomUri;
@@ -19,10 +23,12 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.amazonaws.services.lambda.runtime.Context;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -33,7 +39,10 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Optional;
 import java.util.function.Supplier;
+import no.sikt.nva.handle.HandleDatabase.SuffixStrategyType;
 import no.sikt.nva.handle.exceptions.CreateHandleException;
 import no.sikt.nva.handle.model.HandleRequest;
 import no.sikt.nva.handle.model.HandleResponse;
@@ -41,6 +50,7 @@ import no.unit.nva.commons.json.JsonUtils;
 import no.unit.nva.stubs.FakeContext;
 import no.unit.nva.testutils.HandlerRequestBuilder;
 import nva.commons.apigateway.GatewayResponse;
+import nva.commons.apigateway.exceptions.ApiGatewayException;
 import nva.commons.core.Environment;
 import nva.commons.core.paths.UriWrapper;
 import nva.commons.logutils.LogRecorder;
@@ -95,6 +105,22 @@ class CreateHandleHandlerTest {
     verify(connection, times(1)).commit();
   }
 
+  @Test
+  void shouldFailAtStartupWhenSuffixesAreGeneratedWithoutUniqueHandleIndex() throws SQLException {
+    when(environment.readEnvOpt(ENV_HANDLE_SUFFIX_STRATEGY))
+        .thenReturn(Optional.of(SuffixStrategyType.RANDOM.name()));
+    var checkIndexStatement = mock(PreparedStatement.class);
+    var noIndex = mock(ResultSet.class);
+    when(noIndex.next()).thenReturn(false);
+    when(checkIndexStatement.executeQuery()).thenReturn(noIndex);
+    when(connection.prepareStatement(CHECK_UNIQUE_HANDLE_INDEX_SQL))
+        .thenReturn(checkIndexStatement);
+
+    assertThrows(
+        IllegalStateException.class, () -> new CreateHandleHandler(environment, () -> connection));
+    verify(connection).rollback();
+  }
+
   @Test
   void createHandleRequestReturnsSuccessfulHandleForArbitraryPrefixes()
       throws IOException, SQLException {
@@ -148,6 +174,79 @@ class CreateHandleHandlerTest {
         is(equalTo(createHandleFromHandleId(EXISTING_HANDLE_ID))));
   }
 
+  @Test
+  void createHandleRequestReturnsExistingHandleFromReadReplicaWithoutUsingPrimary()
+      throws IOException, SQLException {
+    var primaryConnection = mock(Connection.class);
+    var replicaHandler =
+        new CreateHandleHandler(environment, () -> primaryConnection, () -> connection);
+    mockHandleDatabaseCreateHandle(true, false, false);
+
+    replicaHandler.handleRequest(createCreateHandleRequest(randomUri()), outputStream, context);
+    var response = GatewayResponse.fromOutputStream(outputStream, HandleResponse.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_CREATED)));
+    assertThat(
+        response.getBodyObject(HandleResponse.class).handle(),
+        is(equalTo(createHandleFromHandleId(EXISTING_HANDLE_ID))));
+    verify(primaryConnection, never()).prepareStatement(CHECK_URL_SQL);
+    verify(primaryConnection, never()).commit();
+  }
+
+  @Test
+  void createHandleRequestChecksForReusableHandleOnlyInWriteTransactionWithoutReadReplica()
+      throws IOException, SQLException {
+    mockHandleDatabaseCreateHandle(false, true, true);
+
+    handler.handleRequest(createCreateHandleRequest(randomUri()), outputStream, context);
+
+    verify(connection, times(1)).prepareStatement(CHECK_URL_SQL);
+    verify(connection, times(1)).commit();
+  }
+
+  @Test
+  void createHandleRequestCreatesHandleOnPrimaryWhenReadReplicaIsUnavailable()
+      throws IOException, SQLException {
+    var replicaHandler =
+        new CreateHandleHandler(
+            environment,
+            () -> connection,
+            () -> {
+              throw new IllegalStateException("Connection is not available");
+            });
+    mockHandleDatabaseCreateHandle(false, true, true);
+
+    replicaHandler.handleRequest(createCreateHandleRequest(randomUri()), outputStream, context);
+    var response = GatewayResponse.fromOutputStream(outputStream, HandleResponse.class);
+
+    assertThat(
+        response.getBodyObject(HandleResponse.class).handle(),
+        is(equalTo(createHandleFromHandleId(CREATED_HANDLE_ID))));
+    verify(connection, times(1)).commit();
+  }
+
+  @Test
+  void createHandleRequestRetriesWhenConnectionIsTemporarilyUnavailable()
+      throws SQLException, ApiGatewayException {
+    @SuppressWarnings("unchecked")
+    var connectionSupplier = (Supplier<Connection>) mock(Supplier.class);
+    when(connectionSupplier.get())
+        .thenThrow(new IllegalStateException(new SQLTransientConnectionException("timeout")))
+        .thenReturn(connection);
+    var retryingHandler =
+        new CreateHandleHandler(environment, connectionSupplier, () -> connection);
+    var lambdaContext = mock(Context.class);
+    when(lambdaContext.getRemainingTimeInMillis()).thenReturn(30_000);
+    mockHandleDatabaseCreateHandle(false, true, true);
+    var request = new HandleRequest(randomUri());
+
+    var response = retryingHandler.processInput(request, null, lambdaContext);
+
+    assertThat(response.handle(), is(equalTo(createHandleFromHandleId(CREATED_HANDLE_ID))));
+    verify(connectionSupplier, times(2)).get();
+    verify(connection, times(1)).commit();
+  }
+
   @Test
   void createHandleRequestReturnsBadRequestResponseWhenUriIsNull() throws IOException {
     var inputStream = createCreateHandleRequest(null);
@@ -241,6 +340,14 @@ class CreateHandleHandlerTest {
         createPreparedStatementSetHandle(successfulCreateHandle);
     when(connection.prepareStatement(SET_HANDLE_AND_URI_BY_ID_SQL))
         .thenReturn(preparedStatementSetHandle);
+
+    PreparedStatement preparedStatementMintHandle =
+        createPreparedStatementMintHandle(successfulCreateHandleId, successfulCreateHandle);
+    when(connection.prepareStatement(MINT_HANDLE_SQL)).thenReturn(preparedStatementMintHandle);
+
+    PreparedStatement preparedStatementInsertHandle =
+        createPreparedStatementSetHandle(successfulCreateHandle);
+    when(connection.prepareStatement(INSERT_HANDLE_SQL)).thenReturn(preparedStatementInsertHandle);
   }
 
   private PreparedStatement createPreparedStatementCheckUrl(boolean uriAlreadyExists)
@@ -268,6 +375,16 @@ class CreateHandleHandlerTest {
     return preparedStatement;
   }
 
+  private PreparedStatement createPreparedStatementMintHandle(
+      boolean successfulCreateHandleId, boolean successfulCreateHandle) throws SQLException {
+    if (successfulCreateHandleId && !successfulCreateHandle) {
+      PreparedStatement preparedStatement = mock(PreparedStatement.class);
+      when(preparedStatement.executeQuery()).thenThrow(new SQLException());
+      return preparedStatement;
+    }
+    return createPreparedStatementCreateId(successfulCreateHandleId);
+  }
+
   private PreparedStatement createPreparedStatementSetHandle(boolean success) throws SQLException {
     PreparedStatement preparedStatement = mock(PreparedStatement.class);
     if (success) {
@@ -0,0 +1,158 @@
+package no.sikt.nva.handle;
+
+import static no.sikt.nva.handle.ExportHandlesHandler.DEFAULT_OVERLAP;
+import static no.sikt.nva.handle.ExportHandlesHandler.ENV_HANDLE_EXPORT_BUCKET;
+import static no.sikt.nva.handle.export.HandleExporter.EXPORT_HANDLES_SQL;
+import static no.sikt.nva.handle.export.HandleExporter.EXPORT_WATERMARK_SQL;
+import static no.unit.nva.commons.json.JsonUtils.dtoObjectMapper;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import no.sikt.nva.handle.exceptions.ExportHandlesException;
+import no.sikt.nva.handle.export.HandleExportFormat;
+import no.sikt.nva.handle.model.HandleExportRequest;
+import no.sikt.nva.handle.model.HandleExportResponse;
+import no.unit.nva.stubs.FakeContext;
+import nva.commons.core.Environment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+class ExportHandlesHandlerTest {
+
+  private static final String BUCKET = "handle-export";
+  private static final Instant WATERMARK = Instant.parse("2024-02-01T00:00:00Z");
+  private static final Instant CREATED_AFTER = Instant.parse("2024-01-01T00:00:00Z");
+  private ExportHandlesHandler handler;
+  private PreparedStatement exportStatement;
+  private ResultSet watermarkResultSet;
+  private S3Client s3Client;
+
+  @BeforeEach
+  void init() throws SQLException {
+    var environment = mock(Environment.class);
+    when(environment.readEnv(ENV_HANDLE_EXPORT_BUCKET)).thenReturn(BUCKET);
+    var connection = mock(Connection.class);
+    this.exportStatement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(
+            EXPORT_HANDLES_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY))
+        .thenReturn(exportStatement);
+    var watermarkStatement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(EXPORT_WATERMARK_SQL)).thenReturn(watermarkStatement);
+    this.watermarkResultSet = mock(ResultSet.class);
+    when(watermarkResultSet.next()).thenReturn(true);
+    when(watermarkResultSet.getTimestamp(1)).thenReturn(Timestamp.from(WATERMARK));
+    when(watermarkStatement.executeQuery()).thenReturn(watermarkResultSet);
+    this.s3Client = mock(S3Client.class);
+    this.handler = new ExportHandlesHandler(environment, () -> connection, s3Client);
+  }
+
+  @Test
+  void shouldUploadExportAndReturnWatermarkForNextIncrementalExport()
+      throws IOException, SQLException {
+    var resultSet = mock(ResultSet.class);
+    when(resultSet.next()).thenReturn(true, false);
+    when(resultSet.getString(1)).thenReturn("11250.1/1");
+    when(resultSet.getString(2)).thenReturn("https://example.org/1");
+    when(resultSet.getTimestamp(3)).thenReturn(Timestamp.from(CREATED_AFTER.plusSeconds(1)));
+    when(exportStatement.executeQuery()).thenReturn(resultSet);
+
+    var response = export(new HandleExportRequest(HandleExportFormat.CSV, CREATED_AFTER));
+
+    var windowStart = CREATED_AFTER.minus(DEFAULT_OVERLAP);
+    var expectedKey = "handles/handles-" + windowStart + "-" + WATERMARK + ".csv.gz";
+    assertThat(
+        response,
+        is(
+            equalTo(
+                new HandleExportResponse(
+                    URI.create("s3://" + BUCKET + "/" + expectedKey),
+                    HandleExportFormat.CSV,
+                    windowStart,
+                    WATERMARK,
+                    1))));
+    var putObjectRequest = ArgumentCaptor.forClass(PutObjectRequest.class);
+    verify(s3Client).putObject(putObjectRequest.capture(), any(RequestBody.class));
+    assertThat(putObjectRequest.getValue().bucket(), is(equalTo(BUCKET)));
+    assertThat(putObjectRequest.getValue().key(), is(equalTo(expectedKey)));
+  }
+
+  @Test
+  void shouldExportLateCommittedRowWithEarlierDateCreatedInNextWindow()
+      throws IOException, SQLException {
+    var firstResultSet = mock(ResultSet.class);
+    when(firstResultSet.next()).thenReturn(false);
+    when(exportStatement.executeQuery()).thenReturn(firstResultSet);
+    var firstExport = export(new HandleExportRequest(HandleExportFormat.NDJSON, CREATED_AFTER));
+
+    // Created before the first watermark, but only committed after the first export ran.
+    var lateCommittedDateCreated = firstExport.watermark().minusSeconds(30);
+    var secondWatermark = firstExport.watermark().plus(Duration.ofHours(1));
+    when(watermarkResultSet.getTimestamp(1)).thenReturn(Timestamp.from(secondWatermark));
+    var secondResultSet = mock(ResultSet.class);
+    when(secondResultSet.next()).thenReturn(true, false);
+    when(secondResultSet.getString(1)).thenReturn("11250.1/late");
+    when(secondResultSet.getString(2)).thenReturn("https://example.org/late");
+    when(secondResultSet.getTimestamp(3)).thenReturn(Timestamp.from(lateCommittedDateCreated));
+    when(exportStatement.executeQuery()).thenReturn(secondResultSet);
+    var secondExport =
+        export(new HandleExportRequest(HandleExportFormat.NDJSON, firstExport.watermark()));
+
+    assertThat(firstExport.rows(), is(equalTo(0L)));
+    assertThat(secondExport.rows(), is(equalTo(1L)));
+    assertThat(secondExport.createdAfter().isBefore(lateCommittedDateCreated), is(equalTo(true)));
+    verify(exportStatement)
+        .setTimestamp(1, Timestamp.from(firstExport.watermark().minus(DEFAULT_OVERLAP)));
+  }
+
+  @Test
+  void shouldExportEverythingAsNdjsonByDefault() throws IOException, SQLException {
+    var resultSet = mock(ResultSet.class);
+    when(resultSet.next()).thenReturn(false);
+    when(exportStatement.executeQuery()).thenReturn(resultSet);
+
+    var response = export(new HandleExportRequest(null, null));
+
+    assertThat(response.format(), is(equalTo(HandleExportFormat.NDJSON)));
+    assertThat(response.createdAfter(), is(equalTo(Instant.EPOCH)));
+    verify(exportStatement).setTimestamp(1, Timestamp.from(Instant.EPOCH));
+  }
+
+  @Test
+  void shouldNotUploadAnythingWhenQueryFails() throws SQLException {
+    when(exportStatement.executeQuery()).thenThrow(new SQLException("canceling statement"));
+
+    assertThrows(
+        ExportHandlesException.class,
+        () -> export(new HandleExportRequest(HandleExportFormat.NDJSON, null)));
+    verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+  }
+
+  private HandleExportResponse export(HandleExportRequest request) throws IOException {
+    var input = new ByteArrayInputStream(dtoObjectMapper.writeValueAsBytes(request));
+    var output = new ByteArrayOutputStream();
+    handler.handleRequest(input, output, new FakeContext());
+    return dtoObjectMapper.readValue(output.toByteArray(), HandleExportResponse.class);
+  }
+}
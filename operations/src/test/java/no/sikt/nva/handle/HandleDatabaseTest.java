@@ -1,27 +1,67 @@
 package no.sikt.nva.handle;
 
 import static no.sikt.nva.handle.HandleDatabase.CHARACTER_SLASH;
+import static no.sikt.nva.handle.HandleDatabase.CHECK_HANDLE_SQL;
+import static no.sikt.nva.handle.HandleDatabase.CHECK_UNIQUE_HANDLE_INDEX_SQL;
 import static no.sikt.nva.handle.HandleDatabase.CHECK_URL_SQL;
 import static no.sikt.nva.handle.HandleDatabase.CREATE_ID_SQL;
 import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_BASE_URI;
+import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_ID_BLOCK_SIZE;
+import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_METRIC_PREFIXES;
+import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_MINTING_MODE;
 import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_PREFIX;
+import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_REUSE_CACHE_TTL_SECONDS;
+import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_SUFFIX_LENGTH;
+import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_SUFFIX_STRATEGY;
+import static no.sikt.nva.handle.HandleDatabase.INSERT_HANDLE_SQL;
+import static no.sikt.nva.handle.HandleDatabase.INSERT_HANDLE_WITH_ID_SQL;
+import static no.sikt.nva.handle.HandleDatabase.LOCK_URL_SQL;
+import static no.sikt.nva.handle.HandleDatabase.MINT_HANDLE_SQL;
+import static no.sikt.nva.handle.HandleDatabase.REPOINT_HANDLES_BY_URL_PREFIX_SQL;
+import static no.sikt.nva.handle.HandleDatabase.RESERVE_HANDLE_IDS_SQL;
+import static no.sikt.nva.handle.HandleDatabase.RESOLVE_HANDLE_SQL;
 import static no.sikt.nva.handle.HandleDatabase.SET_HANDLE_AND_URI_BY_ID_SQL;
+import static no.sikt.nva.handle.HandleDatabase.SET_URI_BY_HANDLE_SQL;
+import static no.sikt.nva.handle.HandleDatabase.UPSERT_HANDLE_SQL;
+import static no.sikt.nva.handle.HandleDatabase.UPSERT_MINT_HANDLE_SQL;
+import static no.sikt.nva.handle.utils.StatementMetrics.CACHE_HITS_METRIC;
+import static no.sikt.nva.handle.utils.StatementMetrics.CACHE_MISSES_METRIC;
+import static no.sikt.nva.handle.utils.StatementMetrics.LATENCY_METRIC;
+import static no.sikt.nva.handle.utils.StatementMetrics.OPERATION_DIMENSION;
+import static no.sikt.nva.handle.utils.StatementMetrics.OTHER_PREFIX;
+import static no.sikt.nva.handle.utils.StatementMetrics.PREFIX_DIMENSION;
 import static no.unit.nva.testutils.RandomDataGenerator.randomUri;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.hamcrest.core.StringContains.containsString;
+import static org.hamcrest.core.StringStartsWith.startsWith;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import java.net.URI;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import no.sikt.nva.handle.HandleDatabase.MintingMode;
+import no.sikt.nva.handle.HandleDatabase.SuffixStrategyType;
+import no.sikt.nva.handle.exceptions.HandleAlreadyExistException;
+import no.sikt.nva.handle.model.CacheStatistics;
+import no.sikt.nva.handle.utils.StatementMetrics;
+import no.unit.nva.commons.json.JsonUtils;
 import nva.commons.core.Environment;
 import nva.commons.core.paths.UriWrapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -37,10 +77,12 @@ class HandleDatabaseTest {
 
   private HandleDatabase handleDatabase;
   private Connection connection;
+  private Environment environment;
+  private PreparedStatement lockStatement;
 
   @BeforeEach
   void setUp() {
-    var environment = mock(Environment.class);
+    environment = mock(Environment.class);
     when(environment.readEnv(ENV_HANDLE_BASE_URI)).thenReturn(HANDLE_BASE_URI);
     when(environment.readEnv(ENV_HANDLE_PREFIX)).thenReturn(DEFAULT_PREFIX);
 
@@ -71,6 +113,59 @@ class HandleDatabaseTest {
     assertThat(result, is(equalTo(expectedHandle)));
   }
 
+  @Test
+  void shouldFilterExistingHandlesByPrefixInDatabase() throws SQLException {
+    var uri = randomUri();
+    var checkUrlStatement =
+        createPreparedStatementCheckUrl(true, CUSTOM_PREFIX, EXISTING_HANDLE_ID);
+    when(connection.prepareStatement(CHECK_URL_SQL)).thenReturn(checkUrlStatement);
+
+    handleDatabase.createHandle(CUSTOM_PREFIX, uri, connection);
+
+    verify(checkUrlStatement).setString(1, uri.toString());
+    verify(checkUrlStatement).setString(2, CUSTOM_PREFIX);
+    verify(checkUrlStatement).setString(3, uri.toString());
+  }
+
+  @Test
+  void shouldEmitStatementLatencyForEachStatementWithOperationAndPrefix()
+      throws SQLException, JsonProcessingException {
+    when(environment.readEnvOpt(ENV_HANDLE_METRIC_PREFIXES)).thenReturn(Optional.of(CUSTOM_PREFIX));
+    var lines = new ArrayList<String>();
+    var instrumentedDatabase =
+        new HandleDatabase(environment, new StatementMetrics(lines::add, Clock.systemUTC()));
+    mockHandleDatabaseForNewHandle();
+
+    instrumentedDatabase.createHandle(CUSTOM_PREFIX, randomUri(), connection);
+
+    var operations = new ArrayList<String>();
+    for (var line : lines) {
+      var metric = JsonUtils.dtoObjectMapper.readTree(line);
+      if (!metric.has(LATENCY_METRIC)) {
+        continue;
+      }
+      assertThat(metric.get(PREFIX_DIMENSION).asText(), is(equalTo(CUSTOM_PREFIX)));
+      operations.add(metric.get(OPERATION_DIMENSION).asText());
+    }
+    assertThat(operations, is(equalTo(List.of("CheckUrl", "MintHandle"))));
+  }
+
+  @Test
+  void shouldEmitStatementLatencyWithOtherPrefixWhenPrefixIsNotConfigured()
+      throws SQLException, JsonProcessingException {
+    var lines = new ArrayList<String>();
+    var instrumentedDatabase =
+        new HandleDatabase(environment, new StatementMetrics(lines::add, Clock.systemUTC()));
+    mockHandleDatabaseForNewHandle();
+
+    instrumentedDatabase.createHandle(CUSTOM_PREFIX, randomUri(), connection);
+
+    for (var line : lines) {
+      var metric = JsonUtils.dtoObjectMapper.readTree(line);
+      assertThat(metric.get(PREFIX_DIMENSION).asText(), is(equalTo(OTHER_PREFIX)));
+    }
+  }
+
   @Test
   void shouldCreateHandleWithCustomPrefixAndSuffixGeneratedByDatabaseId() throws SQLException {
     mockHandleDatabaseForNewHandle();
@@ -90,10 +185,428 @@ class HandleDatabaseTest {
         RuntimeException.class, () -> handleDatabase.createHandle(CUSTOM_PREFIX, uri, connection));
   }
 
+  @Test
+  void shouldMintHandleWithSingleStatementByDefault() throws SQLException {
+    mockHandleDatabaseForNewHandle();
+
+    var result = handleDatabase.createHandle(CUSTOM_PREFIX, randomUri(), connection);
+
+    assertThat(result, is(equalTo(createExpectedHandle(Integer.toString(GENERATED_HANDLE_ID)))));
+    verify(connection).prepareStatement(MINT_HANDLE_SQL);
+    verify(connection, never()).prepareStatement(CREATE_ID_SQL);
+    verify(connection, never()).prepareStatement(SET_HANDLE_AND_URI_BY_ID_SQL);
+  }
+
+  @Test
+  void shouldInsertHandleWithProvidedSuffixWithSingleStatementByDefault() throws SQLException {
+    var suffix = "some-suffix";
+    mockHandleDatabaseForNewHandle();
+
+    var result = handleDatabase.createHandle(CUSTOM_PREFIX, suffix, randomUri(), connection);
+
+    assertThat(result, is(equalTo(createExpectedHandle(suffix))));
+    verify(connection).prepareStatement(INSERT_HANDLE_SQL);
+    verify(connection, never()).prepareStatement(CREATE_ID_SQL);
+  }
+
+  @Test
+  void shouldMintHandleInTwoStepsWhenTwoStepMintingModeIsConfigured() throws SQLException {
+    when(environment.readEnvOpt(ENV_HANDLE_MINTING_MODE))
+        .thenReturn(Optional.of(MintingMode.TWO_STEP.name()));
+    var twoStepHandleDatabase = new HandleDatabase(environment);
+    mockHandleDatabaseForNewHandle();
+
+    var result = twoStepHandleDatabase.createHandle(CUSTOM_PREFIX, randomUri(), connection);
+
+    assertThat(result, is(equalTo(createExpectedHandle(Integer.toString(GENERATED_HANDLE_ID)))));
+    verify(connection).prepareStatement(CREATE_ID_SQL);
+    verify(connection).prepareStatement(SET_HANDLE_AND_URI_BY_ID_SQL);
+    verify(connection, never()).prepareStatement(MINT_HANDLE_SQL);
+  }
+
+  @Test
+  void shouldMintHandleWithUpsertWhenUpsertMintingModeIsConfigured() throws SQLException {
+    var upsertStatement = createPreparedStatementUpsert(CUSTOM_PREFIX, GENERATED_HANDLE_ID, true);
+    when(connection.prepareStatement(UPSERT_MINT_HANDLE_SQL)).thenReturn(upsertStatement);
+
+    var result = createUpsertHandleDatabase().createHandle(CUSTOM_PREFIX, randomUri(), connection);
+
+    assertThat(result, is(equalTo(createExpectedHandle(Integer.toString(GENERATED_HANDLE_ID)))));
+    verify(connection, never()).prepareStatement(CHECK_URL_SQL);
+    verify(connection, never()).prepareStatement(MINT_HANDLE_SQL);
+  }
+
+  @Test
+  void shouldReturnExistingHandleFromUpsertWithoutSeparateLookup() throws SQLException {
+    var upsertStatement = createPreparedStatementUpsert(CUSTOM_PREFIX, EXISTING_HANDLE_ID, false);
+    when(connection.prepareStatement(UPSERT_MINT_HANDLE_SQL)).thenReturn(upsertStatement);
+
+    var result = createUpsertHandleDatabase().createHandle(CUSTOM_PREFIX, randomUri(), connection);
+
+    assertThat(result, is(equalTo(createExpectedHandle(Integer.toString(EXISTING_HANDLE_ID)))));
+    verify(connection, never()).prepareStatement(CHECK_URL_SQL);
+  }
+
+  @Test
+  void shouldLockUrlInSameRoundTripAsUpsertSoConcurrentUpsertSeesCommittedHandle()
+      throws SQLException {
+    var uri = randomUri();
+    var upsertStatement = createPreparedStatementUpsert(CUSTOM_PREFIX, EXISTING_HANDLE_ID, false);
+    when(connection.prepareStatement(UPSERT_MINT_HANDLE_SQL)).thenReturn(upsertStatement);
+    var upsertHandleDatabase = createUpsertHandleDatabase();
+
+    upsertHandleDatabase.createHandle(CUSTOM_PREFIX, uri, connection);
+
+    assertThat(UPSERT_MINT_HANDLE_SQL, startsWith(LOCK_URL_SQL + ";"));
+    verify(upsertStatement).setString(1, CUSTOM_PREFIX);
+    verify(upsertStatement).setString(2, uri.toString());
+    verify(upsertStatement, times(1)).execute();
+    verify(connection, never()).prepareStatement(LOCK_URL_SQL);
+  }
+
+  @Test
+  void shouldThrowRuntimeExceptionWhenUpsertReturnsNoRow() throws SQLException {
+    var uri = randomUri();
+    var upsertStatement = createPreparedStatementUpsertWithoutResult();
+    when(connection.prepareStatement(UPSERT_MINT_HANDLE_SQL)).thenReturn(upsertStatement);
+    var upsertHandleDatabase = createUpsertHandleDatabase();
+
+    assertThrows(
+        RuntimeException.class,
+        () -> upsertHandleDatabase.createHandle(CUSTOM_PREFIX, uri, connection));
+    verify(connection, never()).prepareStatement(CHECK_URL_SQL);
+  }
+
+  @Test
+  void shouldUpdateHandleToUrlOfAnotherHandleWhenUpsertMintingModeIsConfigured()
+      throws SQLException {
+    var sharedUri = randomUri();
+    var upsertStatement = createPreparedStatementUpsert(CUSTOM_PREFIX, GENERATED_HANDLE_ID, true);
+    when(connection.prepareStatement(UPSERT_MINT_HANDLE_SQL)).thenReturn(upsertStatement);
+    var updateStatement = createPreparedStatementSetHandle();
+    when(connection.prepareStatement(SET_URI_BY_HANDLE_SQL)).thenReturn(updateStatement);
+    var upsertHandleDatabase = createUpsertHandleDatabase();
+    upsertHandleDatabase.createHandle(CUSTOM_PREFIX, sharedUri, connection);
+
+    var result =
+        upsertHandleDatabase.updateHandle(
+            CUSTOM_PREFIX, Integer.toString(EXISTING_HANDLE_ID), sharedUri, connection);
+
+    assertThat(result, is(equalTo(createExpectedHandle(Integer.toString(EXISTING_HANDLE_ID)))));
+    verify(updateStatement).setString(1, sharedUri.toString());
+    verify(upsertStatement, times(1)).execute();
+    verify(connection, never()).prepareStatement(LOCK_URL_SQL);
+  }
+
+  @Test
+  void shouldRepointHandlesOntoUrlsOfOtherHandlesWhenUpsertMintingModeIsConfigured()
+      throws SQLException {
+    var repointStatement = mock(PreparedStatement.class);
+    var repointed = mock(ResultSet.class);
+    when(repointed.next()).thenReturn(true, false);
+    when(repointed.getInt(1)).thenReturn(EXISTING_HANDLE_ID);
+    when(repointStatement.executeQuery()).thenReturn(repointed);
+    when(connection.prepareStatement(REPOINT_HANDLES_BY_URL_PREFIX_SQL))
+        .thenReturn(repointStatement);
+
+    var result =
+        createUpsertHandleDatabase()
+            .repointHandlesByUrlPrefix(
+                "https://old.example.org/", "https://example.org/", 0, 10, connection);
+
+    assertThat(result, is(equalTo(List.of(EXISTING_HANDLE_ID))));
+    verify(connection, never()).prepareStatement(LOCK_URL_SQL);
+  }
+
+  @Test
+  void shouldEscapeLikeWildcardsInUrlPrefix() {
+    assertThat(
+        HandleDatabase.escapeLikePattern("https://example.org/a_b%c\\d"),
+        is(equalTo("https://example.org/a\\_b\\%c\\\\d")));
+  }
+
+  @Test
+  void shouldInsertHandleWithProvidedSuffixWithUpsert() throws SQLException {
+    var suffix = "some-suffix";
+    var upsertStatement = mock(PreparedStatement.class);
+    var resultSet = mock(ResultSet.class);
+    when(resultSet.next()).thenReturn(true);
+    when(resultSet.getString(1)).thenReturn(CUSTOM_PREFIX + CHARACTER_SLASH + suffix);
+    when(upsertStatement.executeQuery()).thenReturn(resultSet);
+    when(connection.prepareStatement(UPSERT_HANDLE_SQL)).thenReturn(upsertStatement);
+
+    var result =
+        createUpsertHandleDatabase().createHandle(CUSTOM_PREFIX, suffix, randomUri(), connection);
+
+    assertThat(result, is(equalTo(createExpectedHandle(suffix))));
+    verify(connection, never()).prepareStatement(CHECK_HANDLE_SQL);
+  }
+
+  @Test
+  void shouldThrowHandleAlreadyExistExceptionWhenUpsertOfProvidedSuffixConflicts()
+      throws SQLException {
+    var suffix = "some-suffix";
+    var uri = randomUri();
+    var upsertStatement = createPreparedStatementUpsertWithoutResult();
+    when(connection.prepareStatement(UPSERT_HANDLE_SQL)).thenReturn(upsertStatement);
+    var upsertHandleDatabase = createUpsertHandleDatabase();
+
+    var exception =
+        assertThrows(
+            HandleAlreadyExistException.class,
+            () -> upsertHandleDatabase.createHandle(CUSTOM_PREFIX, suffix, uri, connection));
+
+    assertThat(exception.getMessage(), containsString(CUSTOM_PREFIX + CHARACTER_SLASH + suffix));
+    verify(connection, never()).prepareStatement(CHECK_HANDLE_SQL);
+    verify(connection, never()).prepareStatement(CHECK_URL_SQL);
+  }
+
+  @Test
+  void shouldMintHandlesFromPreallocatedIdBlockWhenPreallocatedMintingModeIsConfigured()
+      throws SQLException {
+    when(environment.readEnvOpt(ENV_HANDLE_MINTING_MODE))
+        .thenReturn(Optional.of(MintingMode.PREALLOCATED.name()));
+    when(environment.readEnvOpt(ENV_HANDLE_ID_BLOCK_SIZE)).thenReturn(Optional.of("2"));
+    var preallocatingHandleDatabase = new HandleDatabase(environment);
+    var checkUrlStatement = createPreparedStatementCheckUrl(false, null, 0);
+    when(connection.prepareStatement(CHECK_URL_SQL)).thenReturn(checkUrlStatement);
+    var reserveStatement = mock(PreparedStatement.class);
+    var reservedIds = mock(ResultSet.class);
+    when(reservedIds.next()).thenReturn(true, true, false);
+    when(reservedIds.getInt(1)).thenReturn(GENERATED_HANDLE_ID, GENERATED_HANDLE_ID + 1);
+    when(reserveStatement.executeQuery()).thenReturn(reservedIds);
+    when(connection.prepareStatement(RESERVE_HANDLE_IDS_SQL)).thenReturn(reserveStatement);
+    var insertStatement = createPreparedStatementSetHandle();
+    when(connection.prepareStatement(INSERT_HANDLE_WITH_ID_SQL)).thenReturn(insertStatement);
+
+    var first = preallocatingHandleDatabase.createHandle(CUSTOM_PREFIX, randomUri(), connection);
+    var second = preallocatingHandleDatabase.createHandle(CUSTOM_PREFIX, randomUri(), connection);
+
+    assertThat(first, is(equalTo(createExpectedHandle(Integer.toString(GENERATED_HANDLE_ID)))));
+    assertThat(
+        second, is(equalTo(createExpectedHandle(Integer.toString(GENERATED_HANDLE_ID + 1)))));
+    verify(reserveStatement).setInt(1, 2);
+    verify(reserveStatement, times(1)).executeQuery();
+    verify(connection, never()).prepareStatement(MINT_HANDLE_SQL);
+  }
+
+  @Test
+  void shouldRetryWithNewRandomSuffixWhenGeneratedHandleCollides() throws SQLException {
+    when(environment.readEnvOpt(ENV_HANDLE_SUFFIX_STRATEGY))
+        .thenReturn(Optional.of(SuffixStrategyType.RANDOM.name()));
+    when(environment.readEnvOpt(ENV_HANDLE_SUFFIX_LENGTH)).thenReturn(Optional.of("8"));
+    var randomSuffixHandleDatabase = new HandleDatabase(environment);
+    mockLockStatement();
+    var checkUrlStatement = createPreparedStatementCheckUrl(false, null, 0);
+    when(connection.prepareStatement(CHECK_URL_SQL)).thenReturn(checkUrlStatement);
+    var insertStatement = mock(PreparedStatement.class);
+    var collision = mock(ResultSet.class);
+    when(collision.next()).thenReturn(false);
+    var inserted = mock(ResultSet.class);
+    when(inserted.next()).thenReturn(true);
+    when(inserted.getString(1)).thenReturn(CUSTOM_PREFIX + CHARACTER_SLASH + "abcd1234");
+    when(insertStatement.executeQuery()).thenReturn(collision, inserted);
+    when(connection.prepareStatement(UPSERT_HANDLE_SQL)).thenReturn(insertStatement);
+
+    var result = randomSuffixHandleDatabase.createHandle(CUSTOM_PREFIX, randomUri(), connection);
+
+    assertThat(result, is(equalTo(createExpectedHandle("abcd1234"))));
+    verify(insertStatement, times(2)).executeQuery();
+    verify(connection, never()).prepareStatement(CHECK_HANDLE_SQL);
+    verify(connection, never()).prepareStatement(MINT_HANDLE_SQL);
+  }
+
+  @Test
+  void shouldReturnHandleCreatedConcurrentlyForSameUriWhenSuffixesAreGenerated()
+      throws SQLException {
+    when(environment.readEnvOpt(ENV_HANDLE_SUFFIX_STRATEGY))
+        .thenReturn(Optional.of(SuffixStrategyType.TIME_ORDERED.name()));
+    var timeOrderedHandleDatabase = new HandleDatabase(environment);
+    mockLockStatement();
+    var checkUrlStatement =
+        createPreparedStatementCheckUrl(true, CUSTOM_PREFIX, EXISTING_HANDLE_ID);
+    when(connection.prepareStatement(CHECK_URL_SQL)).thenReturn(checkUrlStatement);
+
+    var result = timeOrderedHandleDatabase.createHandle(CUSTOM_PREFIX, randomUri(), connection);
+
+    assertThat(result, is(equalTo(createExpectedHandle(Integer.toString(EXISTING_HANDLE_ID)))));
+    var inOrder = inOrder(lockStatement, checkUrlStatement);
+    inOrder.verify(lockStatement).execute();
+    inOrder.verify(checkUrlStatement).executeQuery();
+    verify(connection, never()).prepareStatement(UPSERT_HANDLE_SQL);
+  }
+
+  @Test
+  void shouldFailWhenUniqueHandleIndexIsMissing() throws SQLException {
+    when(environment.readEnvOpt(ENV_HANDLE_SUFFIX_STRATEGY))
+        .thenReturn(Optional.of(SuffixStrategyType.RANDOM.name()));
+    var randomSuffixHandleDatabase = new HandleDatabase(environment);
+    var checkIndexStatement = createPreparedStatementCheckUrl(false, null, 0);
+    when(connection.prepareStatement(CHECK_UNIQUE_HANDLE_INDEX_SQL))
+        .thenReturn(checkIndexStatement);
+
+    assertThat(randomSuffixHandleDatabase.requiresUniqueHandleIndex(), is(equalTo(true)));
+    assertThrows(
+        IllegalStateException.class,
+        () -> randomSuffixHandleDatabase.verifyUniqueHandleIndex(connection));
+  }
+
+  @Test
+  void shouldAnswerRepeatedRegistrationOfSameUriFromReuseCache() throws SQLException {
+    var uri = randomUri();
+    mockHandleDatabaseForNewHandle();
+
+    var first = handleDatabase.createHandle(CUSTOM_PREFIX, uri, connection);
+    var second = handleDatabase.createHandle(CUSTOM_PREFIX, uri, connection);
+
+    assertThat(second, is(equalTo(first)));
+    verify(connection, times(1)).prepareStatement(CHECK_URL_SQL);
+    verify(connection, times(1)).prepareStatement(MINT_HANDLE_SQL);
+    verify(connection, never()).prepareStatement(RESOLVE_HANDLE_SQL);
+    assertThat(handleDatabase.getReuseCacheStatistics(), is(equalTo(new CacheStatistics(1, 1, 1))));
+  }
+
+  @Test
+  void shouldLookUpDatabaseAgainWhenCachedHandleHasExpired() throws SQLException {
+    when(environment.readEnvOpt(ENV_HANDLE_REUSE_CACHE_TTL_SECONDS)).thenReturn(Optional.of("0"));
+    var expiringCacheDatabase = new HandleDatabase(environment);
+    var uri = randomUri();
+    mockHandleDatabaseForNewHandle();
+
+    expiringCacheDatabase.createHandle(CUSTOM_PREFIX, uri, connection);
+    expiringCacheDatabase.createHandle(CUSTOM_PREFIX, uri, connection);
+
+    verify(connection, times(2)).prepareStatement(CHECK_URL_SQL);
+  }
+
+  @Test
+  void shouldEmitReuseCacheHitsAndMisses() throws SQLException, JsonProcessingException {
+    var lines = new ArrayList<String>();
+    var instrumentedDatabase =
+        new HandleDatabase(environment, new StatementMetrics(lines::add, Clock.systemUTC()));
+    var uri = randomUri();
+    mockHandleDatabaseForNewHandle();
+
+    instrumentedDatabase.createHandle(CUSTOM_PREFIX, uri, connection);
+    instrumentedDatabase.createHandle(CUSTOM_PREFIX, uri, connection);
+
+    var hits = 0;
+    var misses = 0;
+    for (var line : lines) {
+      var metric = JsonUtils.dtoObjectMapper.readTree(line);
+      if (metric.has(CACHE_HITS_METRIC)) {
+        hits += metric.get(CACHE_HITS_METRIC).asInt();
+        misses += metric.get(CACHE_MISSES_METRIC).asInt();
+      }
+    }
+    assertThat(hits, is(equalTo(1)));
+    assertThat(misses, is(equalTo(1)));
+  }
+
+  @Test
+  void shouldEmitResolutionCacheHitsAndMisses() throws SQLException, JsonProcessingException {
+    var lines = new ArrayList<String>();
+    var instrumentedDatabase =
+        new HandleDatabase(environment, new StatementMetrics(lines::add, Clock.systemUTC()));
+    var resolveStatement = mock(PreparedStatement.class);
+    var resolveResult = mock(ResultSet.class);
+    when(resolveResult.next()).thenReturn(true);
+    when(resolveResult.getString(1)).thenReturn(randomUri().toString());
+    when(resolveStatement.executeQuery()).thenReturn(resolveResult);
+    when(connection.prepareStatement(RESOLVE_HANDLE_SQL)).thenReturn(resolveStatement);
+
+    instrumentedDatabase.resolveHandle(CUSTOM_PREFIX, "suffix", connection);
+    instrumentedDatabase.resolveHandle(CUSTOM_PREFIX, "suffix", connection);
+
+    var hits = 0;
+    var misses = 0;
+    for (var line : lines) {
+      var metric = JsonUtils.dtoObjectMapper.readTree(line);
+      if (metric.has(CACHE_HITS_METRIC)) {
+        assertThat(
+            metric.get(OPERATION_DIMENSION).asText(), is(equalTo("HandleResolutionCache")));
+        hits += metric.get(CACHE_HITS_METRIC).asInt();
+        misses += metric.get(CACHE_MISSES_METRIC).asInt();
+      }
+    }
+    assertThat(hits, is(equalTo(1)));
+    assertThat(misses, is(equalTo(1)));
+  }
+
+  @Test
+  void shouldNotCacheHandlesThatWereOnlyLookedUp() throws SQLException {
+    var uri = randomUri();
+    mockHandleDatabaseForExistingHandle();
+
+    handleDatabase.createHandle(CUSTOM_PREFIX, uri, connection);
+    handleDatabase.createHandle(CUSTOM_PREFIX, uri, connection);
+
+    verify(connection, times(2)).prepareStatement(CHECK_URL_SQL);
+    assertThat(handleDatabase.getReuseCacheStatistics().size(), is(equalTo(0)));
+  }
+
+  @Test
+  void shouldLookUpDatabaseAgainAfterCachedHandleIsUpdated() throws SQLException {
+    var uri = randomUri();
+    mockHandleDatabaseForNewHandle();
+    var updateStatement = createPreparedStatementSetHandle();
+    when(connection.prepareStatement(SET_URI_BY_HANDLE_SQL)).thenReturn(updateStatement);
+
+    handleDatabase.createHandle(CUSTOM_PREFIX, uri, connection);
+    handleDatabase.updateHandle(
+        CUSTOM_PREFIX, Integer.toString(GENERATED_HANDLE_ID), randomUri(), connection);
+    handleDatabase.createHandle(CUSTOM_PREFIX, uri, connection);
+
+    verify(connection, times(2)).prepareStatement(CHECK_URL_SQL);
+  }
+
+  private HandleDatabase createUpsertHandleDatabase() throws SQLException {
+    when(environment.readEnvOpt(ENV_HANDLE_MINTING_MODE))
+        .thenReturn(Optional.of(MintingMode.UPSERT.name()));
+    return new HandleDatabase(environment);
+  }
+
+  private void mockLockStatement() throws SQLException {
+    lockStatement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(LOCK_URL_SQL)).thenReturn(lockStatement);
+  }
+
+  private static PreparedStatement createPreparedStatementUpsert(
+      String prefix, int handleId, boolean created) throws SQLException {
+    var preparedStatement = mock(PreparedStatement.class);
+    var resultSet = mock(ResultSet.class);
+    when(resultSet.next()).thenReturn(true);
+    when(resultSet.getString(1)).thenReturn(prefix + CHARACTER_SLASH + handleId);
+    when(resultSet.getBoolean(2)).thenReturn(created);
+    when(preparedStatement.getMoreResults()).thenReturn(true);
+    when(preparedStatement.getResultSet()).thenReturn(resultSet);
+    return preparedStatement;
+  }
+
+  private static PreparedStatement createPreparedStatementUpsertWithoutResult()
+      throws SQLException {
+    var preparedStatement = mock(PreparedStatement.class);
+    var resultSet = mock(ResultSet.class);
+    when(resultSet.next()).thenReturn(false);
+    when(preparedStatement.executeQuery()).thenReturn(resultSet);
+    when(preparedStatement.getMoreResults()).thenReturn(true);
+    when(preparedStatement.getResultSet()).thenReturn(resultSet);
+    return preparedStatement;
+  }
+
   private void mockHandleDatabaseForNewHandle() throws SQLException {
     var checkUrlStatement = createPreparedStatementCheckUrl(false, null, 0);
     when(connection.prepareStatement(CHECK_URL_SQL)).thenReturn(checkUrlStatement);
 
+    var checkHandleStatement = createPreparedStatementCheckUrl(false, null, 0);
+    when(connection.prepareStatement(CHECK_HANDLE_SQL)).thenReturn(checkHandleStatement);
+
+    var mintHandleStatement = createPreparedStatementCreateId();
+    when(connection.prepareStatement(MINT_HANDLE_SQL)).thenReturn(mintHandleStatement);
+
+    var insertHandleStatement = createPreparedStatementSetHandle();
+    when(connection.prepareStatement(INSERT_HANDLE_SQL)).thenReturn(insertHandleStatement);
+
     var createIdStatement = createPreparedStatementCreateId();
     when(connection.prepareStatement(CREATE_ID_SQL)).thenReturn(createIdStatement);
 
@@ -112,6 +625,9 @@ class HandleDatabaseTest {
     var checkUrlStatement = createPreparedStatementCheckUrl(false, null, 0);
     when(connection.prepareStatement(CHECK_URL_SQL)).thenReturn(checkUrlStatement);
 
+    var mintHandleStatement = createPreparedStatementCreateIdFailing();
+    when(connection.prepareStatement(MINT_HANDLE_SQL)).thenReturn(mintHandleStatement);
+
     var createIdStatement = createPreparedStatementCreateIdFailing();
     when(connection.prepareStatement(CREATE_ID_SQL)).thenReturn(createIdStatement);
   }
@@ -0,0 +1,77 @@
+package no.sikt.nva.handle;
+
+import static no.sikt.nva.handle.HandleDatabase.RESERVE_HANDLE_IDS_SQL;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HandleIdAllocatorTest {
+
+  private static final int BLOCK_SIZE = 3;
+  private Connection connection;
+  private PreparedStatement reserveStatement;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    connection = mock(Connection.class);
+    reserveStatement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(RESERVE_HANDLE_IDS_SQL)).thenReturn(reserveStatement);
+  }
+
+  @Test
+  void shouldHandOutReservedIdsWithoutReservingAgainUntilBlockIsExhausted() throws SQLException {
+    var firstBlock = resultSetOf(101, 102, 103);
+    var secondBlock = resultSetOf(201, 202, 203);
+    when(reserveStatement.executeQuery()).thenReturn(firstBlock, secondBlock);
+    var allocator = new HandleIdAllocator(BLOCK_SIZE);
+
+    var handleIds = new ArrayList<Integer>();
+    for (var i = 0; i < 4; i++) {
+      handleIds.add(allocator.nextId(connection));
+    }
+
+    assertThat(handleIds, is(equalTo(List.of(101, 102, 103, 201))));
+    verify(reserveStatement, times(2)).executeQuery();
+    verify(reserveStatement, times(2)).setInt(1, BLOCK_SIZE);
+  }
+
+  @Test
+  void shouldThrowWhenDatabaseReservesFewerIdsThanRequested() throws SQLException {
+    var shortBlock = resultSetOf(101);
+    when(reserveStatement.executeQuery()).thenReturn(shortBlock);
+    var allocator = new HandleIdAllocator(BLOCK_SIZE);
+
+    assertThrows(IllegalStateException.class, () -> allocator.nextId(connection));
+  }
+
+  @Test
+  void shouldRejectBlockSizeLessThanOne() {
+    assertThrows(IllegalArgumentException.class, () -> new HandleIdAllocator(0));
+  }
+
+  private static ResultSet resultSetOf(Integer first, Integer... others) throws SQLException {
+    var resultSet = mock(ResultSet.class);
+    var hasNext = new Boolean[others.length + 1];
+    for (var i = 0; i < others.length; i++) {
+      hasNext[i] = true;
+    }
+    hasNext[others.length] = false;
+    when(resultSet.next()).thenReturn(true, hasNext);
+    when(resultSet.getInt(1)).thenReturn(first, others);
+    return resultSet;
+  }
+}
@@ -0,0 +1,126 @@
+package no.sikt.nva.handle;
+
+import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_BASE_URI;
+import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_PREFIX;
+import static no.sikt.nva.handle.HandleImporter.COPY_TO_STAGING_TABLE_SQL;
+import static no.sikt.nva.handle.HandleImporter.CREATE_STAGING_TABLE_SQL;
+import static no.sikt.nva.handle.HandleImporter.FIND_CONFLICTS_SQL;
+import static no.sikt.nva.handle.HandleImporter.MAX_REPORTED_CONFLICTS;
+import static no.sikt.nva.handle.HandleImporter.MERGE_STAGING_TABLE_SQL;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URI;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import no.sikt.nva.handle.model.HandleImportConflict;
+import no.sikt.nva.handle.model.HandleImportResponse;
+import nva.commons.core.Environment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+class HandleImporterTest {
+
+  private static final String HANDLE_BASE_URI = "https://hdl.handle.net";
+  private static final String HANDLE_PREFIX = "11250.1";
+  private static final URI EXISTING_HANDLE = URI.create(HANDLE_BASE_URI + "/11250.1/existing");
+  private Connection connection;
+  private Statement statement;
+  private CopyManager copyManager;
+  private PreparedStatement conflictStatement;
+  private PreparedStatement mergeStatement;
+  private HandleImporter importer;
+
+  @BeforeEach
+  void init() throws SQLException {
+    var environment = mock(Environment.class);
+    when(environment.readEnv(ENV_HANDLE_BASE_URI)).thenReturn(HANDLE_BASE_URI);
+    when(environment.readEnv(ENV_HANDLE_PREFIX)).thenReturn(HANDLE_PREFIX);
+    this.connection = mock(Connection.class);
+    this.statement = mock(Statement.class);
+    when(connection.createStatement()).thenReturn(statement);
+    var pgConnection = mock(PGConnection.class);
+    this.copyManager = mock(CopyManager.class);
+    when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+    when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+    this.conflictStatement = mock(PreparedStatement.class);
+    this.mergeStatement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(FIND_CONFLICTS_SQL)).thenReturn(conflictStatement);
+    when(connection.prepareStatement(MERGE_STAGING_TABLE_SQL)).thenReturn(mergeStatement);
+    this.importer = new HandleImporter(new HandleDatabase(environment));
+  }
+
+  @Test
+  void shouldCopyToStagingTableAndMergeReportingExistingHandlesAsConflicts()
+      throws SQLException, IOException {
+    var csv = new StringReader("prefix,suffix,url\n11250.1,existing,https://example.org/1\n");
+    when(copyManager.copyIn(COPY_TO_STAGING_TABLE_SQL, csv)).thenReturn(3L);
+    var conflictResult = mock(ResultSet.class);
+    when(conflictResult.next()).thenReturn(true, false);
+    when(conflictResult.getLong(1)).thenReturn(2L);
+    when(conflictResult.getString(2)).thenReturn(HANDLE_PREFIX);
+    when(conflictResult.getString(3)).thenReturn("existing");
+    when(conflictResult.getLong(4)).thenReturn(1L);
+    when(conflictStatement.executeQuery()).thenReturn(conflictResult);
+    when(mergeStatement.executeLargeUpdate()).thenReturn(2L);
+
+    var response = importer.importHandles(csv, connection);
+
+    var expectedConflict =
+        new HandleImportConflict(2, EXISTING_HANDLE, "Handle already exists: 11250.1/existing");
+    assertThat(
+        response, is(equalTo(new HandleImportResponse(3, 2, 1, List.of(expectedConflict)))));
+    verify(statement).execute(CREATE_STAGING_TABLE_SQL);
+    verify(conflictStatement).setInt(1, MAX_REPORTED_CONFLICTS);
+  }
+
+  @Test
+  void shouldLookForConflictsOnlyAfterMergeHasMarkedImportedRows()
+      throws SQLException, IOException {
+    var csv = new StringReader("prefix,suffix,url
+11250.1,raced,https://example.org/1
+");
+    when(copyManager.copyIn(COPY_TO_STAGING_TABLE_SQL, csv)).thenReturn(1L);
+    when(mergeStatement.executeLargeUpdate()).thenReturn(0L);
+    var conflictResult = mock(ResultSet.class);
+    when(conflictResult.next()).thenReturn(true, false);
+    when(conflictResult.getLong(1)).thenReturn(1L);
+    when(conflictResult.getString(2)).thenReturn(HANDLE_PREFIX);
+    when(conflictResult.getString(3)).thenReturn("raced");
+    when(conflictResult.getLong(4)).thenReturn(1L);
+    when(conflictStatement.executeQuery()).thenReturn(conflictResult);
+
+    var response = importer.importHandles(csv, connection);
+
+    assertThat(response.created() + response.conflicts(), is(equalTo(response.received())));
+    var inOrder = inOrder(mergeStatement, conflictStatement);
+    inOrder.verify(mergeStatement).executeLargeUpdate();
+    inOrder.verify(conflictStatement).executeQuery();
+  }
+
+  @Test
+  void shouldReportNoConflictsWhenAllHandlesAreNew() throws SQLException, IOException {
+    var csv = new StringReader("prefix,suffix,url\n");
+    when(copyManager.copyIn(COPY_TO_STAGING_TABLE_SQL, csv)).thenReturn(0L);
+    var conflictResult = mock(ResultSet.class);
+    when(conflictResult.next()).thenReturn(false);
+    when(conflictStatement.executeQuery()).thenReturn(conflictResult);
+
+    var response = importer.importHandles(csv, connection);
+
+    assertThat(response, is(equalTo(new HandleImportResponse(0, 0, 0, List.of()))));
+  }
+}
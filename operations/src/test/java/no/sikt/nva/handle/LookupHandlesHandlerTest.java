@@ -0,0 +1,179 @@
+package no.sikt.nva.handle;
+
+import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_BASE_URI;
+import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_PREFIX;
+import static no.sikt.nva.handle.HandleDatabase.FIND_HANDLES_BY_URL_PREFIX_SQL;
+import static no.sikt.nva.handle.HandleDatabase.FIND_HANDLES_BY_URL_SQL;
+import static no.sikt.nva.handle.LookupHandlesHandler.CURSOR_QUERY_PARAMETER;
+import static no.sikt.nva.handle.LookupHandlesHandler.DEFAULT_LIMIT;
+import static no.sikt.nva.handle.LookupHandlesHandler.INVALID_PAGING_ERROR;
+import static no.sikt.nva.handle.LookupHandlesHandler.LIMIT_QUERY_PARAMETER;
+import static no.sikt.nva.handle.LookupHandlesHandler.URL_OR_URL_PREFIX_ERROR;
+import static no.sikt.nva.handle.LookupHandlesHandler.URL_PREFIX_QUERY_PARAMETER;
+import static no.sikt.nva.handle.LookupHandlesHandler.URL_QUERY_PARAMETER;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import no.sikt.nva.handle.model.HandleLookupResponse;
+import no.unit.nva.commons.json.JsonUtils;
+import no.unit.nva.stubs.FakeContext;
+import no.unit.nva.testutils.HandlerRequestBuilder;
+import nva.commons.apigateway.GatewayResponse;
+import nva.commons.core.Environment;
+import nva.commons.core.paths.UriWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.zalando.problem.Problem;
+
+class LookupHandlesHandlerTest {
+
+  private static final String HANDLE_BASE_URI = "https://hdl.handle.net";
+  private static final String HANDLE_PREFIX = "11250.1";
+  private static final String URL = "https://example.org/records/1";
+  private static final String URL_PREFIX = "https://example.org/records/";
+  private static final String ENV_ALLOWED_ORIGIN = "ALLOWED_ORIGIN";
+  private static final String ENV_API_HOST = "API_HOST";
+  private static final String COGNITO_AUTHORIZER_URLS = "COGNITO_AUTHORIZER_URLS";
+  private FakeContext context;
+  private LookupHandlesHandler handler;
+  private Connection connection;
+  private PreparedStatement findByUrlStatement;
+  private PreparedStatement findByUrlPrefixStatement;
+
+  @BeforeEach
+  void init() throws SQLException {
+    var environment = mock(Environment.class);
+    when(environment.readEnv(ENV_HANDLE_BASE_URI)).thenReturn(HANDLE_BASE_URI);
+    when(environment.readEnv(ENV_HANDLE_PREFIX)).thenReturn(HANDLE_PREFIX);
+    when(environment.readEnv(ENV_API_HOST)).thenReturn("api.localhost.nva.aws.unit.no");
+    when(environment.readEnv(ENV_ALLOWED_ORIGIN)).thenReturn("*");
+    when(environment.readEnv(COGNITO_AUTHORIZER_URLS)).thenReturn("http://localhost:3000");
+
+    this.context = new FakeContext();
+    this.connection = mock(Connection.class);
+    this.findByUrlStatement = mock(PreparedStatement.class);
+    this.findByUrlPrefixStatement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(FIND_HANDLES_BY_URL_SQL)).thenReturn(findByUrlStatement);
+    when(connection.prepareStatement(FIND_HANDLES_BY_URL_PREFIX_SQL))
+        .thenReturn(findByUrlPrefixStatement);
+    this.handler = new LookupHandlesHandler(environment, () -> connection);
+  }
+
+  @Test
+  void shouldReturnAllHandlesForUrlWithoutNextCursor() throws IOException, SQLException {
+    var resultSet = resultSetOf(Map.of(3, "1111", 8, "2222"));
+    when(findByUrlStatement.executeQuery()).thenReturn(resultSet);
+
+    var response = lookup(Map.of(URL_QUERY_PARAMETER, URL), HandleLookupResponse.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_OK)));
+    var expectedHandles = List.of(toFullHandle("1111"), toFullHandle("2222"));
+    assertThat(
+        response.getBodyObject(HandleLookupResponse.class),
+        is(equalTo(new HandleLookupResponse(expectedHandles, null))));
+    verify(findByUrlStatement).setInt(3, 0);
+    verify(findByUrlStatement).setInt(4, DEFAULT_LIMIT);
+  }
+
+  @Test
+  void shouldReturnNextCursorWhenPageOfUrlPrefixIsFull() throws IOException, SQLException {
+    var resultSet = resultSetOf(Map.of(11, "1111", 12, "2222"));
+    when(findByUrlPrefixStatement.executeQuery()).thenReturn(resultSet);
+
+    var response =
+        lookup(
+            Map.of(
+                URL_PREFIX_QUERY_PARAMETER,
+                URL_PREFIX,
+                CURSOR_QUERY_PARAMETER,
+                "10",
+                LIMIT_QUERY_PARAMETER,
+                "2"),
+            HandleLookupResponse.class);
+
+    assertThat(response.getBodyObject(HandleLookupResponse.class).nextCursor(), is(equalTo(12)));
+    verify(findByUrlPrefixStatement).setInt(1, 10);
+    verify(findByUrlPrefixStatement).setString(2, URL_PREFIX);
+    verify(findByUrlPrefixStatement).setInt(3, 2);
+  }
+
+  @Test
+  void shouldReturnBadRequestWhenBothUrlAndUrlPrefixAreGiven() throws IOException {
+    var queryParameters = Map.of(URL_QUERY_PARAMETER, URL, URL_PREFIX_QUERY_PARAMETER, URL_PREFIX);
+
+    var response = lookup(queryParameters, Problem.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_BAD_REQUEST)));
+    assertThat(response.getBody(), containsString(URL_OR_URL_PREFIX_ERROR));
+  }
+
+  @Test
+  void shouldReturnBadRequestWhenLimitIsTooLarge() throws IOException {
+    var queryParameters =
+        Map.of(URL_PREFIX_QUERY_PARAMETER, URL_PREFIX, LIMIT_QUERY_PARAMETER, "1001");
+
+    var response = lookup(queryParameters, Problem.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_BAD_REQUEST)));
+    assertThat(response.getBody(), containsString(INVALID_PAGING_ERROR));
+  }
+
+  @Test
+  void shouldReturnBadGatewayWhenDatabaseFails() throws IOException, SQLException {
+    when(findByUrlStatement.executeQuery()).thenThrow(new SQLException("connection reset"));
+
+    var response = lookup(Map.of(URL_QUERY_PARAMETER, URL), Problem.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_BAD_GATEWAY)));
+  }
+
+  private static ResultSet resultSetOf(Map<Integer, String> suffixesByHandleId)
+      throws SQLException {
+    var handleIds = suffixesByHandleId.keySet().stream().sorted().toList();
+    var resultSet = mock(ResultSet.class);
+    var position = new AtomicInteger(-1);
+    when(resultSet.next()).thenAnswer(invocation -> position.incrementAndGet() < handleIds.size());
+    when(resultSet.getInt(1)).thenAnswer(invocation -> handleIds.get(position.get()));
+    when(resultSet.getString(2))
+        .thenAnswer(
+            invocation ->
+                HANDLE_PREFIX + "/" + suffixesByHandleId.get(handleIds.get(position.get())));
+    return resultSet;
+  }
+
+  private <T> GatewayResponse<T> lookup(Map<String, String> queryParameters, Class<T> responseType)
+      throws IOException {
+    var outputStream = new ByteArrayOutputStream();
+    handler.handleRequest(createRequest(queryParameters), outputStream, context);
+    return GatewayResponse.fromOutputStream(outputStream, responseType);
+  }
+
+  private static InputStream createRequest(Map<String, String> queryParameters)
+      throws JsonProcessingException {
+    return new HandlerRequestBuilder<Void>(JsonUtils.dtoObjectMapper)
+        .withQueryParameters(queryParameters)
+        .build();
+  }
+
+  private static URI toFullHandle(String suffix) {
+    return UriWrapper.fromHost(HANDLE_BASE_URI).addChild(HANDLE_PREFIX, suffix).getUri();
+  }
+}
@@ -0,0 +1,210 @@
+package no.sikt.nva.handle;
+
+import static no.sikt.nva.handle.HandleDatabase.COUNT_HANDLES_BY_URL_PREFIX_SQL;
+import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_BASE_URI;
+import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_PREFIX;
+import static no.sikt.nva.handle.HandleDatabase.REPOINT_HANDLES_BY_URL_PREFIX_SQL;
+import static no.sikt.nva.handle.RepointHandlesHandler.CHUNK_SIZE;
+import static no.sikt.nva.handle.RepointHandlesHandler.INVALID_URL_PREFIX_ERROR;
+import static no.sikt.nva.handle.RepointHandlesHandler.MAX_PROCESSING_TIME;
+import static no.sikt.nva.handle.RepointHandlesHandler.SAME_URL_PREFIX_ERROR;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import no.sikt.nva.handle.model.RepointHandlesRequest;
+import no.sikt.nva.handle.model.RepointHandlesResponse;
+import no.unit.nva.commons.json.JsonUtils;
+import no.unit.nva.stubs.FakeContext;
+import no.unit.nva.testutils.HandlerRequestBuilder;
+import nva.commons.apigateway.GatewayResponse;
+import nva.commons.core.Environment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.zalando.problem.Problem;
+
+class RepointHandlesHandlerTest {
+
+  private static final String FROM_URL_PREFIX = "https://old.example.org/records/";
+  private static final String TO_URL_PREFIX = "https://new.example.org/records/";
+  private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+  private static final String ENV_ALLOWED_ORIGIN = "ALLOWED_ORIGIN";
+  private static final String ENV_API_HOST = "API_HOST";
+  private static final String COGNITO_AUTHORIZER_URLS = "COGNITO_AUTHORIZER_URLS";
+  private FakeContext context;
+  private RepointHandlesHandler handler;
+  private Connection connection;
+  private PreparedStatement repointStatement;
+  private Clock clock;
+  private ByteArrayOutputStream outputStream;
+
+  @BeforeEach
+  void init() throws SQLException {
+    var environment = mock(Environment.class);
+    when(environment.readEnv(ENV_HANDLE_BASE_URI)).thenReturn("https://hdl.handle.net");
+    when(environment.readEnv(ENV_HANDLE_PREFIX)).thenReturn("11250.1");
+    when(environment.readEnv(ENV_API_HOST)).thenReturn("api.localhost.nva.aws.unit.no");
+    when(environment.readEnv(ENV_ALLOWED_ORIGIN)).thenReturn("*");
+    when(environment.readEnv(COGNITO_AUTHORIZER_URLS)).thenReturn("http://localhost:3000");
+
+    this.context = new FakeContext();
+    this.outputStream = new ByteArrayOutputStream();
+    this.connection = mock(Connection.class);
+    this.repointStatement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(REPOINT_HANDLES_BY_URL_PREFIX_SQL))
+        .thenReturn(repointStatement);
+    this.clock = mock(Clock.class);
+    when(clock.instant()).thenReturn(NOW);
+    this.handler = new RepointHandlesHandler(environment, () -> connection, clock);
+  }
+
+  @Test
+  void shouldRepointAllMatchingHandlesAndReportCompletion() throws IOException, SQLException {
+    var repointed = resultSetOf(List.of(7, 3));
+    when(repointStatement.executeQuery()).thenReturn(repointed);
+
+    handler.handleRequest(createRequest(null), outputStream, context);
+    var response = GatewayResponse.fromOutputStream(outputStream, RepointHandlesResponse.class);
+    var progress = response.getBodyObject(RepointHandlesResponse.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_OK)));
+    assertThat(progress, is(equalTo(new RepointHandlesResponse(2, 0, 7, true))));
+    verify(repointStatement).setInt(1, 0);
+    verify(repointStatement).setString(2, FROM_URL_PREFIX);
+    verify(repointStatement).setBoolean(3, false);
+    verify(repointStatement).setString(6, TO_URL_PREFIX);
+    verify(connection, times(1)).commit();
+    verify(connection, never()).prepareStatement(COUNT_HANDLES_BY_URL_PREFIX_SQL);
+  }
+
+  @Test
+  void shouldSkipAlreadyRepointedUrlsWhenNewPrefixExtendsOldPrefix()
+      throws IOException, SQLException {
+    var extendedUrlPrefix = FROM_URL_PREFIX + "archive/";
+    var fullChunk = resultSetOf(IntStream.rangeClosed(1, CHUNK_SIZE).boxed().toList());
+    when(repointStatement.executeQuery()).thenReturn(fullChunk);
+    when(clock.instant()).thenReturn(NOW, NOW, NOW.plus(MAX_PROCESSING_TIME));
+    var countStatement = mockRemainingHandles(0);
+
+    var request = new RepointHandlesRequest(FROM_URL_PREFIX, extendedUrlPrefix, null);
+    handler.handleRequest(toInputStream(request), outputStream, context);
+
+    verify(repointStatement).setBoolean(3, true);
+    verify(repointStatement).setString(4, extendedUrlPrefix);
+    verify(countStatement).setBoolean(3, true);
+    verify(countStatement).setString(4, extendedUrlPrefix);
+  }
+
+  @Test
+  void shouldResumeAfterProvidedCursor() throws IOException, SQLException {
+    var emptyResult = resultSetOf(List.of());
+    when(repointStatement.executeQuery()).thenReturn(emptyResult);
+
+    handler.handleRequest(createRequest(42), outputStream, context);
+    var response = GatewayResponse.fromOutputStream(outputStream, RepointHandlesResponse.class);
+
+    assertThat(
+        response.getBodyObject(RepointHandlesResponse.class),
+        is(equalTo(new RepointHandlesResponse(0, 0, 42, true))));
+    verify(repointStatement).setInt(1, 42);
+  }
+
+  @Test
+  void shouldStopAtDeadlineAndReportRemainingHandles() throws IOException, SQLException {
+    var fullChunk = resultSetOf(IntStream.rangeClosed(1, CHUNK_SIZE).boxed().toList());
+    when(repointStatement.executeQuery()).thenReturn(fullChunk);
+    when(clock.instant()).thenReturn(NOW, NOW, NOW.plus(MAX_PROCESSING_TIME));
+    mockRemainingHandles(123);
+
+    handler.handleRequest(createRequest(null), outputStream, context);
+    var response = GatewayResponse.fromOutputStream(outputStream, RepointHandlesResponse.class);
+
+    assertThat(
+        response.getBodyObject(RepointHandlesResponse.class),
+        is(equalTo(new RepointHandlesResponse(CHUNK_SIZE, 123, CHUNK_SIZE, false))));
+    verify(connection, times(1)).commit();
+  }
+
+  @Test
+  void shouldRollbackAndReturnResumeCursorWhenChunkFails() throws IOException, SQLException {
+    when(repointStatement.executeQuery()).thenThrow(new SQLException("deadlock detected"));
+
+    handler.handleRequest(createRequest(42), outputStream, context);
+    var response = GatewayResponse.fromOutputStream(outputStream, Problem.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_BAD_GATEWAY)));
+    assertThat(response.getBody(), containsString("resume from cursor 42"));
+    verify(connection, times(1)).rollback();
+  }
+
+  @Test
+  void shouldReturnBadRequestWhenUrlPrefixIsNotAbsolute() throws IOException {
+    var request = new RepointHandlesRequest("/records/", TO_URL_PREFIX, null);
+
+    handler.handleRequest(toInputStream(request), outputStream, context);
+    var response = GatewayResponse.fromOutputStream(outputStream, Problem.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_BAD_REQUEST)));
+    assertThat(response.getBody(), containsString(INVALID_URL_PREFIX_ERROR));
+  }
+
+  @Test
+  void shouldReturnBadRequestWhenUrlPrefixesAreEqual() throws IOException {
+    var request = new RepointHandlesRequest(FROM_URL_PREFIX, FROM_URL_PREFIX, null);
+
+    handler.handleRequest(toInputStream(request), outputStream, context);
+    var response = GatewayResponse.fromOutputStream(outputStream, Problem.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_BAD_REQUEST)));
+    assertThat(response.getBody(), containsString(SAME_URL_PREFIX_ERROR));
+  }
+
+  private PreparedStatement mockRemainingHandles(long remaining) throws SQLException {
+    var countStatement = mock(PreparedStatement.class);
+    var countResult = mock(ResultSet.class);
+    when(countResult.next()).thenReturn(true);
+    when(countResult.getLong(1)).thenReturn(remaining);
+    when(countStatement.executeQuery()).thenReturn(countResult);
+    when(connection.prepareStatement(COUNT_HANDLES_BY_URL_PREFIX_SQL)).thenReturn(countStatement);
+    return countStatement;
+  }
+
+  private static ResultSet resultSetOf(List<Integer> handleIds) throws SQLException {
+    var resultSet = mock(ResultSet.class);
+    var position = new AtomicInteger(-1);
+    when(resultSet.next()).thenAnswer(invocation -> position.incrementAndGet() < handleIds.size());
+    when(resultSet.getInt(1)).thenAnswer(invocation -> handleIds.get(position.get()));
+    return resultSet;
+  }
+
+  private static InputStream createRequest(Integer cursor) throws JsonProcessingException {
+    return toInputStream(new RepointHandlesRequest(FROM_URL_PREFIX, TO_URL_PREFIX, cursor));
+  }
+
+  private static InputStream toInputStream(RepointHandlesRequest request)
+      throws JsonProcessingException {
+    return new HandlerRequestBuilder<RepointHandlesRequest>(JsonUtils.dtoObjectMapper)
+        .withBody(request)
+        .build();
+  }
+}
@@ -0,0 +1,153 @@
+package no.sikt.nva.handle;
+
+import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_BASE_URI;
+import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_PREFIX;
+import static no.sikt.nva.handle.HandleDatabase.RESOLVE_HANDLE_SQL;
+import static no.sikt.nva.handle.ResolveHandleHandler.REDIRECT_QUERY_PARAMETER;
+import static no.unit.nva.testutils.RandomDataGenerator.randomString;
+import static no.unit.nva.testutils.RandomDataGenerator.randomUri;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import no.sikt.nva.handle.model.HandleResolution;
+import no.unit.nva.commons.json.JsonUtils;
+import no.unit.nva.stubs.FakeContext;
+import no.unit.nva.testutils.HandlerRequestBuilder;
+import nva.commons.apigateway.GatewayResponse;
+import nva.commons.core.Environment;
+import nva.commons.core.paths.UriWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.zalando.problem.Problem;
+
+class ResolveHandleHandlerTest {
+
+  private static final String HANDLE_BASE_URI = "https://hdl.handle.net";
+  private static final String HANDLE_PREFIX = "11250.1";
+  private static final String ENV_ALLOWED_ORIGIN = "ALLOWED_ORIGIN";
+  private static final String ENV_API_HOST = "API_HOST";
+  private static final String COGNITO_AUTHORIZER_URLS = "COGNITO_AUTHORIZER_URLS";
+  private FakeContext context;
+  private ResolveHandleHandler handler;
+  private Connection connection;
+  private PreparedStatement resolveStatement;
+
+  @BeforeEach
+  void init() throws SQLException {
+    var environment = mock(Environment.class);
+    when(environment.readEnv(ENV_HANDLE_BASE_URI)).thenReturn(HANDLE_BASE_URI);
+    when(environment.readEnv(ENV_HANDLE_PREFIX)).thenReturn(HANDLE_PREFIX);
+    when(environment.readEnv(ENV_API_HOST)).thenReturn("api.localhost.nva.aws.unit.no");
+    when(environment.readEnv(ENV_ALLOWED_ORIGIN)).thenReturn("*");
+    when(environment.readEnv(COGNITO_AUTHORIZER_URLS)).thenReturn("http://localhost:3000");
+
+    this.context = new FakeContext();
+    this.connection = mock(Connection.class);
+    this.resolveStatement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(RESOLVE_HANDLE_SQL)).thenReturn(resolveStatement);
+    this.handler = new ResolveHandleHandler(environment, () -> connection);
+  }
+
+  @Test
+  void shouldReturnHandleAndUriAsJson() throws IOException, SQLException {
+    var suffix = randomString();
+    var uri = randomUri();
+    mockResolvedUri(uri);
+
+    var response = resolve(suffix, Map.of(), HandleResolution.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_OK)));
+    assertThat(
+        response.getBodyObject(HandleResolution.class),
+        is(equalTo(new HandleResolution(toFullHandle(suffix), uri))));
+  }
+
+  @Test
+  void shouldRedirectToUriWhenRedirectIsRequested() throws IOException, SQLException {
+    var uri = randomUri();
+    mockResolvedUri(uri);
+
+    var response = resolve(randomString(), Map.of(REDIRECT_QUERY_PARAMETER, "true"), Void.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_MOVED_TEMP)));
+    assertThat(response.getHeaders().get("Location"), is(equalTo(uri.toString())));
+  }
+
+  @Test
+  void shouldServeRepeatedResolutionFromCache() throws IOException, SQLException {
+    var suffix = randomString();
+    mockResolvedUri(randomUri());
+
+    resolve(suffix, Map.of(), HandleResolution.class);
+    var response = resolve(suffix, Map.of(), HandleResolution.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_OK)));
+    verify(resolveStatement, times(1)).executeQuery();
+  }
+
+  @Test
+  void shouldReturnNotFoundAndCacheUnknownHandle() throws IOException, SQLException {
+    var suffix = randomString();
+    var resultSet = mock(ResultSet.class);
+    when(resultSet.next()).thenReturn(false);
+    when(resolveStatement.executeQuery()).thenReturn(resultSet);
+
+    resolve(suffix, Map.of(), Problem.class);
+    var response = resolve(suffix, Map.of(), Problem.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_NOT_FOUND)));
+    verify(resolveStatement, times(1)).executeQuery();
+  }
+
+  @Test
+  void shouldReturnBadGatewayWhenDatabaseFails() throws IOException, SQLException {
+    when(resolveStatement.executeQuery()).thenThrow(new SQLException("connection reset"));
+
+    var response = resolve(randomString(), Map.of(), Problem.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_BAD_GATEWAY)));
+  }
+
+  private void mockResolvedUri(URI uri) throws SQLException {
+    var resultSet = mock(ResultSet.class);
+    when(resultSet.next()).thenReturn(true);
+    when(resultSet.getString(1)).thenReturn(uri.toString());
+    when(resolveStatement.executeQuery()).thenReturn(resultSet);
+  }
+
+  private <T> GatewayResponse<T> resolve(
+      String suffix, Map<String, String> queryParameters, Class<T> responseType)
+      throws IOException {
+    var outputStream = new ByteArrayOutputStream();
+    handler.handleRequest(createRequest(suffix, queryParameters), outputStream, context);
+    return GatewayResponse.fromOutputStream(outputStream, responseType);
+  }
+
+  private static InputStream createRequest(String suffix, Map<String, String> queryParameters)
+      throws JsonProcessingException {
+    return new HandlerRequestBuilder<Void>(JsonUtils.dtoObjectMapper)
+        .withPathParameters(Map.of("prefix", HANDLE_PREFIX, "suffix", suffix))
+        .withQueryParameters(queryParameters)
+        .build();
+  }
+
+  private static URI toFullHandle(String suffix) {
+    return UriWrapper.fromHost(HANDLE_BASE_URI).addChild(HANDLE_PREFIX, suffix).getUri();
+  }
+}
@@ -0,0 +1,154 @@
+package no.sikt.nva.handle;
+
+import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_BASE_URI;
+import static no.sikt.nva.handle.HandleDatabase.ENV_HANDLE_PREFIX;
+import static no.sikt.nva.handle.HandleDatabase.RESOLVE_HANDLES_SQL;
+import static no.sikt.nva.handle.ResolveHandlesHandler.BATCH_TOO_LARGE_ERROR;
+import static no.sikt.nva.handle.ResolveHandlesHandler.EMPTY_BATCH_ERROR;
+import static no.sikt.nva.handle.ResolveHandlesHandler.INVALID_HANDLE_ERROR;
+import static no.sikt.nva.handle.ResolveHandlesHandler.MAX_BATCH_SIZE;
+import static no.unit.nva.testutils.RandomDataGenerator.randomUri;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import no.sikt.nva.handle.model.ResolveHandlesRequest;
+import no.sikt.nva.handle.model.ResolveHandlesResponse;
+import no.unit.nva.commons.json.JsonUtils;
+import no.unit.nva.stubs.FakeContext;
+import no.unit.nva.testutils.HandlerRequestBuilder;
+import nva.commons.apigateway.GatewayResponse;
+import nva.commons.core.Environment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.zalando.problem.Problem;
+
+class ResolveHandlesHandlerTest {
+
+  private static final String HANDLE_BASE_URI = "https://hdl.handle.net";
+  private static final String HANDLE_PREFIX = "11250.1";
+  private static final String KNOWN_HANDLE = HANDLE_PREFIX + "/1111";
+  private static final String UNKNOWN_HANDLE = HANDLE_PREFIX + "/2222";
+  private static final String ENV_ALLOWED_ORIGIN = "ALLOWED_ORIGIN";
+  private static final String ENV_API_HOST = "API_HOST";
+  private static final String COGNITO_AUTHORIZER_URLS = "COGNITO_AUTHORIZER_URLS";
+  private FakeContext context;
+  private ResolveHandlesHandler handler;
+  private Connection connection;
+  private PreparedStatement resolveStatement;
+
+  @BeforeEach
+  void init() throws SQLException {
+    var environment = mock(Environment.class);
+    when(environment.readEnv(ENV_HANDLE_BASE_URI)).thenReturn(HANDLE_BASE_URI);
+    when(environment.readEnv(ENV_HANDLE_PREFIX)).thenReturn(HANDLE_PREFIX);
+    when(environment.readEnv(ENV_API_HOST)).thenReturn("api.localhost.nva.aws.unit.no");
+    when(environment.readEnv(ENV_ALLOWED_ORIGIN)).thenReturn("*");
+    when(environment.readEnv(COGNITO_AUTHORIZER_URLS)).thenReturn("http://localhost:3000");
+
+    this.context = new FakeContext();
+    this.connection = mock(Connection.class);
+    this.resolveStatement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(RESOLVE_HANDLES_SQL)).thenReturn(resolveStatement);
+    this.handler = new ResolveHandlesHandler(environment, () -> connection);
+  }
+
+  @Test
+  void shouldResolveKnownHandlesAndListMissingOnesInSingleQuery()
+      throws IOException, SQLException {
+    var uri = randomUri();
+    mockResolvedHandle(KNOWN_HANDLE, uri);
+
+    var response =
+        resolve(
+            List.of(HANDLE_BASE_URI + "/" + KNOWN_HANDLE, UNKNOWN_HANDLE),
+            ResolveHandlesResponse.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_OK)));
+    var expected = new ResolveHandlesResponse(Map.of(KNOWN_HANDLE, uri), List.of(UNKNOWN_HANDLE));
+    assertThat(response.getBodyObject(ResolveHandlesResponse.class), is(equalTo(expected)));
+    verify(resolveStatement, times(1)).executeQuery();
+  }
+
+  @Test
+  void shouldServeRepeatedResolutionsFromCache() throws IOException, SQLException {
+    mockResolvedHandle(KNOWN_HANDLE, randomUri());
+
+    resolve(List.of(KNOWN_HANDLE, UNKNOWN_HANDLE), ResolveHandlesResponse.class);
+    resolve(List.of(KNOWN_HANDLE, UNKNOWN_HANDLE), ResolveHandlesResponse.class);
+
+    verify(resolveStatement, times(1)).executeQuery();
+  }
+
+  @Test
+  void shouldReturnBadRequestWhenHandlesAreEmpty() throws IOException {
+    var response = resolve(List.of(), Problem.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_BAD_REQUEST)));
+    assertThat(response.getBody(), containsString(EMPTY_BATCH_ERROR));
+  }
+
+  @Test
+  void shouldReturnBadRequestWhenTooManyHandlesAreRequested() throws IOException {
+    var response = resolve(Collections.nCopies(MAX_BATCH_SIZE + 1, KNOWN_HANDLE), Problem.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_BAD_REQUEST)));
+    assertThat(response.getBody(), containsString(BATCH_TOO_LARGE_ERROR));
+  }
+
+  @Test
+  void shouldReturnBadRequestWhenHandleHasNoSuffix() throws IOException {
+    var response = resolve(List.of(HANDLE_PREFIX + "/"), Problem.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_BAD_REQUEST)));
+    assertThat(response.getBody(), containsString(INVALID_HANDLE_ERROR));
+  }
+
+  @Test
+  void shouldReturnBadGatewayWhenDatabaseFails() throws IOException, SQLException {
+    when(resolveStatement.executeQuery()).thenThrow(new SQLException("connection reset"));
+
+    var response = resolve(List.of(KNOWN_HANDLE), Problem.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_BAD_GATEWAY)));
+  }
+
+  private void mockResolvedHandle(String handle, URI uri) throws SQLException {
+    var resultSet = mock(ResultSet.class);
+    when(resultSet.next()).thenReturn(true, false);
+    when(resultSet.getString(1)).thenReturn(handle);
+    when(resultSet.getString(2)).thenReturn(uri.toString());
+    when(resolveStatement.executeQuery()).thenReturn(resultSet);
+  }
+
+  private <T> GatewayResponse<T> resolve(List<String> handles, Class<T> responseType)
+      throws IOException {
+    var outputStream = new ByteArrayOutputStream();
+    handler.handleRequest(createRequest(handles), outputStream, context);
+    return GatewayResponse.fromOutputStream(outputStream, responseType);
+  }
+
+  private static InputStream createRequest(List<String> handles) throws JsonProcessingException {
+    return new HandlerRequestBuilder<ResolveHandlesRequest>(JsonUtils.dtoObjectMapper)
+        .withBody(new ResolveHandlesRequest(handles))
+        .build();
+  }
+}
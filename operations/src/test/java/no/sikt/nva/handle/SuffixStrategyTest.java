@@ -0,0 +1,56 @@
+package no.sikt.nva.handle;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.number.OrderingComparison.greaterThan;
+import static org.hamcrest.text.MatchesPattern.matchesPattern;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class SuffixStrategyTest {
+
+  private static final String CROCKFORD_BASE32 = "[0-9a-hjkmnp-tv-z]";
+
+  @Test
+  void shouldGenerateRandomBase32SuffixOfConfiguredLength() {
+    var strategy = new RandomSuffixStrategy(12, new Random(42));
+
+    var suffix = strategy.nextSuffix();
+
+    assertThat(suffix, matchesPattern(CROCKFORD_BASE32 + "{12}"));
+  }
+
+  @Test
+  void shouldRejectNonPositiveRandomSuffixLength() {
+    assertThrows(IllegalArgumentException.class, () -> new RandomSuffixStrategy(0, new Random()));
+  }
+
+  @Test
+  void shouldGenerateTimeOrderedSuffixesThatSortByCreationTime() {
+    var clock = mock(Clock.class);
+    when(clock.millis()).thenReturn(1_700_000_000_000L, 1_700_000_000_001L);
+    var strategy = new TimeOrderedSuffixStrategy(clock, new Random(42));
+
+    var earlier = strategy.nextSuffix();
+    var later = strategy.nextSuffix();
+
+    assertThat(earlier, matchesPattern(CROCKFORD_BASE32 + "{26}"));
+    assertThat(later.compareTo(earlier), is(greaterThan(0)));
+  }
+
+  @Test
+  void shouldEncodeTimestampAsLeadingCharacters() {
+    var clock = mock(Clock.class);
+    when(clock.millis()).thenReturn(0L);
+
+    var suffix = new TimeOrderedSuffixStrategy(clock, new Random(42)).nextSuffix();
+
+    assertThat(suffix.substring(0, 10), is(equalTo("0000000000")));
+  }
+}
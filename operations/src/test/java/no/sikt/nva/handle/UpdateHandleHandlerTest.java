@@ -45,6 +45,7 @@ class UpdateHandleHandlerTest {
   private static final String HANDLE_PREFIX = "11250.1";
   private static final String NULL_URI_ERROR = "uri can not be null";
   private static final String COGNITO_AUTHORIZER_URLS = "COGNITO_AUTHORIZER_URLS";
+  private static final String DEADLOCK_DETECTED = "40P01";
   private FakeContext context;
   private UpdateHandleHandler handler;
   private Connection connection;
@@ -122,6 +123,26 @@ class UpdateHandleHandlerTest {
     assertThat(logRecorder.asString(), containsString(failure));
   }
 
+  @Test
+  void updateHandleRequestRetriesAndReturnsOkWhenUpdateStatementIsDeadlocked()
+      throws IOException, SQLException {
+    var uri = randomUri();
+    var inputStream = getUpdateHandleRequest(uri);
+
+    PreparedStatement preparedStatementSetHandle = mock(PreparedStatement.class);
+    when(preparedStatementSetHandle.executeUpdate())
+        .thenThrow(new SQLException("deadlock detected", DEADLOCK_DETECTED))
+        .thenReturn(1);
+    when(connection.prepareStatement(SET_URI_BY_HANDLE_SQL)).thenReturn(preparedStatementSetHandle);
+
+    handler.handleRequest(inputStream, outputStream, context);
+    var response = GatewayResponse.fromOutputStream(outputStream, HandleResponse.class);
+
+    assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_OK)));
+    verify(connection, times(1)).rollback();
+    verify(connection, times(1)).commit();
+  }
+
   @Test
   void updateHandleRequestReturnsBadRequestResponseWhenUriIsNull() throws IOException {
     var inputStream = getUpdateHandleRequest(null);
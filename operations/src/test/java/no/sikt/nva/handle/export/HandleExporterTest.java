@@ -0,0 +1,107 @@
+package no.sikt.nva.handle.export;
+
+import static no.sikt.nva.handle.export.HandleExporter.EXPORT_HANDLES_SQL;
+import static no.sikt.nva.handle.export.HandleExporter.EXPORT_WATERMARK_SQL;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HandleExporterTest {
+
+  private static final int FETCH_SIZE = 500;
+  private static final Duration SAFETY_LAG = Duration.ofMinutes(1);
+  private static final Instant CREATED_AFTER = Instant.parse("2024-01-01T00:00:00Z");
+  private static final Instant WATERMARK = Instant.parse("2024-02-01T00:00:00Z");
+  private static final Instant DATE_CREATED = Instant.parse("2024-01-15T12:00:00Z");
+  private Connection connection;
+  private PreparedStatement exportStatement;
+  private PreparedStatement watermarkStatement;
+
+  @BeforeEach
+  void init() throws SQLException {
+    this.connection = mock(Connection.class);
+    this.exportStatement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(
+            EXPORT_HANDLES_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY))
+        .thenReturn(exportStatement);
+    this.watermarkStatement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(EXPORT_WATERMARK_SQL)).thenReturn(watermarkStatement);
+    var watermarkResultSet = mock(ResultSet.class);
+    when(watermarkResultSet.next()).thenReturn(true);
+    when(watermarkResultSet.getTimestamp(1)).thenReturn(Timestamp.from(WATERMARK));
+    when(watermarkStatement.executeQuery()).thenReturn(watermarkResultSet);
+    var resultSet = mock(ResultSet.class);
+    when(resultSet.next()).thenReturn(true, true, false);
+    when(resultSet.getString(1)).thenReturn("11250.1/1", "11250.1/2");
+    when(resultSet.getString(2))
+        .thenReturn("https://example.org/1", "https://example.org/\"quoted\"");
+    when(resultSet.getTimestamp(3)).thenReturn(Timestamp.from(DATE_CREATED));
+    when(exportStatement.executeQuery()).thenReturn(resultSet);
+  }
+
+  @Test
+  void shouldStreamRowsCreatedInWindowThroughCursorAsNdjson() throws SQLException, IOException {
+    var output = new StringWriter();
+
+    var result = export(HandleExportFormat.NDJSON, output);
+
+    assertThat(result, is(equalTo(new HandleExportResult(WATERMARK, 2))));
+    assertThat(
+        output.toString(),
+        is(
+            equalTo(
+                "{\"handle\":\"11250.1/1\",\"url\":\"https://example.org/1\","
+                    + "\"dateCreated\":\"2024-01-15T12:00:00Z\"}\n"
+                    + "{\"handle\":\"11250.1/2\",\"url\":\"https://example.org/\\\"quoted\\\"\","
+                    + "\"dateCreated\":\"2024-01-15T12:00:00Z\"}\n")));
+    verify(exportStatement).setFetchSize(FETCH_SIZE);
+    verify(exportStatement).setTimestamp(1, Timestamp.from(CREATED_AFTER));
+    verify(exportStatement).setTimestamp(2, Timestamp.from(WATERMARK));
+    verify(connection).rollback();
+  }
+
+  @Test
+  void shouldTakeWatermarkFromDatabaseClockHeldBackBySafetyLag() throws SQLException, IOException {
+    export(HandleExportFormat.NDJSON, new StringWriter());
+
+    verify(watermarkStatement).setLong(1, SAFETY_LAG.toSeconds());
+  }
+
+  @Test
+  void shouldWriteHeaderAndQuotedFieldsAsCsv() throws SQLException, IOException {
+    var output = new StringWriter();
+
+    export(HandleExportFormat.CSV, output);
+
+    assertThat(
+        output.toString(),
+        is(
+            equalTo(
+                "handle,url,date_created\r\n"
+                    + "\"11250.1/1\",\"https://example.org/1\",2024-01-15T12:00:00Z\r\n"
+                    + "\"11250.1/2\",\"https://example.org/\"\"quoted\"\"\","
+                    + "2024-01-15T12:00:00Z\r\n")));
+  }
+
+  private HandleExportResult export(HandleExportFormat format, StringWriter output)
+      throws SQLException, IOException {
+    try (var writer = format.newWriter(output)) {
+      return new HandleExporter(FETCH_SIZE, SAFETY_LAG).export(CREATED_AFTER, connection, writer);
+    }
+  }
+}
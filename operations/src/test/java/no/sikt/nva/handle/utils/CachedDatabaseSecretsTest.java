@@ -0,0 +1,92 @@
+package no.sikt.nva.handle.utils;
+
+import static no.unit.nva.testutils.RandomDataGenerator.randomString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNot.not;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+import no.sikt.nva.handle.model.HandleDatabaseSecrets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CachedDatabaseSecretsTest {
+
+  private static final Duration TIME_TO_LIVE = Duration.ofMinutes(15);
+  private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+  private Supplier<HandleDatabaseSecrets> secretsFetcher;
+  private Clock clock;
+  private CachedDatabaseSecrets cachedDatabaseSecrets;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    secretsFetcher = mock(Supplier.class);
+    when(secretsFetcher.get()).thenReturn(randomSecrets(), randomSecrets());
+    clock = mock(Clock.class);
+    when(clock.instant()).thenReturn(NOW);
+    cachedDatabaseSecrets = new CachedDatabaseSecrets(secretsFetcher, TIME_TO_LIVE, clock);
+  }
+
+  @Test
+  void shouldFetchSecretsOnlyOnceWithinTimeToLive() {
+    var first = cachedDatabaseSecrets.get();
+    when(clock.instant()).thenReturn(NOW.plus(TIME_TO_LIVE).minusSeconds(1));
+    var second = cachedDatabaseSecrets.get();
+
+    assertThat(second, is(equalTo(first)));
+    verify(secretsFetcher, times(1)).get();
+  }
+
+  @Test
+  void shouldFetchSecretsAgainWhenTimeToLiveHasExpired() {
+    var first = cachedDatabaseSecrets.get();
+    when(clock.instant()).thenReturn(NOW.plus(TIME_TO_LIVE));
+    var second = cachedDatabaseSecrets.get();
+
+    assertThat(second, is(not(equalTo(first))));
+    verify(secretsFetcher, times(2)).get();
+  }
+
+  @Test
+  void shouldFetchSecretsAgainWhenRefreshedWithinTimeToLive() {
+    var first = cachedDatabaseSecrets.get();
+    var refreshed = cachedDatabaseSecrets.refresh();
+
+    assertThat(refreshed, is(not(equalTo(first))));
+    assertThat(cachedDatabaseSecrets.get(), is(equalTo(refreshed)));
+    verify(secretsFetcher, times(2)).get();
+  }
+
+  @Test
+  void shouldDetectAuthenticationFailureWrappedByConnectionPool() {
+    var authenticationFailure = new SQLException("password authentication failed", "28P01");
+    var poolTimeout =
+        new SQLTransientConnectionException("Connection is not available", authenticationFailure);
+
+    assertTrue(DatabaseConnectionSupplier.isAuthenticationFailure(poolTimeout));
+  }
+
+  @Test
+  void shouldNotTreatOtherConnectionFailuresAsAuthenticationFailures() {
+    var connectionFailure = new SQLException("connection refused", "08001");
+
+    assertFalse(DatabaseConnectionSupplier.isAuthenticationFailure(connectionFailure));
+  }
+
+  private static HandleDatabaseSecrets randomSecrets() {
+    return new HandleDatabaseSecrets(randomString(), randomString(), randomString());
+  }
+}
@@ -0,0 +1,79 @@
+package no.sikt.nva.handle.utils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import no.sikt.nva.handle.model.CacheStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ExpiringLruCacheTest {
+
+  private static final Duration TIME_TO_LIVE = Duration.ofMinutes(5);
+  private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+  private Clock clock;
+  private ExpiringLruCache<String, String> cache;
+
+  @BeforeEach
+  void setUp() {
+    clock = mock(Clock.class);
+    when(clock.instant()).thenReturn(NOW);
+    cache = new ExpiringLruCache<>(2, TIME_TO_LIVE, clock);
+  }
+
+  @Test
+  void shouldCountHitsAndMisses() {
+    cache.put("a", "1");
+
+    assertThat(cache.get("a"), is(equalTo(Optional.of("1"))));
+    assertThat(cache.get("b"), is(equalTo(Optional.empty())));
+    assertThat(cache.statistics(), is(equalTo(new CacheStatistics(1, 1, 1))));
+  }
+
+  @Test
+  void shouldExpireEntriesAfterTimeToLive() {
+    cache.put("a", "1");
+    when(clock.instant()).thenReturn(NOW.plus(TIME_TO_LIVE));
+
+    assertThat(cache.get("a"), is(equalTo(Optional.empty())));
+    assertThat(cache.statistics().size(), is(equalTo(0)));
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedEntryWhenFull() {
+    cache.put("a", "1");
+    cache.put("b", "2");
+    cache.get("a");
+    cache.put("c", "3");
+
+    assertThat(cache.get("a"), is(equalTo(Optional.of("1"))));
+    assertThat(cache.get("b"), is(equalTo(Optional.empty())));
+    assertThat(cache.get("c"), is(equalTo(Optional.of("3"))));
+  }
+
+  @Test
+  void shouldInvalidateEntriesMatchingPredicate() {
+    cache.put("a", "1");
+    cache.put("b", "2");
+
+    cache.invalidateIf((key, value) -> "2".equals(value));
+
+    assertThat(cache.get("a"), is(equalTo(Optional.of("1"))));
+    assertThat(cache.get("b"), is(equalTo(Optional.empty())));
+  }
+
+  @Test
+  void shouldNotStoreAnythingWhenMaximumSizeIsZero() {
+    var disabledCache = new ExpiringLruCache<String, String>(0, TIME_TO_LIVE, clock);
+    disabledCache.put("a", "1");
+
+    assertThat(disabledCache.get("a"), is(equalTo(Optional.empty())));
+  }
+}
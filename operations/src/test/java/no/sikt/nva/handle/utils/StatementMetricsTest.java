@@ -0,0 +1,115 @@
+package no.sikt.nva.handle.utils;
+
+import static no.sikt.nva.handle.utils.StatementMetrics.ACTIVE_CONNECTIONS_METRIC;
+import static no.sikt.nva.handle.utils.StatementMetrics.AWAITING_THREADS_METRIC;
+import static no.sikt.nva.handle.utils.StatementMetrics.IDLE_CONNECTIONS_METRIC;
+import static no.sikt.nva.handle.utils.StatementMetrics.LATENCY_METRIC;
+import static no.sikt.nva.handle.utils.StatementMetrics.NAMESPACE;
+import static no.sikt.nva.handle.utils.StatementMetrics.OPERATION_DIMENSION;
+import static no.sikt.nva.handle.utils.StatementMetrics.OTHER_PREFIX;
+import static no.sikt.nva.handle.utils.StatementMetrics.PREFIX_DIMENSION;
+import static no.sikt.nva.handle.utils.StatementMetrics.TOTAL_CONNECTIONS_METRIC;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import no.sikt.nva.handle.model.ConnectionPoolMetrics;
+import no.unit.nva.commons.json.JsonUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class StatementMetricsTest {
+
+  private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+  private List<String> lines;
+  private StatementMetrics statementMetrics;
+
+  @BeforeEach
+  void setUp() {
+    var clock = mock(Clock.class);
+    when(clock.millis()).thenReturn(NOW.toEpochMilli());
+    lines = new ArrayList<>();
+    statementMetrics = new StatementMetrics(lines::add, clock, Set.of("11250.1"));
+  }
+
+  @Test
+  void shouldWriteLatencyAsEmbeddedMetricWithOperationAndPrefixDimensions()
+      throws JsonProcessingException {
+    statementMetrics.record("CheckUrl", "11250.1", Duration.ofMillis(12));
+
+    var line = parseSingleLine();
+    var directive = line.at("/_aws/CloudWatchMetrics/0");
+
+    assertThat(line.at("/_aws/Timestamp").asLong(), is(equalTo(NOW.toEpochMilli())));
+    assertThat(directive.get("Namespace").asText(), is(equalTo(NAMESPACE)));
+    assertThat(directive.at("/Dimensions/0/0").asText(), is(equalTo(OPERATION_DIMENSION)));
+    assertThat(directive.at("/Dimensions/0/1").asText(), is(equalTo(PREFIX_DIMENSION)));
+    assertThat(directive.at("/Metrics/0/Name").asText(), is(equalTo(LATENCY_METRIC)));
+    assertThat(line.get(OPERATION_DIMENSION).asText(), is(equalTo("CheckUrl")));
+    assertThat(line.get(PREFIX_DIMENSION).asText(), is(equalTo("11250.1")));
+    assertThat(line.get(LATENCY_METRIC).asDouble(), is(equalTo(12.0)));
+  }
+
+  @Test
+  void shouldOnlyUseOperationDimensionWhenPrefixIsUnknown() throws JsonProcessingException {
+    statementMetrics.record("ResolveHandles", null, Duration.ofMillis(3));
+
+    var line = parseSingleLine();
+
+    assertThat(line.at("/_aws/CloudWatchMetrics/0/Dimensions/0").size(), is(equalTo(1)));
+    assertThat(line.has(PREFIX_DIMENSION), is(false));
+  }
+
+  @Test
+  void shouldReportUnconfiguredPrefixAsOther() throws JsonProcessingException {
+    statementMetrics.record("CheckHandle", "99999.9", Duration.ofMillis(3));
+
+    assertThat(parseSingleLine().get(PREFIX_DIMENSION).asText(), is(equalTo(OTHER_PREFIX)));
+  }
+
+  @Test
+  void shouldWritePoolMetricsAsOneEmbeddedMetricLine() throws JsonProcessingException {
+    statementMetrics.recordPool("handle-database", new ConnectionPoolMetrics(1, 2, 3, 4));
+
+    var line = parseSingleLine();
+
+    assertThat(line.at("/_aws/CloudWatchMetrics/0/Metrics").size(), is(equalTo(4)));
+    assertThat(line.get(OPERATION_DIMENSION).asText(), is(equalTo("handle-database")));
+    assertThat(line.get(ACTIVE_CONNECTIONS_METRIC).asInt(), is(equalTo(1)));
+    assertThat(line.get(IDLE_CONNECTIONS_METRIC).asInt(), is(equalTo(2)));
+    assertThat(line.get(TOTAL_CONNECTIONS_METRIC).asInt(), is(equalTo(3)));
+    assertThat(line.get(AWAITING_THREADS_METRIC).asInt(), is(equalTo(4)));
+  }
+
+  @Test
+  void shouldRecordLatencyWhenStatementFails() throws JsonProcessingException {
+    assertThrows(
+        SQLException.class,
+        () ->
+            statementMetrics.time(
+                "InsertHandle",
+                "11250.1",
+                () -> {
+                  throw new SQLException("duplicate key");
+                }));
+
+    assertThat(parseSingleLine().get(OPERATION_DIMENSION).asText(), is(equalTo("InsertHandle")));
+  }
+
+  private JsonNode parseSingleLine() throws JsonProcessingException {
+    assertThat(lines.size(), is(equalTo(1)));
+    return JsonUtils.dtoObjectMapper.readTree(lines.getFirst());
+  }
+}
@@ -0,0 +1,145 @@
+package no.sikt.nva.handle.utils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.random.RandomGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TransactionRetryPolicyTest {
+
+  private static final int MAX_ATTEMPTS = 3;
+  private static final String DEADLOCK_DETECTED = "40P01";
+  private static final String UNIQUE_VIOLATION = "23505";
+  private static final String OPERATION = "CreateHandle";
+  private TransactionRetryPolicy retryPolicy;
+  private Context context;
+  private AtomicInteger attempts;
+  private List<String> metricLines;
+
+  @BeforeEach
+  void setUp() {
+    metricLines = new ArrayList<>();
+    retryPolicy =
+        new TransactionRetryPolicy(
+            OPERATION,
+            MAX_ATTEMPTS,
+            Duration.ofMillis(1),
+            Duration.ofMillis(1),
+            Clock.systemUTC(),
+            RandomGenerator.getDefault(),
+            new StatementMetrics(metricLines::add, Clock.systemUTC()));
+    context = mock(Context.class);
+    when(context.getRemainingTimeInMillis()).thenReturn(30_000);
+    attempts = new AtomicInteger();
+  }
+
+  @Test
+  void shouldRetryTransientFailureAndReturnResult() throws SQLException {
+    var result = retryPolicy.execute(() -> failFirstAttempt(DEADLOCK_DETECTED), context);
+
+    assertThat(result, is(equalTo("committed")));
+    assertThat(attempts.get(), is(equalTo(2)));
+    assertThat(countMetric(TransactionRetryPolicy.RETRIED_METRIC), is(equalTo(1L)));
+    assertThat(countMetric(TransactionRetryPolicy.RECOVERED_METRIC), is(equalTo(1L)));
+    assertThat(countMetric(TransactionRetryPolicy.EXHAUSTED_METRIC), is(equalTo(0L)));
+  }
+
+  @Test
+  void shouldNotRetryPermanentFailure() {
+    assertThrows(
+        SQLException.class,
+        () -> retryPolicy.execute(() -> failFirstAttempt(UNIQUE_VIOLATION), context));
+
+    assertThat(attempts.get(), is(equalTo(1)));
+    assertThat(metricLines.isEmpty(), is(true));
+  }
+
+  @Test
+  void shouldGiveUpAfterMaxAttempts() {
+    assertThrows(SQLException.class, () -> retryPolicy.execute(this::failEveryAttempt, context));
+
+    assertThat(attempts.get(), is(equalTo(MAX_ATTEMPTS)));
+    assertThat(countMetric(TransactionRetryPolicy.RETRIED_METRIC), is(equalTo(2L)));
+    assertThat(countMetric(TransactionRetryPolicy.RECOVERED_METRIC), is(equalTo(0L)));
+    assertThat(countMetric(TransactionRetryPolicy.EXHAUSTED_METRIC), is(equalTo(1L)));
+  }
+
+  @Test
+  void shouldNotRetryWhenLambdaIsAboutToTimeOut() {
+    when(context.getRemainingTimeInMillis()).thenReturn(500);
+
+    assertThrows(SQLException.class, () -> retryPolicy.execute(this::failEveryAttempt, context));
+
+    assertThat(attempts.get(), is(equalTo(1)));
+    assertThat(countMetric(TransactionRetryPolicy.RETRIED_METRIC), is(equalTo(0L)));
+    assertThat(countMetric(TransactionRetryPolicy.EXHAUSTED_METRIC), is(equalTo(1L)));
+  }
+
+  @Test
+  void shouldCapRetryBudgetAtApiGatewayIntegrationTimeout() {
+    var random = mock(RandomGenerator.class);
+    when(random.nextLong(anyLong())).thenReturn(30_000L);
+    var cappedRetryPolicy =
+        new TransactionRetryPolicy(
+            OPERATION,
+            MAX_ATTEMPTS,
+            Duration.ofSeconds(30),
+            Duration.ofSeconds(30),
+            Clock.systemUTC(),
+            random,
+            new StatementMetrics(metricLines::add, Clock.systemUTC()));
+    when(context.getRemainingTimeInMillis()).thenReturn(900_000);
+
+    assertThrows(
+        SQLException.class, () -> cappedRetryPolicy.execute(this::failEveryAttempt, context));
+
+    assertThat(attempts.get(), is(equalTo(1)));
+    assertThat(countMetric(TransactionRetryPolicy.EXHAUSTED_METRIC), is(equalTo(1L)));
+  }
+
+  @Test
+  void shouldClassifyWrappedConnectionFailuresAsTransient() {
+    var unavailable = new RuntimeException(new SQLTransientConnectionException("timeout"));
+    var connectionLost = new RuntimeException(new SQLException("I/O error", "08006"));
+
+    assertThat(TransactionRetryPolicy.isTransient(unavailable), is(true));
+    assertThat(TransactionRetryPolicy.isTransient(connectionLost), is(true));
+    assertThat(
+        TransactionRetryPolicy.isTransient(new SQLException("duplicate", UNIQUE_VIOLATION)),
+        is(false));
+  }
+
+  private long countMetric(String metric) {
+    return metricLines.stream()
+        .filter(line -> line.contains("\"" + metric + "\":1"))
+        .filter(line -> line.contains("\"Operation\":\"" + OPERATION + "\""))
+        .count();
+  }
+
+  private String failFirstAttempt(String sqlState) throws SQLException {
+    if (attempts.incrementAndGet() == 1) {
+      throw new SQLException("failure", sqlState);
+    }
+    return "committed";
+  }
+
+  private String failEveryAttempt() throws SQLException {
+    attempts.incrementAndGet();
+    throw new SQLException("deadlock detected", DEADLOCK_DETECTED);
+  }
+}